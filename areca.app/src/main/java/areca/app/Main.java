@@ -37,7 +37,7 @@ public class Main {
     @SuppressWarnings("unchecked")
     public static void main( String[] args ) throws Exception {
         var debug = Window.current().getLocation().getSearch().contains( "debug" );
-        LogFactory.DEFAULT_LEVEL = debug ? Level.INFO : Level.WARN;
+        LogFactory.setDefaultLevel( debug ? Level.INFO : Level.WARN );
         LOG.info( "DEBUG: %s (%s)", debug, LogFactory.DEFAULT_LEVEL );
 
         Platform.impl = new TeaPlatform();
@@ -503,6 +503,10 @@ public class MessagesPage extends Page {
                     .unsubscribeIf( () -> isDisposed() );
                 }});
             }
+
+            // computeMinHeight() depends on the content
+            message.onLifecycle( State.AFTER_REFRESH, ev -> invalidateMinSize() )
+                    .unsubscribeIf( () -> isDisposed() );
         }
 
 
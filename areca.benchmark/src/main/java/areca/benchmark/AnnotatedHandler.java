@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.benchmark;
+
+import java.util.EventObject;
+
+import areca.common.event.EventHandler;
+import areca.common.reflect.ClassInfo;
+import areca.common.reflect.RuntimeInfo;
+
+/**
+ * An {@link EventHandler} annotated handler of several event types, like the
+ * UI event collectors.
+ *
+ * @author Falko Bräutigam
+ */
+@RuntimeInfo
+public class AnnotatedHandler {
+
+    public static final ClassInfo<AnnotatedHandler> TYPE = AnnotatedHandlerClassInfo.instance();
+
+    public static class Event1 extends EventObject {
+        public Event1( Object source ) { super( source ); }
+    }
+
+    public static class Event2 extends EventObject {
+        public Event2( Object source ) { super( source ); }
+    }
+
+    public static class Event3 extends EventObject {
+        public Event3( Object source ) { super( source ); }
+    }
+
+    // instance *******************************************
+
+    public int      count;
+
+
+    @EventHandler( Event1.class )
+    public void onEvent1( Event1 ev ) {
+        count ++;
+    }
+
+
+    @EventHandler( Event2.class )
+    public void onEvent2( Event2 ev ) {
+        count ++;
+    }
+
+
+    @EventHandler( Event3.class )
+    public void onEvent3( Event3 ev ) {
+        count ++;
+    }
+
+}
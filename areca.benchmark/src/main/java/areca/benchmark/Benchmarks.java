@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks of this module and writes the results as JSON, so that
+ * results of different releases can be compared.
+ * <pre>
+ * mvn package
+ * java -jar target/benchmarks.jar [JMH options] [benchmark regexp]
+ * </pre>
+ * Default result file is {@link #RESULT_FILE}; <code>-rf</code> and
+ * <code>-rff</code> override.
+ *
+ * @author Falko Bräutigam
+ */
+public class Benchmarks {
+
+    public static final String RESULT_FILE = "benchmark-result.json";
+
+
+    public static void main( String[] args ) throws Exception {
+        var cmd = new CommandLineOptions( args );
+        if (cmd.shouldHelp()) {
+            cmd.showHelp();
+            return;
+        }
+        var options = new OptionsBuilder().parent( cmd );
+        if (!cmd.getResultFormat().hasValue()) {
+            options.resultFormat( ResultFormatType.JSON );
+        }
+        if (!cmd.getResult().hasValue()) {
+            options.result( RESULT_FILE );
+        }
+        var runner = new Runner( options.build() );
+        if (cmd.shouldList()) {
+            runner.list();
+        }
+        else {
+            runner.run();
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.benchmark;
+
+import java.util.EventObject;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import java.lang.reflect.InvocationTargetException;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import areca.benchmark.AnnotatedHandler.Event1;
+import areca.benchmark.AnnotatedHandler.Event2;
+import areca.benchmark.AnnotatedHandler.Event3;
+import areca.common.base.Opt;
+import areca.common.event.EventHandler;
+import areca.common.event.EventManager;
+import areca.common.event.SameStackEventManager;
+import areca.common.reflect.ClassInfo;
+import areca.common.reflect.MethodInfo;
+
+/**
+ * Dispatch of an event to an {@link EventHandler} annotated method: the former
+ * reflective path of {@link EventManager} (method cache lookup by
+ * handler/event class + {@link MethodInfo#invoke(Object, Object...)}) vs. the
+ * generated {@link ClassInfo#invokeEventHandler(Object, EventObject)}.
+ *
+ * @author Falko Bräutigam
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class EventHandlerDispatchBenchmark {
+
+    private AnnotatedHandler            handler = new AnnotatedHandler();
+
+    private ClassInfo<AnnotatedHandler> classInfo = AnnotatedHandler.TYPE;
+
+    private EventObject[]               events;
+
+    private int                         next;
+
+    /** The method cache of the former {@link EventManager} implementation. */
+    @SuppressWarnings("rawtypes")
+    private Map<Pair,MethodInfo>        methodCache = new HashMap<>( 128 );
+
+    private EventManager                em = new SameStackEventManager();
+
+
+    @Setup
+    public void setup() {
+        events = new EventObject[] {new Event1( this ), new Event2( this ), new Event3( this )};
+        em.subscribe( handler );
+    }
+
+
+    protected EventObject nextEvent() {
+        next = next < events.length-1 ? next+1 : 0;
+        return events[next];
+    }
+
+
+    @Benchmark
+    public int reflective() throws InvocationTargetException {
+        var ev = nextEvent();
+        var cacheKey = ImmutablePair.of( handler.getClass(), ev.getClass() );
+        var method = methodCache.computeIfAbsent( cacheKey, __ -> {
+            for (MethodInfo m : classInfo.methods()) {
+                Opt<EventHandler> a = m.annotation( EventHandler.class );
+                if (a.isPresent() && a.get().value().isInstance( ev )) {
+                    return m;
+                }
+            }
+            throw new IllegalStateException();
+        });
+        method.invoke( handler, ev );
+        return handler.count;
+    }
+
+
+    @Benchmark
+    public int generated() throws Exception {
+        classInfo.invokeEventHandler( handler, nextEvent() );
+        return handler.count;
+    }
+
+
+    /** The entire {@link EventManager#publish(EventObject)} path. */
+    @Benchmark
+    public int publish() {
+        em.publish( nextEvent() );
+        return handler.count;
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.benchmark;
+
+import java.util.EventObject;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import areca.benchmark.AnnotatedHandler.Event1;
+import areca.benchmark.AnnotatedHandler.Event2;
+import areca.common.event.EventManager;
+import areca.common.event.SameStackEventManager;
+
+/**
+ * {@link EventManager#publish(EventObject)} with several numbers of handlers.
+ * Half of the handlers are listeners filtered by type, half are annotated
+ * handlers; just the annotated handlers accept {@link Event1} and {@link Event2}.
+ *
+ * @author Falko Bräutigam
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class EventManagerBenchmark {
+
+    public static class OtherEvent extends EventObject {
+        public OtherEvent( Object source ) { super( source ); }
+    }
+
+    @Param( {"1", "10", "100", "1000"} )
+    public int                  handlers;
+
+    private EventManager        em;
+
+    private AnnotatedHandler[]  annotated;
+
+    private int                 count;
+
+    private EventObject         ev1, ev2, other;
+
+
+    @Setup
+    public void setup() {
+        em = new SameStackEventManager();
+        annotated = new AnnotatedHandler[Math.max( 1, handlers / 2 )];
+        for (int i = 0; i < annotated.length; i++) {
+            annotated[i] = new AnnotatedHandler();
+            em.subscribe( annotated[i] );
+        }
+        for (int i = annotated.length; i < handlers; i++) {
+            em.subscribe( ev -> count ++ ).performIf( OtherEvent.class, ev -> true );
+        }
+        ev1 = new Event1( this );
+        ev2 = new Event2( this );
+        other = new OtherEvent( this );
+    }
+
+
+    @Benchmark
+    public int publishAnnotated() {
+        em.publish( ev1 );
+        return annotated[0].count;
+    }
+
+
+    @Benchmark
+    public int publishMixed() {
+        em.publish( ev2 );
+        em.publish( other );
+        return annotated[0].count + count;
+    }
+
+}
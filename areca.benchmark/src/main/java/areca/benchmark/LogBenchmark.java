@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import areca.common.Session;
+import areca.common.event.EventManager;
+import areca.common.log.LogFactory;
+import areca.common.log.LogFactory.Level;
+import areca.common.log.LogFactory.Log;
+
+/**
+ * {@link Log#isLevelEnabled(Level)}: the usual (cached) check, and the resolution
+ * of the level from the configured levels ({@link LogFactory#effectiveLevel(String)})
+ * done by the first check of a logger and after a level change.
+ *
+ * @author Falko Bräutigam
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class LogBenchmark {
+
+    private static final Log LOG = LogFactory.getLog( LogBenchmark.class );
+
+
+    @Setup
+    public void setup() {
+        LogFactory.setPackageLevel( EventManager.class, Level.INFO );
+        LogFactory.setClassLevel( Session.class, Level.DEBUG );
+        LogFactory.setClassLevel( LogBenchmark.class, Level.INFO );
+    }
+
+
+    @Benchmark
+    public boolean cached() {
+        return LOG.isLevelEnabled( Level.DEBUG );
+    }
+
+
+    @Benchmark
+    public Level resolve() {
+        return LogFactory.effectiveLevel( LogBenchmark.class.getName() );
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import areca.common.Promise;
+import areca.common.Promise.Completable;
+
+/**
+ * {@link Promise} chains. The promises are completed synchronously, so this
+ * measures the overhead of the chain itself, without any {@link areca.common.Platform}
+ * or scheduler involved.
+ *
+ * @author Falko Bräutigam
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class PromiseBenchmark {
+
+    @Param( {"10"} )
+    public int      size;
+
+
+    /** A {@link Promise} that is already completed with the given value. */
+    protected static <R> Promise<R> done( R value ) {
+        var result = new Completable<R>();
+        result.complete( value );
+        return result;
+    }
+
+
+    @Benchmark
+    public void map( Blackhole bh ) {
+        var start = new Completable<Integer>();
+        start.map( v -> v + 1 ).map( v -> v * 2 ).onSuccess( v -> bh.consume( v ) );
+        start.complete( 1 );
+    }
+
+
+    @Benchmark
+    public void then( Blackhole bh ) {
+        var start = new Completable<Integer>();
+        start.then( v -> done( v + 1 ) ).then( v -> done( v * 2 ) ).onSuccess( v -> bh.consume( v ) );
+        start.complete( 1 );
+    }
+
+
+    @Benchmark
+    public void join( Blackhole bh ) {
+        var p1 = new Completable<Integer>();
+        var p2 = new Completable<Integer>();
+        p1.join( p2 ).onSuccess( v -> bh.consume( v ) );
+        p1.complete( 1 );
+        p2.complete( 2 );
+    }
+
+
+    @Benchmark
+    public void joined( Blackhole bh ) {
+        Promise.joined( size, i -> done( i ) ).onSuccess( v -> bh.consume( v ) );
+    }
+
+
+    @Benchmark
+    public void serial( Blackhole bh ) {
+        Promise.serial( size, i -> done( i ) ).onSuccess( v -> bh.consume( v ) );
+    }
+
+}
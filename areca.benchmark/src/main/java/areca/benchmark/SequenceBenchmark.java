@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import areca.common.base.IntSequence;
+import areca.common.base.Sequence;
+
+/**
+ * {@link Sequence} pipelines over a {@link List} of boxed ints, and the
+ * {@link IntSequence} counterparts.
+ *
+ * @author Falko Bräutigam
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class SequenceBenchmark {
+
+    @Param( {"10", "1000"} )
+    public int              size;
+
+    private List<Integer>   list;
+
+
+    @Setup
+    public void setup() {
+        list = new ArrayList<>( size );
+        for (int i = 0; i < size; i++) {
+            list.add( i );
+        }
+    }
+
+
+    @Benchmark
+    public List<Integer> mapToList() {
+        return Sequence.of( list ).map( i -> i + 1 ).toList();
+    }
+
+
+    @Benchmark
+    public List<Integer> filterToList() {
+        return Sequence.of( list ).filter( i -> i % 2 == 0 ).toList();
+    }
+
+
+    @Benchmark
+    public int mapFilterReduce() {
+        return Sequence.of( list )
+                .map( i -> i * 3 )
+                .filter( i -> i % 2 == 0 )
+                .reduce( 0, (result, i) -> result + i );
+    }
+
+
+    @Benchmark
+    public int mapReduceMax() {
+        return Sequence.of( list ).map( i -> i * 3 ).reduce( Math::max ).orElse( 0 );
+    }
+
+
+    @Benchmark
+    public int mapToIntMax() {
+        return Sequence.of( list ).mapToInt( i -> i * 3 ).max().orElse( 0 );
+    }
+
+
+    @Benchmark
+    public int intSequenceFilterSum() {
+        return IntSequence.ofInts( 0, size-1 ).map( i -> i * 3 ).filter( i -> i % 2 == 0 ).sum();
+    }
+
+
+    @Benchmark
+    public int ofIntsReduce() {
+        return Sequence.ofInts( 0, size-1 ).reduce( 0, (result, i) -> result + i );
+    }
+
+
+    @Benchmark
+    public int count() {
+        return Sequence.of( list ).filter( i -> i % 2 == 0 ).count();
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import areca.common.Session;
+
+/**
+ * {@link Session#_instanceOf(Class)}: the same type again (last result cache)
+ * and alternating types.
+ *
+ * @author Falko Bräutigam
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class SessionBenchmark {
+
+    public static class Instance1 {}
+
+    public static class Instance2 {}
+
+    static {
+        Session.registerFactory( Instance1.class, () -> new Instance1() );
+        Session.registerFactory( Instance2.class, () -> new Instance2() );
+    }
+
+    private Session     session;
+
+
+    @Setup
+    public void setup() {
+        session = new Session();
+    }
+
+
+    @Benchmark
+    public Object sameType() {
+        return session._instanceOf( Instance1.class );
+    }
+
+
+    @Benchmark
+    public Object alternatingTypes() {
+        session._instanceOf( Instance1.class );
+        return session._instanceOf( Instance2.class );
+    }
+
+}
@@ -33,6 +33,9 @@ import areca.common.base.Sequence;
 import areca.common.log.LogFactory;
 import areca.common.log.LogFactory.Level;
 import areca.common.log.LogFactory.Log;
+import areca.common.metrics.Counter;
+import areca.common.metrics.Histogram;
+import areca.common.metrics.Metrics;
 
 /**
  * A {@link Promise} represents the result(s) of an asynchronous computation.
@@ -43,6 +46,10 @@ public abstract class Promise<T> {
 
     private static final Log LOG = LogFactory.getLog( Promise.class );
 
+    private static final Histogram COMPLETED = Metrics.timer( "areca_promise_seconds", "Time from creation to completion of a Promise" );
+
+    private static final Counter FAILED = Metrics.counter( "areca_promises_failed_total", "Promises completed with error" );
+
     public static RConsumer<Throwable> defaultErrorHandler = e -> {
         LOG.warn( "No onError handler for: " + e, e );
         // XXX on teavm this helps to see a proper stacktrace
@@ -594,6 +601,8 @@ public abstract class Promise<T> {
 
         private List<Promise<?>> upstreams = new ArrayList<>();
 
+        private long            created = System.nanoTime();
+
 
         @Override
         public <E extends Exception> Promise<T> onSuccess( BiConsumer<HandlerSite,T,E> consumer ) {
@@ -693,6 +702,7 @@ public abstract class Promise<T> {
 
         public void complete( T value ) {
             raiseState( State.COMPLETED, () -> {
+                COMPLETED.recordSince( created );
                 waitForResult = value;
                 doConsume( value );
                 notifyComplete();
@@ -739,6 +749,8 @@ public abstract class Promise<T> {
 
         public void completeWithError( Throwable e ) {
             raiseState( State.COMPLETED, () -> {
+                COMPLETED.recordSince( created );
+                FAILED.inc();
                 try {
                     error = e;
                     if (onError.isEmpty()) {
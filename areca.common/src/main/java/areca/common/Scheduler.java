@@ -17,6 +17,7 @@ import static areca.common.log.LogFactory.Level.DEBUG;
 import java.util.ArrayDeque;
 import java.util.Comparator;
 import java.util.Deque;
+import java.util.PriorityQueue;
 import java.util.concurrent.Callable;
 
 import areca.common.Platform.IdleDeadline;
@@ -32,7 +33,12 @@ import areca.common.log.LogFactory.Log;
  * only if, and only as long as, the runtime decides that there is idle time. So we
  * don't break browser rendering and animations.
  * <p>
- * Also we (plan to) do some priority handling to add even finer grained control.
+ * Every {@link Priority} has its own queue. {@link Priority#INTERACTIVE} tasks
+ * always run first, before every next task. {@link Priority#BACKGROUND} and
+ * {@link Priority#DECORATION} tasks get a {@link Priority#budget share} of the
+ * idle time of a frame; if there is time left, they may use it. A priority that
+ * did not get any time for {@link #MAX_STARVED_FRAMES} frames runs one task first
+ * in the next frame. Delayed tasks wait in a heap ordered by target time.
  *
  * @author Falko Bräutigam
  */
@@ -41,18 +47,48 @@ public class Scheduler {
     private static final Log LOG = LogFactory.getLog( Scheduler.class );
 
     public enum Priority {
-        MAIN_EVENT_LOOP,
-        INTERACTIVE, BACKGROUND, DECORATION
+        MAIN_EVENT_LOOP( 0 ),
+        INTERACTIVE( 1 ),
+        BACKGROUND( 0.7 ),
+        DECORATION( 0.3 );
+
+        /** The max share of the idle time of a frame, if others are waiting. */
+        public final double budget;
+
+        private Priority( double budget ) {
+            this.budget = budget;
+        }
     }
 
+    /** A priority that did not run for this number of frames runs first. */
+    public static final int MAX_STARVED_FRAMES = 8;
+
+    private static final Priority[] PRIORITIES = {Priority.INTERACTIVE, Priority.BACKGROUND, Priority.DECORATION};
+
 
     // instance *******************************************
 
-    // XXX protected PriorityQueue<Task<?>>    queue = new PriorityQueue<>( 256, new TaskPriority() );
-    protected Deque<Task<?>>            queue = new ArrayDeque<>( 256 );
+    /** Ready tasks per {@link Priority#ordinal()} */
+    @SuppressWarnings("unchecked")
+    protected Deque<Task<?>>[]          queues = new Deque[Priority.values().length];
+    {
+        for (var prio : PRIORITIES) {
+            queues[prio.ordinal()] = new ArrayDeque<>( 256 );
+        }
+    }
+
+    /** Delayed tasks, ordered by {@link Task#targetTime} */
+    protected PriorityQueue<Task<?>>    delayed = new PriorityQueue<>( 64, new TaskTargetTime() );
+
+    /** The target time of the pending wakeup of the {@link #delayed} tasks. */
+    protected long                      wakeup = Long.MAX_VALUE;
+
+    protected int[]                     starved = new int[Priority.values().length];
 
     protected Promise<Void>             async;
 
+    private long                        seq;
+
 
     public <R> Promise<R> schedule( Callable<R> task ) {
         return schedule( Priority.BACKGROUND, 0, task );
@@ -74,50 +110,153 @@ public class Scheduler {
     public <R> Promise<R> schedule( Priority prio, int delayMillis, Callable<R> work ) {
         Assert.notNull( prio, "Priority must not be null" );
         Assert.that( prio != Priority.MAIN_EVENT_LOOP, "MAIN_EVENT_LOOP is special priority for Promise" );
-        Assert.isEqual( 0, delayMillis, "Delayed schedule is not yet supported." );
+        Assert.that( delayMillis >= 0, "delayMillis must not be negative" );
+
+        var task = new Task<>( prio, now() + delayMillis, work );
+        if (delayMillis > 0) {
+            delayed.add( task );
+            requestWakeup( task.targetTime );
+        }
+        else {
+            queues[prio.ordinal()].addLast( task );
+            requestProcess();
+        }
+        return task.promise;
+    }
+
+
+    protected void requestProcess() {
         if (async == null) {
-            //Assert.isNull( async );
             async = Platform.requestIdleCallback( deadline -> process( deadline ) );
         }
+    }
 
-        var task = new Task<>( prio, now() + delayMillis, work );
-        queue.addLast( task );
-        return task.promise;
+
+    protected void requestWakeup( long targetTime ) {
+        if (targetTime < wakeup) {
+            wakeup = targetTime;
+            Platform.schedule( (int)Math.max( 0, targetTime - now() ), () -> {
+                if (wakeup == targetTime) {
+                    wakeup = Long.MAX_VALUE;
+                }
+                if (promoteDelayed() > 0) {
+                    requestProcess();
+                }
+                if (!delayed.isEmpty()) {
+                    requestWakeup( delayed.peek().targetTime );
+                }
+            });
+        }
+    }
+
+
+    /**
+     * Moves the due {@link #delayed} tasks to their queues.
+     *
+     * @return The number of promoted tasks.
+     */
+    protected int promoteDelayed() {
+        var now = now();
+        var count = 0;
+        while (!delayed.isEmpty() && delayed.peek().targetTime <= now) {
+            var task = delayed.poll();
+            queues[task.priority.ordinal()].addLast( task );
+            count ++;
+        }
+        return count;
     }
 
 
     @SuppressWarnings({"rawtypes", "unchecked"})
     protected void process( IdleDeadline deadline ) {
         if (LOG.isLevelEnabled( DEBUG )) { // LOG potentially uses Scheduler
-            System.out.println( LOG.format( DEBUG, "Queue: %d, remaining: %s", queue.size(), deadline.timeRemaining() ) );
+            System.out.println( LOG.format( DEBUG, "Queue: %d, remaining: %s", size(), deadline.timeRemaining() ) );
         }
-        //var now = now();
-
         async = null;
+        promoteDelayed();
+
+        var available = deadline.timeRemaining();
+        var used = new double[queues.length];
+        var counts = new int[queues.length];
+        var waiting = new boolean[queues.length];
+        for (var prio : PRIORITIES) {
+            waiting[prio.ordinal()] = !queues[prio.ordinal()].isEmpty();
+        }
 
-        // handle tasks
+        // handle tasks; at least one per frame
         int count = 0;
-        Task peek = queue.peek();
-        while (peek != null /*&& peek.targetTime <= now*/ && deadline.timeRemaining() > 0) {
-            queue.poll();
+        for (Priority prio = next( available, used, counts ); prio != null; prio = next( available, used, counts )) {
+            if (count > 0 && deadline.timeRemaining() <= 0) {
+                break;
+            }
+            var task = (Task)queues[prio.ordinal()].poll();
+            var start = deadline.timeRemaining();
             try {
-                var result = peek.work.call();
-                peek.promise.complete( result );
+                var result = task.work.call();
+                task.promise.complete( result );
             }
             catch (Throwable e) {
-                peek.promise.completeWithError( e );
+                task.promise.completeWithError( e );
             }
-            peek = queue.peek();
+            used[prio.ordinal()] += start - deadline.timeRemaining();
+            counts[prio.ordinal()] ++;
             count ++;
         }
+
+        for (var prio : PRIORITIES) {
+            var i = prio.ordinal();
+            starved[i] = waiting[i] && counts[i] == 0 ? starved[i] + 1 : 0;
+        }
         if (LOG.isLevelEnabled( DEBUG )) {
-            System.out.println( LOG.format( DEBUG, "  processed: %d, queue: %d, remaining: %s, async: %s", count, queue.size(), deadline.timeRemaining(), async ) );
+            System.out.println( LOG.format( DEBUG, "  processed: %d, queue: %d, remaining: %s, async: %s", count, size(), deadline.timeRemaining(), async ) );
         }
 
         // schedule next loop
-        if (!queue.isEmpty() && async == null) {
-            async = Platform.requestIdleCallback( dl -> process( dl ) );
+        if (size() > 0) {
+            requestProcess();
+        }
+    }
+
+
+    /**
+     * The {@link Priority} of the next task to run in the current frame.
+     *
+     * @return The {@link Priority}, or null if there are no tasks.
+     */
+    protected Priority next( double available, double[] used, int[] counts ) {
+        // starved
+        for (var prio : PRIORITIES) {
+            var i = prio.ordinal();
+            if (starved[i] >= MAX_STARVED_FRAMES && counts[i] == 0 && !queues[i].isEmpty()) {
+                return prio;
+            }
+        }
+        // within budget (INTERACTIVE: always)
+        for (var prio : PRIORITIES) {
+            var i = prio.ordinal();
+            if (!queues[i].isEmpty() && used[i] < prio.budget * available) {
+                return prio;
+            }
+        }
+        // time left
+        for (var prio : PRIORITIES) {
+            if (!queues[prio.ordinal()].isEmpty()) {
+                return prio;
+            }
         }
+        return null;
+    }
+
+
+    /**
+     * The number of tasks that are ready to run.
+     */
+    public int size() {
+        var result = 0;
+        for (var prio : PRIORITIES) {
+            result += queues[prio.ordinal()].size();
+        }
+        return result;
     }
 
 
@@ -129,14 +268,14 @@ public class Scheduler {
     /**
      *
      */
-    protected class TaskPriority
+    protected class TaskTargetTime
             implements Comparator<Task<?>> {
 
         @Override
         public int compare( Task<?> t1, Task<?> t2 ) {
-            return t1.priority != t2.priority
-                    ? t1.priority.ordinal() > t2.priority.ordinal() ? 1 : -1
-                    : t1.targetTime > t2.targetTime ? 1 : -1;
+            return t1.targetTime != t2.targetTime
+                    ? t1.targetTime > t2.targetTime ? 1 : -1
+                    : t1.seq > t2.seq ? 1 : -1;
         }
     }
 
@@ -152,6 +291,8 @@ public class Scheduler {
 
         public long                     targetTime;
 
+        public long                     seq = Scheduler.this.seq ++;
+
         public Promise.Completable<T>   promise = new Completable<T>();
 
         public Task( Priority priority, long targetTime, Callable<T> work ) {
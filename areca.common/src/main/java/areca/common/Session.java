@@ -19,6 +19,7 @@ import java.util.Map;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 
+import areca.common.base.Function.RFunction;
 import areca.common.base.Supplier;
 import areca.common.base.Supplier.RSupplier;
 import areca.common.log.LogFactory;
@@ -34,6 +35,32 @@ public class Session {
 
     private static final Map<Class<?>,Supplier<?,Exception>> factories = new HashMap<>();
 
+    /**
+     * The instances of one {@link Session}.
+     */
+    public interface Storage {
+
+        /**
+         * The instance of the given type, created by the given function
+         * if not yet present.
+         */
+        public <R> R computeIfAbsent( Class<R> type, RFunction<Class<R>,R> factory );
+
+        /**
+         * @return The previous instance of the given type, or null.
+         */
+        public Object put( Class<?> type, Object instance );
+
+        public void clear();
+    }
+
+    /**
+     * Creates the {@link Storage} of new {@link Session}s. Default is a
+     * {@link MapStorage}, the JVM runtime installs a storage that allows
+     * concurrent access.
+     */
+    public static RSupplier<Storage> storageFactory = () -> new MapStorage();
+
 
     /**
      * Registers a factory of session scoped variable of the given type.
@@ -82,47 +109,69 @@ public class Session {
 
     // instance *******************************************
 
-    // TeaVM does not have Concurrent; should be ok because new instances
-    // should happen during init in one thread
-    private Map<Class<?>,Object>    instances = new /*Concurrent*/HashMap<>();
-
-    /**
-     * Cache of last result.
-     * <p>
-     * Not volatile, not synchronized: we read/use/modify our CPU's cache version.
-     */
-    private Pair<Class<?>,Object>   last;
+    private Storage     storage = storageFactory.get();
 
 
     public void dispose() {
-        instances.clear();
-        last = null;
+        storage.clear();
     }
 
 
     private <R> R _setInstance( R instance ) {
         // XXX hack to support EventLoop(1,2)
         for (var cl = instance.getClass(); cl != Object.class; cl = cl.getSuperclass()) {
-            Assert.isNull( instances.put( cl, instance ) );
+            Assert.isNull( storage.put( cl, instance ) );
         }
         return instance;
     }
 
 
-    @SuppressWarnings("unchecked")
     public <R> R _instanceOf( Class<R> type ) {
-        var stable = last;
-        if (stable != null && stable.getKey() == type) {
-            //LOG.warn( "instanceOf(): shortcut %s", type.getSimpleName() );
-            return (R)stable.getValue();
+        return storage.computeIfAbsent( type, Session::createInstance );
+    }
+
+
+    /**
+     * {@link Storage} backed by a {@link HashMap}. Not thread-safe: the TeaVM
+     * runtime has just one thread.
+     */
+    public static class MapStorage
+            implements Storage {
+
+        // TeaVM does not have Concurrent; should be ok because new instances
+        // should happen during init in one thread
+        private Map<Class<?>,Object>    instances = new HashMap<>();
+
+        /**
+         * Cache of last result.
+         * <p>
+         * Not volatile, not synchronized: we read/use/modify our CPU's cache version.
+         */
+        private Pair<Class<?>,Object>   last;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <R> R computeIfAbsent( Class<R> type, RFunction<Class<R>,R> factory ) {
+            var stable = last;
+            if (stable != null && stable.getKey() == type) {
+                return (R)stable.getValue();
+            }
+            else {
+                var result = (R)instances.computeIfAbsent( type, __ -> factory.apply( type ) );
+                last = ImmutablePair.of( type, result );
+                return result;
+            }
         }
-        else {
-            //LOG.warn( "instanceOf(): map %s", type.getSimpleName() );
-            var result = (R)instances.computeIfAbsent( type, __ -> {
-                return createInstance( type );
-            });
-            last = ImmutablePair.of( type, result );
-            return result;
+
+        @Override
+        public Object put( Class<?> type, Object instance ) {
+            return instances.put( type, instance );
+        }
+
+        @Override
+        public void clear() {
+            instances.clear();
+            last = null;
         }
     }
 }
@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.common.base;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.DoublePredicate;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongPredicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * A {@link Sequence} of primitive <code>int</code> values.
+ * <p>
+ * The elements are pushed through the operations: {@link #map(IntUnaryOperator)}
+ * and {@link #filter(IntPredicate)} just compose the operations, the terminal
+ * operation runs them in one loop over the source. No boxing, no iterator per
+ * operation. Array and {@link RandomAccess} list sources are iterated by index;
+ * {@link #count()} and {@link #toArray()} of a source do not iterate at all.
+ * <p>
+ * Operations do not throw checked exceptions.
+ *
+ * @see LongSequence
+ * @see DoubleSequence
+ * @author Falko Bräutigam
+ */
+public abstract class IntSequence {
+
+    public static IntSequence of( int... elements ) {
+        return new IntSequence() {
+            @Override
+            protected boolean forEachWhile( IntPredicate sink ) {
+                for (int i = 0; i < elements.length; i++) {
+                    if (!sink.test( elements[i] )) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            @Override
+            public int count() {
+                return elements.length;
+            }
+            @Override
+            public int[] toArray() {
+                return Arrays.copyOf( elements, elements.length );
+            }
+        };
+    }
+
+
+    /**
+     * Creates a series of values.
+     *
+     * @param start The first value.
+     * @param end The last value (inclusive, like {@link Sequence#ofInts(int, int)}).
+     * @return Newly created {@link IntSequence}.
+     */
+    public static IntSequence ofInts( int start, int end ) {
+        return new IntSequence() {
+            @Override
+            protected boolean forEachWhile( IntPredicate sink ) {
+                for (int i = start; i <= end; i++) {
+                    if (!sink.test( i )) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            @Override
+            public int count() {
+                return Math.max( 0, end - start + 1 );
+            }
+        };
+    }
+
+
+    /**
+     * The values of the given elements, computed by the given function.
+     */
+    public static <T> IntSequence of( Iterable<T> elements, ToIntFunction<? super T> f ) {
+        if (elements instanceof List && elements instanceof RandomAccess) {
+            var list = (List<T>)elements;
+            return new IntSequence() {
+                @Override
+                protected boolean forEachWhile( IntPredicate sink ) {
+                    for (int i = 0, c = list.size(); i < c; i++) {
+                        if (!sink.test( f.applyAsInt( list.get( i ) ) )) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+                @Override
+                public int count() {
+                    return list.size();
+                }
+            };
+        }
+        return new IntSequence() {
+            @Override
+            protected boolean forEachWhile( IntPredicate sink ) {
+                for (T elm : elements) {
+                    if (!sink.test( f.applyAsInt( elm ) )) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        };
+    }
+
+
+    // instance *******************************************
+
+    /**
+     * Pushes the elements to the given sink as long as it returns true.
+     *
+     * @return False if the sink has stopped the iteration.
+     */
+    protected abstract boolean forEachWhile( IntPredicate sink );
+
+
+    public IntSequence map( IntUnaryOperator f ) {
+        var parent = this;
+        return new IntSequence() {
+            @Override
+            protected boolean forEachWhile( IntPredicate sink ) {
+                return parent.forEachWhile( v -> sink.test( f.applyAsInt( v ) ) );
+            }
+            @Override
+            public int count() {
+                return parent.count();
+            }
+        };
+    }
+
+
+    public LongSequence mapToLong( IntToLongFunction f ) {
+        var parent = this;
+        return new LongSequence() {
+            @Override
+            protected boolean forEachWhile( LongPredicate sink ) {
+                return parent.forEachWhile( v -> sink.test( f.applyAsLong( v ) ) );
+            }
+        };
+    }
+
+
+    public DoubleSequence mapToDouble( IntToDoubleFunction f ) {
+        var parent = this;
+        return new DoubleSequence() {
+            @Override
+            protected boolean forEachWhile( DoublePredicate sink ) {
+                return parent.forEachWhile( v -> sink.test( f.applyAsDouble( v ) ) );
+            }
+        };
+    }
+
+
+    public IntSequence filter( IntPredicate condition ) {
+        var parent = this;
+        return new IntSequence() {
+            @Override
+            protected boolean forEachWhile( IntPredicate sink ) {
+                return parent.forEachWhile( v -> !condition.test( v ) || sink.test( v ) );
+            }
+        };
+    }
+
+
+    public void forEach( IntConsumer consumer ) {
+        forEachWhile( v -> { consumer.accept( v ); return true; } );
+    }
+
+
+    public int reduce( int identity, IntBinaryOperator accumulator ) {
+        var result = new int[] {identity};
+        forEachWhile( v -> { result[0] = accumulator.applyAsInt( result[0], v ); return true; } );
+        return result[0];
+    }
+
+
+    /**
+     * Reduces the elements without identity.
+     *
+     * @return The result, or {@link Opt#absent()} if this sequence is empty.
+     */
+    public Opt<Integer> reduce( IntBinaryOperator accumulator ) {
+        var result = new int[1];
+        var present = new boolean[] {false};
+        forEachWhile( v -> {
+            result[0] = present[0] ? accumulator.applyAsInt( result[0], v ) : v;
+            present[0] = true;
+            return true;
+        });
+        return present[0] ? Opt.of( result[0] ) : Opt.absent();
+    }
+
+
+    public int sum() {
+        return reduce( 0, (r,v) -> r + v );
+    }
+
+
+    public Opt<Integer> max() {
+        return reduce( Math::max );
+    }
+
+
+    public Opt<Integer> min() {
+        return reduce( Math::min );
+    }
+
+
+    public int count() {
+        var result = new int[1];
+        forEachWhile( v -> { result[0] ++; return true; } );
+        return result[0];
+    }
+
+
+    public Opt<Integer> first() {
+        var result = new int[1];
+        return forEachWhile( v -> { result[0] = v; return false; } ) ? Opt.absent() : Opt.of( result[0] );
+    }
+
+
+    public boolean anyMatches( IntPredicate condition ) {
+        return !forEachWhile( v -> !condition.test( v ) );
+    }
+
+
+    public boolean allMatch( IntPredicate condition ) {
+        return forEachWhile( condition );
+    }
+
+
+    public int[] toArray() {
+        var result = new int[][] {new int[16]};
+        var size = new int[1];
+        forEachWhile( v -> {
+            if (size[0] == result[0].length) {
+                result[0] = Arrays.copyOf( result[0], size[0] * 2 );
+            }
+            result[0][size[0]++] = v;
+            return true;
+        });
+        return Arrays.copyOf( result[0], size[0] );
+    }
+
+
+    @Override
+    public String toString() {
+        return Arrays.toString( toArray() );
+    }
+
+}
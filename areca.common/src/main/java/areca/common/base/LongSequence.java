@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.common.base;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.DoublePredicate;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.function.LongToDoubleFunction;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ToLongFunction;
+
+/**
+ * A {@link Sequence} of primitive <code>long</code> values.
+ * <p>
+ * The elements are pushed through the operations: {@link #map(LongUnaryOperator)}
+ * and {@link #filter(LongPredicate)} just compose the operations, the terminal
+ * operation runs them in one loop over the source. No boxing, no iterator per
+ * operation. Array and {@link RandomAccess} list sources are iterated by index;
+ * {@link #count()} and {@link #toArray()} of a source do not iterate at all.
+ * <p>
+ * Operations do not throw checked exceptions.
+ *
+ * @see IntSequence
+ * @see DoubleSequence
+ * @author Falko Bräutigam
+ */
+public abstract class LongSequence {
+
+    public static LongSequence of( long... elements ) {
+        return new LongSequence() {
+            @Override
+            protected boolean forEachWhile( LongPredicate sink ) {
+                for (int i = 0; i < elements.length; i++) {
+                    if (!sink.test( elements[i] )) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            @Override
+            public int count() {
+                return elements.length;
+            }
+            @Override
+            public long[] toArray() {
+                return Arrays.copyOf( elements, elements.length );
+            }
+        };
+    }
+
+
+    /**
+     * The values of the given elements, computed by the given function.
+     */
+    public static <T> LongSequence of( Iterable<T> elements, ToLongFunction<? super T> f ) {
+        if (elements instanceof List && elements instanceof RandomAccess) {
+            var list = (List<T>)elements;
+            return new LongSequence() {
+                @Override
+                protected boolean forEachWhile( LongPredicate sink ) {
+                    for (int i = 0, c = list.size(); i < c; i++) {
+                        if (!sink.test( f.applyAsLong( list.get( i ) ) )) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+                @Override
+                public int count() {
+                    return list.size();
+                }
+            };
+        }
+        return new LongSequence() {
+            @Override
+            protected boolean forEachWhile( LongPredicate sink ) {
+                for (T elm : elements) {
+                    if (!sink.test( f.applyAsLong( elm ) )) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        };
+    }
+
+
+    // instance *******************************************
+
+    /**
+     * Pushes the elements to the given sink as long as it returns true.
+     *
+     * @return False if the sink has stopped the iteration.
+     */
+    protected abstract boolean forEachWhile( LongPredicate sink );
+
+
+    public LongSequence map( LongUnaryOperator f ) {
+        var parent = this;
+        return new LongSequence() {
+            @Override
+            protected boolean forEachWhile( LongPredicate sink ) {
+                return parent.forEachWhile( v -> sink.test( f.applyAsLong( v ) ) );
+            }
+            @Override
+            public int count() {
+                return parent.count();
+            }
+        };
+    }
+
+
+    public DoubleSequence mapToDouble( LongToDoubleFunction f ) {
+        var parent = this;
+        return new DoubleSequence() {
+            @Override
+            protected boolean forEachWhile( DoublePredicate sink ) {
+                return parent.forEachWhile( v -> sink.test( f.applyAsDouble( v ) ) );
+            }
+        };
+    }
+
+
+    public LongSequence filter( LongPredicate condition ) {
+        var parent = this;
+        return new LongSequence() {
+            @Override
+            protected boolean forEachWhile( LongPredicate sink ) {
+                return parent.forEachWhile( v -> !condition.test( v ) || sink.test( v ) );
+            }
+        };
+    }
+
+
+    public void forEach( LongConsumer consumer ) {
+        forEachWhile( v -> { consumer.accept( v ); return true; } );
+    }
+
+
+    public long reduce( long identity, LongBinaryOperator accumulator ) {
+        var result = new long[] {identity};
+        forEachWhile( v -> { result[0] = accumulator.applyAsLong( result[0], v ); return true; } );
+        return result[0];
+    }
+
+
+    /**
+     * Reduces the elements without identity.
+     *
+     * @return The result, or {@link Opt#absent()} if this sequence is empty.
+     */
+    public Opt<Long> reduce( LongBinaryOperator accumulator ) {
+        var result = new long[1];
+        var present = new boolean[] {false};
+        forEachWhile( v -> {
+            result[0] = present[0] ? accumulator.applyAsLong( result[0], v ) : v;
+            present[0] = true;
+            return true;
+        });
+        return present[0] ? Opt.of( result[0] ) : Opt.absent();
+    }
+
+
+    public long sum() {
+        return reduce( 0, (r,v) -> r + v );
+    }
+
+
+    public Opt<Long> max() {
+        return reduce( Math::max );
+    }
+
+
+    public Opt<Long> min() {
+        return reduce( Math::min );
+    }
+
+
+    public int count() {
+        var result = new int[1];
+        forEachWhile( v -> { result[0] ++; return true; } );
+        return result[0];
+    }
+
+
+    public Opt<Long> first() {
+        var result = new long[1];
+        return forEachWhile( v -> { result[0] = v; return false; } ) ? Opt.absent() : Opt.of( result[0] );
+    }
+
+
+    public boolean anyMatches( LongPredicate condition ) {
+        return !forEachWhile( v -> !condition.test( v ) );
+    }
+
+
+    public boolean allMatch( LongPredicate condition ) {
+        return forEachWhile( condition );
+    }
+
+
+    public long[] toArray() {
+        var result = new long[][] {new long[16]};
+        var size = new int[1];
+        forEachWhile( v -> {
+            if (size[0] == result[0].length) {
+                result[0] = Arrays.copyOf( result[0], size[0] * 2 );
+            }
+            result[0][size[0]++] = v;
+            return true;
+        });
+        return Arrays.copyOf( result[0], size[0] );
+    }
+
+
+    @Override
+    public String toString() {
+        return Arrays.toString( toArray() );
+    }
+
+}
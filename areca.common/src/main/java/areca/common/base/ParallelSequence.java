@@ -0,0 +1,327 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.common.base;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collector;
+
+/**
+ * A {@link Sequence} whose terminal operations {@link #reduce(Object, BiFunction, BinaryOperator)},
+ * {@link #reduce(BinaryOperator)}, {@link #count()}, {@link #toList()},
+ * {@link #toSet()} and {@link #toMap(Function)} process the elements in parallel,
+ * if a {@link #parallelizer} is installed (JVM). Otherwise (TeaVM) everything
+ * is done sequentially, so shared code works with both runtimes.
+ * <p>
+ * {@link #map(Function)} and {@link #filter(Predicate)} are fused into one
+ * operation per element. All other operations are sequential.
+ * <p>
+ * The operations are executed by arbitrary threads; they must not depend on the
+ * {@link areca.common.Session} or on the order of execution.
+ *
+ * @see Sequence#parallel()
+ * @author Falko Bräutigam
+ */
+public class ParallelSequence<T,E extends Exception>
+        extends Sequence<T,E> {
+
+    /** Returned by the fused operations for elements that are filtered out. */
+    public static final Object FILTERED = new Object();
+
+    /**
+     * Processes the elements of a {@link ParallelSequence} in parallel. Installed
+     * by the JVM runtime.
+     */
+    public interface Parallelizer {
+        /**
+         * Applies the given operations to the elements of the source and collects
+         * all results that are not {@link ParallelSequence#FILTERED}.
+         */
+        public <S,A,R> R collect( Iterable<S> source, java.util.function.Function<S,Object> ops, Collector<Object,A,R> collector );
+    }
+
+    /** The parallel processing, or null if not supported by the runtime. */
+    public static Parallelizer  parallelizer;
+
+    /**
+     * Carries a checked exception of an operation through the parallel processing.
+     */
+    protected static class OperationException
+            extends RuntimeException {
+        public OperationException( Exception cause ) {
+            super( cause );
+        }
+    }
+
+    // instance *******************************************
+
+    protected Iterable<Object>  source;
+
+    /** The fused map/filter operations; elements of the source -&gt; T or {@link #FILTERED} */
+    protected java.util.function.Function<Object,Object> ops;
+
+
+    @SuppressWarnings("unchecked")
+    protected ParallelSequence( Iterable<?> source, java.util.function.Function<Object,Object> ops ) {
+        super( null );
+        this.source = (Iterable<Object>)source;
+        this.ops = ops;
+    }
+
+
+    @Override
+    protected SequenceIterator<T,E> iterator() {
+        return new DelegatingIterator<T,T,E>( null ) {
+            protected Iterator<Object> it = source.iterator();
+            protected Object nextElm = FILTERED;
+
+            @Override
+            public boolean hasNext() throws E {
+                while (nextElm == FILTERED && it.hasNext()) {
+                    nextElm = apply( it.next() );
+                }
+                return nextElm != FILTERED;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() throws E {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                var result = (T)nextElm;
+                nextElm = FILTERED;
+                return result;
+            }
+        };
+    }
+
+
+    @SuppressWarnings("unchecked")
+    protected Object apply( Object elm ) throws E {
+        try {
+            return ops.apply( elm );
+        }
+        catch (OperationException e) {
+            throw (E)e.getCause();
+        }
+    }
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <R,RE extends E> ParallelSequence<R,E> transform( Function<T,R,RE> function ) throws RE {
+        var prev = ops;
+        return new ParallelSequence<>( source, elm -> {
+            var v = prev.apply( elm );
+            try {
+                return v != FILTERED ? function.apply( (T)v ) : v;
+            }
+            catch (RuntimeException e) {
+                throw e;
+            }
+            catch (Exception e) {
+                throw new OperationException( e );
+            }
+        });
+    }
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <R extends T, RE extends E> ParallelSequence<R,E> filter( Predicate<T,RE> condition ) throws RE {
+        var prev = ops;
+        return new ParallelSequence<>( source, elm -> {
+            var v = prev.apply( elm );
+            try {
+                return v != FILTERED && condition.test( (T)v ) ? v : FILTERED;
+            }
+            catch (RuntimeException e) {
+                throw e;
+            }
+            catch (Exception e) {
+                throw new OperationException( e );
+            }
+        });
+    }
+
+
+    /**
+     * Collects the elements, in parallel if possible.
+     */
+    @SuppressWarnings("unchecked")
+    protected <A,R> R collectParallel( Collector<T,A,R> collector ) throws E {
+        try {
+            var c = (Collector<Object,A,R>)(Collector<?,A,R>)collector;
+            if (parallelizer != null) {
+                return parallelizer.collect( source, ops, c );
+            }
+            // sequential
+            A result = c.supplier().get();
+            var accumulator = c.accumulator();
+            for (var elm : source) {
+                var v = ops.apply( elm );
+                if (v != FILTERED) {
+                    accumulator.accept( result, v );
+                }
+            }
+            return c.finisher().apply( result );
+        }
+        catch (OperationException e) {
+            throw (E)e.getCause();
+        }
+    }
+
+
+    /**
+     * Creates a {@link Collector}.
+     */
+    protected static <T,A,R> Collector<T,A,R> collector(
+            java.util.function.Supplier<A> supplier,
+            java.util.function.BiConsumer<A,T> accumulator,
+            BinaryOperator<A> combiner,
+            java.util.function.Function<A,R> finisher ) {
+        return new Collector<T,A,R>() {
+            @Override public java.util.function.Supplier<A> supplier() { return supplier; }
+            @Override public java.util.function.BiConsumer<A,T> accumulator() { return accumulator; }
+            @Override public BinaryOperator<A> combiner() { return combiner; }
+            @Override public java.util.function.Function<A,R> finisher() { return finisher; }
+            @Override public Set<Characteristics> characteristics() { return Collections.emptySet(); }
+        };
+    }
+
+
+    /**
+     * Holds the partial result of a reduction.
+     */
+    protected static class Partial<R> {
+        R       value;
+        boolean present;
+
+        Partial( R value, boolean present ) {
+            this.value = value;
+            this.present = present;
+        }
+    }
+
+
+    /**
+     * In contrast to the sequential {@link Sequence#reduce(Object, BiFunction, BinaryOperator)}
+     * this has the semantics of {@link java.util.stream.Stream#reduce(Object, BiFunction, BinaryOperator)}:
+     * the identity is used for every partition, the combiner combines the
+     * results of the partitions.
+     */
+    @Override
+    public <R> R reduce( R identity, BiFunction<R,? super T,R> accumulator, BinaryOperator<R> combiner ) throws E {
+        return collectParallel( ParallelSequence.<T,Partial<R>,R>collector(
+                () -> new Partial<>( identity, true ),
+                (p, elm) -> p.value = accumulator.apply( p.value, elm ),
+                (p1, p2) -> new Partial<>( combiner.apply( p1.value, p2.value ), true ),
+                p -> p.value ) );
+    }
+
+
+    @Override
+    public Opt<T> reduce( BinaryOperator<T> accumulator ) throws E {
+        BinaryOperator<Partial<T>> combiner = (p1, p2) -> !p1.present ? p2 : !p2.present ? p1
+                : new Partial<>( accumulator.apply( p1.value, p2.value ), true );
+        return collectParallel( ParallelSequence.<T,Partial<T>,Opt<T>>collector(
+                () -> new Partial<>( null, false ),
+                (p, elm) -> {
+                    p.value = p.present ? accumulator.apply( p.value, elm ) : elm;
+                    p.present = true;
+                },
+                combiner,
+                p -> p.present ? Opt.of( p.value ) : Opt.absent() ) );
+    }
+
+
+    /**
+     * Not parallel: there is no combiner.
+     */
+    @Override
+    public <R> R reduce( R identity, BiFunction<R,? super T,R> accumulator ) throws E {
+        return super.reduce( identity, accumulator );
+    }
+
+
+    @Override
+    public int count() throws E {
+        return reduce( 0, (r, elm) -> r + 1, Integer::sum );
+    }
+
+
+    @Override
+    public ArrayList<T> toList() throws E {
+        return collectParallel( ParallelSequence.<T,ArrayList<T>,ArrayList<T>>collector(
+                () -> new ArrayList<>(),
+                (l, elm) -> l.add( elm ),
+                (l1, l2) -> { l1.addAll( l2 ); return l1; },
+                l -> l ) );
+    }
+
+
+    @Override
+    public HashSet<T> toSet() throws E {
+        return collectParallel( ParallelSequence.<T,HashSet<T>,HashSet<T>>collector(
+                () -> new HashSet<>(),
+                (s, elm) -> s.add( elm ),
+                (s1, s2) -> { s1.addAll( s2 ); return s1; },
+                s -> s ) );
+    }
+
+
+    @Override
+    public <K,RE extends E> HashMap<K,T> toMap( Function<T,K,RE> keyMapper ) throws E {
+        return toMap( keyMapper, elm -> elm );
+    }
+
+
+    @Override
+    public <K,V,RE extends E> HashMap<K,V> toMap( Function<T,K,RE> keyMapper, Function<T,V,RE> valueMapper ) throws E {
+        return collectParallel( ParallelSequence.<T,HashMap<K,V>,HashMap<K,V>>collector(
+                () -> new HashMap<>(),
+                (m, elm) -> {
+                    try {
+                        var key = keyMapper.apply( elm );
+                        if (m.put( key, valueMapper.apply( elm ) ) != null) {
+                            throw new IllegalStateException( "Key already exists: " + key );
+                        }
+                    }
+                    catch (RuntimeException e) {
+                        throw e;
+                    }
+                    catch (Exception e) {
+                        throw new OperationException( e );
+                    }
+                },
+                (m1, m2) -> {
+                    for (var entry : m2.entrySet()) {
+                        if (m1.put( entry.getKey(), entry.getValue() ) != null) {
+                            throw new IllegalStateException( "Key already exists: " + entry.getKey() );
+                        }
+                    }
+                    return m1;
+                },
+                m -> m ) );
+    }
+
+}
@@ -26,9 +26,13 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.function.BinaryOperator;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -73,21 +77,41 @@ public abstract class Sequence<T, E extends Exception> {
 
 
     public static <R,E extends Exception> Sequence<R,E> of( Class<E> type, Iterable<R> elements ) {
-        Assert.notNull( elements );
-        return new Sequence<R,E>( null ) {
-            @Override
-            protected SequenceIterator<R,E> iterator() {
-                return new DelegatingIterator<R,R,E>( null ) {
-                    protected Iterator<R> it = elements.iterator();
-                    @Override public R next() throws E {
-                        return it.next();
-                    }
-                    @Override public boolean hasNext() throws E {
-                        return it.hasNext();
-                    }
-                };
-            }
-        };
+        return new IterableSequence<>( Assert.notNull( elements ) );
+    }
+
+
+    /**
+     * A {@link Sequence} backed by an {@link Iterable}. Allows fast paths for
+     * {@link Collection} and {@link RandomAccess} sources.
+     */
+    protected static class IterableSequence<R,E extends Exception>
+            extends Sequence<R,E> {
+
+        protected Iterable<R>   elements;
+
+        protected IterableSequence( Iterable<R> elements ) {
+            super( null );
+            this.elements = elements;
+        }
+
+        @Override
+        protected SequenceIterator<R,E> iterator() {
+            return new DelegatingIterator<R,R,E>( null ) {
+                protected Iterator<R> it = elements.iterator();
+                @Override public R next() throws E {
+                    return it.next();
+                }
+                @Override public boolean hasNext() throws E {
+                    return it.hasNext();
+                }
+            };
+        }
+
+        @Override
+        public int count() throws E {
+            return elements instanceof Collection ? ((Collection<R>)elements).size() : super.count();
+        }
     }
 
 
@@ -210,6 +234,73 @@ public abstract class Sequence<T, E extends Exception> {
     }
 
 
+    /**
+     * Maps the elements to primitive <code>int</code> values. A {@link Sequence}
+     * {@link #of(Iterable) of} a {@link RandomAccess} list is iterated by index.
+     *
+     * @return Newly created {@link IntSequence}.
+     */
+    public IntSequence mapToInt( ToIntFunction<? super T> f ) {
+        return IntSequence.of( sourceOrIterable(), f );
+    }
+
+
+    /**
+     * Maps the elements to primitive <code>long</code> values.
+     *
+     * @see #mapToInt(ToIntFunction)
+     * @return Newly created {@link LongSequence}.
+     */
+    public LongSequence mapToLong( ToLongFunction<? super T> f ) {
+        return LongSequence.of( sourceOrIterable(), f );
+    }
+
+
+    /**
+     * Maps the elements to primitive <code>double</code> values.
+     *
+     * @see #mapToInt(ToIntFunction)
+     * @return Newly created {@link DoubleSequence}.
+     */
+    public DoubleSequence mapToDouble( ToDoubleFunction<? super T> f ) {
+        return DoubleSequence.of( sourceOrIterable(), f );
+    }
+
+
+    /**
+     * Returns a {@link ParallelSequence} of the elements of this sequence: terminal
+     * operations like {@link #reduce(Object, BiFunction, BinaryOperator)},
+     * {@link #toList()} and {@link #toMap(Function)} process the elements in
+     * parallel on the JVM; sequentially on TeaVM.
+     * <p>
+     * A {@link Collection} source is split directly, otherwise the elements are
+     * split in batches while iterating.
+     *
+     * @return Newly created {@link ParallelSequence}.
+     */
+    public ParallelSequence<T,E> parallel() {
+        return new ParallelSequence<>( sourceOrIterable(), elm -> elm );
+    }
+
+
+    /**
+     * The source {@link Iterable} if this is an {@link IterableSequence}, or a
+     * (lazy) {@link Iterable} view.
+     */
+    @SuppressWarnings("unchecked")
+    private Iterable<T> sourceOrIterable() {
+        if (this instanceof IterableSequence) {
+            return ((IterableSequence<T,E>)this).elements;
+        }
+        try {
+            return asIterable();
+        }
+        catch (Exception e) {
+            throw new RuntimeException( e ); // not thrown, asIterable() is lazy
+        }
+    }
+
+
     public <R extends T, RE extends E> Sequence<R,E> filter( Predicate<T,RE> condition ) throws RE {
         return new Sequence<R,E>( this ) {
             @Override
@@ -441,12 +532,12 @@ public abstract class Sequence<T, E extends Exception> {
     /**
      * See {@link Stream#reduce(BinaryOperator)}
      */
-    public final Opt<T> reduce( BinaryOperator<T> accumulator ) throws E {
+    public Opt<T> reduce( BinaryOperator<T> accumulator ) throws E {
         return Opt.of( reduce( null, accumulator, (result,r) -> r ) );
     }
 
 
-    public final <R> R reduce( R identity, BiFunction<R, ? super T, R> accumulator ) throws E {
+    public <R> R reduce( R identity, BiFunction<R, ? super T, R> accumulator ) throws E {
         return reduce( identity, accumulator, (result,r) -> r );
     }
 
@@ -458,7 +549,7 @@ public abstract class Sequence<T, E extends Exception> {
     /**
      * See {@link Stream#reduce(Object, BiFunction, BinaryOperator)}
      */
-    public final <R> R reduce( R identity, BiFunction<R, ? super T, R> accumulator, BinaryOperator<R> combiner ) throws E {
+    public <R> R reduce( R identity, BiFunction<R, ? super T, R> accumulator, BinaryOperator<R> combiner ) throws E {
         R result = identity;
         for (SequenceIterator<T,E> it=iterator(); it.hasNext();) {
             T elm = it.next();
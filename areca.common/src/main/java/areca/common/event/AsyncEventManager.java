@@ -69,7 +69,7 @@ public class AsyncEventManager
                 return null;
             });
         }
-        eventQueue.add( new Event( ev, handlers ) );
+        eventQueue.add( new Event( ev, handlersFor( ev ) ) );
         return async;
     }
 
@@ -24,17 +24,11 @@ import java.util.Map;
 import java.util.Set;
 import java.util.function.BiConsumer;
 
-import java.lang.reflect.InvocationTargetException;
-
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
-
 import areca.common.Assert;
 import areca.common.Platform;
 import areca.common.Promise;
 import areca.common.Session;
 import areca.common.Timer;
-import areca.common.base.Opt;
 import areca.common.base.Predicate;
 import areca.common.base.Predicate.RPredicate;
 import areca.common.base.Sequence;
@@ -42,10 +36,20 @@ import areca.common.base.Supplier;
 import areca.common.base.Supplier.RSupplier;
 import areca.common.log.LogFactory;
 import areca.common.log.LogFactory.Log;
+import areca.common.metrics.Counter;
+import areca.common.metrics.Histogram;
+import areca.common.metrics.Metrics;
 import areca.common.reflect.ClassInfo;
-import areca.common.reflect.MethodInfo;
 
 /**
+ * Base of all event managers.
+ * <p>
+ * Handlers are dispatched via an index by event class: {@link #handlersFor(EventObject)}
+ * returns just the handlers whose event types (from {@link EventHandler} annotations
+ * or {@link EventHandlerInfo#performIf(Class, RPredicate)}) match the event. The index
+ * and the {@link #handlers} are immutable snapshots that are replaced on change, so
+ * publishing does not need any lock. {@link #unsubscribe(Set)} just marks the handlers;
+ * they are removed from the snapshots when more than half of them are dead.
  *
  * @author falko
  */
@@ -53,6 +57,10 @@ public abstract class EventManager {
 
     private static final Log LOG = LogFactory.getLog( EventManager.class );
 
+    private static final Counter PUBLISHED = Metrics.counter( "areca_events_published_total", "Events published by all EventManagers" );
+
+    private static final Histogram HANDLER_TIME = Metrics.timer( "areca_event_handler_seconds", "Time of one event handler" );
+
     /**
      * The instance for the current application session.
      */
@@ -64,11 +72,23 @@ public abstract class EventManager {
 
     public BiConsumer<EventObject,Throwable>    defaultOnError;
 
-    /** Copy-on-Write */
-    protected List<EventHandlerInfoImpl>        handlers = Collections.emptyList();
+    /** Copy-on-Write; modified under {@link #writeLock} */
+    protected volatile List<EventHandlerInfoImpl> handlers = Collections.emptyList();
+
+    /**
+     * Copy-on-Write: event class -> handlers; built lazily by {@link #handlersFor(EventObject)}.
+     * Read without lock, modified under {@link #writeLock}.
+     */
+    protected volatile Map<Class<?>,List<EventHandlerInfoImpl>> index = Collections.emptyMap();
+
+    /** Serializes the read-copy-write of {@link #handlers} and {@link #index}. */
+    protected final Object                      writeLock = new Object();
 
-    @SuppressWarnings("rawtypes")
-    protected Map<Pair,MethodInfo>              methodCache = new HashMap<>( 128 );
+    /** The number of unsubscribed handlers still in {@link #handlers}. */
+    protected int                               unsubscribed;
+
+    /** Handler class -> {@link #annotatedTypes(Object)} */
+    protected Map<Class<?>,Class<?>[]>          typesCache = new HashMap<>( 128 );
 
     protected ExpungeThread                     expunge;
 
@@ -115,38 +135,144 @@ public abstract class EventManager {
 
     public EventHandlerInfo subscribe( Object annotatedOrListener ) {
         var newHandler = new EventHandlerInfoImpl( annotatedOrListener );
-
-        var newHandlers = new ArrayList<EventHandlerInfoImpl>( handlers.size() + 1 );
-        // XXX arraycopy?
-        for (var cursor : handlers) {
-            if (cursor.handler == annotatedOrListener
-                    && (cursor.unsubscribeIf == null || !cursor.unsubscribeIf.get())) {
-                throw new IllegalStateException( "Event handler already subscribed!" );
+        synchronized (writeLock) {
+            var newHandlers = new ArrayList<EventHandlerInfoImpl>( handlers.size() + 1 );
+            // XXX arraycopy?
+            for (var cursor : handlers) {
+                if (cursor.handler == annotatedOrListener
+                        && !cursor.unsubscribed
+                        && (cursor.unsubscribeIf == null || !cursor.unsubscribeIf.get())) {
+                    throw new IllegalStateException( "Event handler already subscribed!" );
+                }
+                newHandlers.add( cursor );
             }
-            newHandlers.add( cursor );
+            newHandlers.add( newHandler );
+            Assert.isEqual( handlers.size()+1, newHandlers.size() );
+            handlers = newHandlers;
+
+            reindex( newHandler, true );
         }
-        newHandlers.add( newHandler );
-        Assert.isEqual( handlers.size()+1, newHandlers.size() );
-        handlers = newHandlers;
         return newHandler;
     }
 
 
+    /**
+     * Adds/removes the given handler to/from the existing {@link #index} entries,
+     * depending on whether it {@link EventHandlerInfoImpl#accepts(Class) accepts}
+     * the event type of the entry. Caller must hold the {@link #writeLock}.
+     *
+     * @param isNew The handler is not yet in the index.
+     */
+    protected void reindex( EventHandlerInfoImpl handler, boolean isNew ) {
+        if (index.isEmpty()) {
+            return;
+        }
+        var newIndex = new HashMap<Class<?>,List<EventHandlerInfoImpl>>( index );
+        for (var entry : newIndex.entrySet()) {
+            var contained = !isNew && entry.getValue().contains( handler );
+            var accepted = handler.accepts( entry.getKey() );
+            if (accepted && !contained) {
+                var l = new ArrayList<EventHandlerInfoImpl>( entry.getValue().size() + 1 );
+                l.addAll( entry.getValue() );
+                l.add( handler );
+                entry.setValue( l );
+            }
+            else if (contained && !accepted) {
+                var l = new ArrayList<EventHandlerInfoImpl>( entry.getValue() );
+                l.remove( handler );
+                entry.setValue( l );
+            }
+        }
+        index = newIndex;
+    }
+
+
+    /**
+     * Marks the given handlers as unsubscribed. They are actually removed from
+     * {@link #handlers} and the {@link #index} when more than half of the handlers
+     * are dead.
+     */
     protected void unsubscribe( Set<? extends EventHandlerInfo> remove ) {
+        for (var handler : remove) {
+            var impl = (EventHandlerInfoImpl)handler;
+            if (!impl.unsubscribed) {
+                impl.unsubscribed = true;
+                unsubscribed ++;
+            }
+        }
+        if (unsubscribed > 16 && unsubscribed > handlers.size() / 2) {
+            synchronized (writeLock) {
+                expungeUnsubscribed();
+            }
+        }
+    }
+
+
+    /**
+     * Removes the {@link #unsubscribed} handlers from {@link #handlers} and
+     * resets the {@link #index}. Caller must hold the {@link #writeLock}.
+     */
+    protected void expungeUnsubscribed() {
         var t = Timer.start();
-        var newHandlers = new ArrayList<EventHandlerInfoImpl>( handlers.size() - remove.size() );
+        var newHandlers = new ArrayList<EventHandlerInfoImpl>( handlers.size() - unsubscribed );
         for (var handler : handlers) {
-            if (!remove.contains( handler )) {
+            if (!handler.unsubscribed) {
                 newHandlers.add( handler );
             }
         }
-        //Assert.isEqual( handlers.size()-remove.size(), newHandlers.size() );
-        if (handlers.size()-remove.size() != newHandlers.size()) {
-            LOG.info( "!!!Unsubscribe: expected:%s != newHandlers:%s", handlers.size()-remove.size(), newHandlers.size() );
-        }
-        LOG.warn( "unsubscribed: %s, now: %s (%s) (%s)", remove.size(), newHandlers.size(),
+        LOG.debug( "expunged: %s, now: %s (%s) (%s)", handlers.size() - newHandlers.size(), newHandlers.size(),
                 t.elapsedHumanReadable(), getClass().getSimpleName() );
         handlers = newHandlers;
+        index = Collections.emptyMap();
+        unsubscribed = 0;
+    }
+
+
+    /**
+     * The handlers that are interested in the given event, that is, all handlers
+     * that have no type information or a type that the event is an instance of.
+     * The result is an immutable snapshot.
+     */
+    protected List<EventHandlerInfoImpl> handlersFor( EventObject ev ) {
+        PUBLISHED.inc();
+        var evType = ev.getClass();
+        var result = index.get( evType );
+        if (result == null) {
+            synchronized (writeLock) {
+                // re-read: another thread may have indexed or subscribe() may have extended meanwhile
+                result = index.get( evType );
+                if (result == null) {
+                    result = new ArrayList<>();
+                    for (var handler : handlers) {
+                        if (!handler.unsubscribed && handler.accepts( evType )) {
+                            result.add( handler );
+                        }
+                    }
+                    var newIndex = new HashMap<Class<?>,List<EventHandlerInfoImpl>>( index );
+                    newIndex.put( evType, result );
+                    index = newIndex;
+                }
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * The event types of the {@link EventHandler} annotated methods of the given
+     * handler, or null if there are none (error is signaled on perform).
+     */
+    protected Class<?>[] annotatedTypes( Object annotated ) {
+        try {
+            var result = new ArrayList<Class<?>>();
+            for (var m : ClassInfo.of( annotated ).methods()) {
+                m.annotation( EventHandler.class ).ifPresent( a -> result.add( a.value() ) );
+            }
+            return result.isEmpty() ? null : result.toArray( Class[]::new );
+        }
+        catch (IllegalStateException e) {
+            return null;
+        }
     }
 
 
@@ -210,9 +336,40 @@ public abstract class EventManager {
 
         public Supplier<Boolean,RuntimeException>        unsubscribeIf;
 
+        /**
+         * The event types this handler accepts, or null if it accepts all events.
+         * From the {@link EventHandler} annotations or {@link #performIf(Class, RPredicate)}.
+         */
+        protected Class<?>[]                types;
+
+        protected boolean                   unsubscribed;
+
+        /** The generated {@link ClassInfo#invokeEventHandler(Object, EventObject) dispatcher} of an annotated handler. */
+        protected ClassInfo<?>              classInfo;
+
 
         public EventHandlerInfoImpl( Object handler ) {
             this.handler = notNull( handler );
+            if (!(handler instanceof EventListener)) {
+                this.types = typesCache.computeIfAbsent( handler.getClass(), __ -> annotatedTypes( handler ) );
+                this.classInfo = types != null ? ClassInfo.of( handler ) : null;
+            }
+        }
+
+
+        /**
+         * True if this handler is interested in events of the given type.
+         */
+        protected boolean accepts( Class<?> evType ) {
+            if (types == null) {
+                return true;
+            }
+            for (var type : types) {
+                if (type.isAssignableFrom( evType )) {
+                    return true;
+                }
+            }
+            return false;
         }
 
 
@@ -233,6 +390,10 @@ public abstract class EventManager {
             this.performIf = (EventObject ev) ->
                     type.isAssignableFrom( ev.getClass() ) &&
                     performIf.test( (E)ev );
+            synchronized (writeLock) {
+                this.types = new Class[] {type};
+                reindex( this, false );
+            }
             return this;
         }
 
@@ -250,7 +411,11 @@ public abstract class EventManager {
 
         @SuppressWarnings( {"unchecked", "rawtypes"} )
         public void perform( EventObject ev ) {
+            var start = 0L;
             try {
+                if (unsubscribed) {
+                    return;
+                }
                 // filter
                 if (performIf != null && !performIf.test( ev )) {
                     return;
@@ -261,36 +426,26 @@ public abstract class EventManager {
                     return;
                 }
                 // perform: listener
+                start = System.nanoTime();
                 if (handler instanceof EventListener) {
                     // TODO check param type  -- Optional<ClassInfo<Object>> cli = ClassInfo.of( handler );
                     ((EventListener)handler).handle( ev );
                     return;
                 }
                 // perform: annotated
-                var cacheKey = ImmutablePair.of( handler.getClass(), ev.getClass() );
-                var method = methodCache.computeIfAbsent( cacheKey, __ -> {
-                    var cli = ClassInfo.of( handler );
-                    for (MethodInfo m : cli.methods()) {
-                        Opt<EventHandler> a = m.annotation( EventHandler.class );
-                        if (a.isPresent() && a.get().value().isInstance( ev )) {
-                            LOG.debug( "Method cache: %s + 1", methodCache.size() );
-                            Assert.that( methodCache.size() < 64, "EventManager: methodCache exceeds 64 entries. Ok?" );
-                            return m;
-                        }
-                    }
+                if (classInfo == null || !classInfo.invokeEventHandler( handler, ev )) {
                     throw new IllegalStateException( "Handler is neither an EventListener nor annotated: "
-                            + cli.simpleName() + " (" + ev.getClass().getSimpleName() + ")" );
-                });
-                try {
-                    method.invoke( handler, ev );
-                }
-                catch (InvocationTargetException e) {
-                    throw (RuntimeException)e.getTargetException();
+                            + handler.getClass().getSimpleName() + " (" + ev.getClass().getSimpleName() + ")" );
                 }
             }
             catch (Throwable e) {
                 onError.accept( ev, e );
             }
+            finally {
+                if (start != 0) {
+                    HANDLER_TIME.recordSince( start );
+                }
+            }
         }
     }
 
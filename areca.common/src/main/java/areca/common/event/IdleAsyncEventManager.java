@@ -40,7 +40,7 @@ public class IdleAsyncEventManager
 
     @Override
     public Promise<Void> publish2( EventObject ev ) {
-        var stableHandlers = handlers;
+        var stableHandlers = handlersFor( ev );
         return Platform.scheduler.schedule( BACKGROUND, () -> {
             for (var handler : stableHandlers) {
                 handler.perform( ev );
@@ -38,7 +38,7 @@ public class SameStackEventManager
 
     @Override
     public void publish( EventObject ev ) {
-        for (var handler : handlers) {
+        for (var handler : handlersFor( ev )) {
              handler.perform( ev );
         }
         checkExpunge();
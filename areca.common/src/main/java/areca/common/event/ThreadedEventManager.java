@@ -93,7 +93,7 @@ public class ThreadedEventManager
                         LOG.info( "CHUNK: " + chunk.size() );
                         for (EventObject ev : chunk) {
                             // FIXME copy-on-write!
-                            handlers.forEach( handler -> handler.perform( ev ) );
+                            handlersFor( ev ).forEach( handler -> handler.perform( ev ) );
                             synchronized (ev) {
                                 ev.notifyAll();
                             }
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.common.log;
+
+import areca.common.Platform;
+import areca.common.log.LogFactory.Appender;
+import areca.common.log.LogFactory.Level;
+import areca.common.log.LogFactory.Log;
+
+/**
+ * Synchronously prints messages to {@link System#out}, and {@link Level#ERROR}
+ * to {@link System#err}. The default {@link Appender}.
+ *
+ * @author Falko Bräutigam
+ */
+public class ConsoleAppender
+        implements Appender {
+
+    /** Add ANSI color codes. */
+    public boolean      colors;
+
+
+    public ConsoleAppender( boolean colors ) {
+        this.colors = colors;
+    }
+
+
+    @Override
+    public void append( Log log, Level level, String msg, Object[] args, Throwable e ) {
+        var out = level.ordinal() >= Level.ERROR.ordinal() ? System.err : System.out;
+        out.println( log.format( level, msg, args, colors ) );
+        if (e != null && (Platform.impl == null || Platform.isJVM())) {
+            e.printStackTrace( out );
+        }
+    }
+
+}
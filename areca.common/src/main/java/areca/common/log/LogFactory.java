@@ -20,13 +20,13 @@ import static areca.common.log.ConsoleColors.RESET;
 import static areca.common.log.ConsoleColors.YELLOW;
 import static areca.common.log.ConsoleColors.YELLOW_BOLD;
 import static org.apache.commons.lang3.StringUtils.abbreviate;
+import static org.apache.commons.lang3.StringUtils.rightPad;
 
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 
-import areca.common.Platform;
 import areca.common.base.Supplier.RSupplier;
 
 /**
@@ -41,12 +41,28 @@ public class LogFactory {
         //DEFAULT
     }
 
-    /** The level that is used for loggers with current level {@link Level#DEFAULT}. */
+    /**
+     * The level of loggers without a configured class/package level. Use
+     * {@link #setDefaultLevel(Level)} to change.
+     */
     public static Level DEFAULT_LEVEL = Level.INFO;
 
-    private static Map<String,Level> levels = new HashMap<>();
+    /** Receives all messages of enabled levels. */
+    public static Appender appender = new ConsoleAppender( true );
 
-    private static volatile int levelsVersion = 0;
+    /**
+     * The configured levels by the segments of their package/class names.
+     * Guarded by LogFactory.class.
+     */
+    private static final LevelNode levels = new LevelNode();
+
+    /**
+     * Incremented on every level change. A {@link Log} caches its effective level
+     * together with the generation it was resolved in, and resolves it again if the
+     * generation has changed. So loggers are not referenced by the factory and can
+     * be garbage collected.
+     */
+    private static volatile int generation;
 
     public static Log getLog( Class<?> cl ) {
         return new Log( cl, null );
@@ -56,17 +72,98 @@ public class LogFactory {
         return new Log( cl, prefix );
     }
 
+    public static void setDefaultLevel( Level level ) {
+        synchronized (LogFactory.class) {
+            DEFAULT_LEVEL = level;
+            generation = (generation + 1) & Log.MAX_GENERATION;
+        }
+    }
+
     public static void setClassLevel( Class<?> cl, Level level ) {
         System.out.println( "LOG: " + cl.getName() + " -> " + level );
-        levels.put( cl.getName(), level );
-        levelsVersion ++;
+        setLevel( cl.getName(), level );
     }
 
     public static void setPackageLevel( Class<?> cl, Level level ) {
         String packageName = StringUtils.substringBeforeLast( cl.getName(), "." );
         System.out.println( "LOG: " + packageName + " -> " + level );
-        levels.put( packageName, level );
-        levelsVersion ++;
+        setLevel( packageName, level );
+    }
+
+    /**
+     * Sets the level of the given package or class, including sub-packages and
+     * inner classes. Loggers pick up the new level on their next check.
+     *
+     * @param level The level, or null to remove the level.
+     */
+    public static void setLevel( String name, Level level ) {
+        synchronized (LogFactory.class) {
+            var node = levels;
+            for (var segment : StringUtils.split( name, ".$" )) {
+                node = node.child( segment );
+            }
+            node.level = level;
+            generation = (generation + 1) & Log.MAX_GENERATION;
+        }
+    }
+
+    /**
+     * The effective level of the given class name: the level of the longest
+     * configured package/class prefix, or {@link #DEFAULT_LEVEL}.
+     */
+    public static Level effectiveLevel( String className ) {
+        synchronized (LogFactory.class) {
+            var effective = DEFAULT_LEVEL;
+            var node = levels;
+            for (var segment : StringUtils.split( className, ".$" )) {
+                effective = node.level != null ? node.level : effective;
+                node = node.children.get( segment );
+                if (node == null) {
+                    return effective;
+                }
+            }
+            return node.level != null ? node.level : effective;
+        }
+    }
+
+    /**
+     * Resolves the effective level of the given logger for the current generation.
+     *
+     * @return The new {@link Log#state}.
+     */
+    private static int resolve( Log log ) {
+        synchronized (LogFactory.class) {
+            return log.state = generation << 3 | effectiveLevel( log.cl ).ordinal();
+        }
+    }
+
+    /**
+     * One segment of a package/class name.
+     */
+    private static class LevelNode {
+
+        /** The configured level, or null if inherited. */
+        Level                   level;
+
+        Map<String,LevelNode>   children = new HashMap<>();
+
+        LevelNode child( String segment ) {
+            return children.computeIfAbsent( segment, __ -> new LevelNode() );
+        }
+    }
+
+    /**
+     * Writes the messages of the loggers somewhere. The message is passed
+     * unformatted: an appender formats it ({@link Log#format(Level, String, Object[], boolean)})
+     * when it actually writes it, possibly later and in another thread.
+     */
+    public interface Appender {
+
+        /**
+         * @param args The format arguments, or null if msg is not a format string.
+         * @param e The exception to print, or null.
+         */
+        public void append( Log log, Level level, String msg, Object[] args, Throwable e );
     }
 
     /**
@@ -88,56 +185,70 @@ public class LogFactory {
             put( Level.ERROR, Pair.of( RED_BOLD, RED ) );
         }};
 
+        private static final int UNRESOLVED = -1;
+
+        /** {@link LogFactory#generation} wraps around within the upper bits of {@link #state} */
+        private static final int MAX_GENERATION = 0x0fffffff;
+
+        /** {@link Level} names padded to 5 chars, indexed by ordinal */
+        private static final String[] levelNames = {"DEBUG", "INFO ", "WARN ", "ERROR", "OFF  "};
+
         protected final String  cl;
 
         protected final String  prefix;
 
-        protected Level         level;
+        /** {@link #prefix} abbreviated/padded to 20 chars */
+        protected final String  paddedPrefix;
 
-        protected volatile int  version = -1;
+        /**
+         * The generation the level was resolved in (upper bits) and the ordinal of
+         * the effective level (lower 3 bits); {@link #UNRESOLVED} before the first call.
+         */
+        protected volatile int  state = UNRESOLVED;
 
 
         public Log( Class<?> cl, String prefix ) {
             this.cl = cl.getName();
             this.prefix = prefix != null ? prefix : cl.getSimpleName();
+            this.paddedPrefix = rightPad( abbreviate( this.prefix, 20 ), 20 );
         }
 
         public boolean isLevelEnabled( Level l ) {
-            // find new level if levels map has changed
-            if (version != levelsVersion) {
-                level = DEFAULT_LEVEL;
-                version = levelsVersion;
-
-                var match = "";
-                for (var entry : levels.entrySet()) {
-                    if (cl.startsWith( entry.getKey() )) {
-                        if (entry.getKey().length() > match.length()) {
-                            match = entry.getKey();
-                            level = entry.getValue();
-                        }
-                    }
-                }
+            var s = state;
+            if (s == UNRESOLVED || s >>> 3 != generation) {
+                // lazily, so that DEFAULT_LEVEL set in main() applies to static loggers
+                s = resolve( this );
             }
-            return l.ordinal() >= level.ordinal();
+            return l.ordinal() >= (s & 0x7);
         }
 
         public String format( Level msgLevel, String msg, Object... args ) {
+            return format( msgLevel, msg, args, true );
+        }
+
+        /**
+         * Formats the given message.
+         *
+         * @param colors Add ANSI color codes.
+         */
+        public String format( Level msgLevel, String msg, Object[] args, boolean colors ) {
             var formatted = args != null ? String.format( msg, args ) : msg;
-            var c1 = COLORS.get( msgLevel ).getLeft();
-            var c2 = COLORS.get( msgLevel ).getRight();
-            return String.format( "[%s%-5s%s] %s%-20s%s:%s %s%s%s",
-                    c1, msgLevel, RESET,
-                    BLACK_BRIGHT, abbreviate( prefix, 20 ), BLACK_BRIGHT, RESET,
-                    c2, formatted, RESET );
+            var result = new StringBuilder( formatted.length() + 64 ).append( '[' );
+            if (colors) {
+                var c = COLORS.get( msgLevel );
+                result.append( c.getLeft() ).append( levelNames[msgLevel.ordinal()] ).append( RESET ).append( "] " )
+                        .append( BLACK_BRIGHT ).append( paddedPrefix ).append( BLACK_BRIGHT ).append( ':' ).append( RESET ).append( ' ' )
+                        .append( c.getRight() ).append( formatted ).append( RESET );
+            }
+            else {
+                result.append( levelNames[msgLevel.ordinal()] ).append( "] " )
+                        .append( paddedPrefix ).append( ": " ).append( formatted );
+            }
+            return result.toString();
         }
 
         private void doLog( Level msgLevel, String msg, Object[] args, Throwable e ) {
-            var out = msgLevel.ordinal() >= Level.ERROR.ordinal() ? System.err : System.out;
-            // XXX async
-            out.println( format( msgLevel, msg, args ) );
-            if (e != null && (Platform.impl == null || Platform.isJVM())) {
-                e.printStackTrace( out );
-            }
+            appender.append( this, msgLevel, msg, args, e );
         }
 
         protected void log( Level msgLevel, String msg, Object[] args, Throwable e ) {
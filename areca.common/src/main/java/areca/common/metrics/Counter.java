@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.common.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A monotonically increasing count.
+ *
+ * @author Falko Bräutigam
+ */
+public class Counter
+        extends Metric {
+
+    private AtomicLong      value = new AtomicLong();
+
+
+    protected Counter( String name, String help ) {
+        super( name, help );
+    }
+
+
+    @Override
+    public Type type() {
+        return Type.COUNTER;
+    }
+
+
+    public void inc() {
+        value.incrementAndGet();
+    }
+
+
+    public void add( long delta ) {
+        value.addAndGet( delta );
+    }
+
+
+    public long get() {
+        return value.get();
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.common.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import areca.common.base.Supplier.RSupplier;
+
+/**
+ * A value that goes up and down. Either {@link #set(long) set}/{@link #add(long)
+ * changed} directly, or computed by a supplier when the metrics are exported.
+ *
+ * @author Falko Bräutigam
+ */
+public class Gauge
+        extends Metric {
+
+    private AtomicLong              value = new AtomicLong();
+
+    private RSupplier<Number>       supplier;
+
+
+    protected Gauge( String name, String help, RSupplier<Number> supplier ) {
+        super( name, help );
+        this.supplier = supplier;
+    }
+
+
+    @Override
+    public Type type() {
+        return Type.GAUGE;
+    }
+
+
+    public void set( long newValue ) {
+        value.set( newValue );
+    }
+
+
+    public void add( long delta ) {
+        value.addAndGet( delta );
+    }
+
+
+    public double get() {
+        return supplier != null ? supplier.get().doubleValue() : value.get();
+    }
+
+}
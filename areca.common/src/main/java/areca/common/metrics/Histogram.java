@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.common.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Distribution of (positive) values in log-linear buckets, like HdrHistogram:
+ * every power of 2 is divided into {@link #SUB_BUCKETS} buckets, so the relative
+ * error of a value is at most 1/{@link #SUB_BUCKETS}. {@link #record(long)} does
+ * not allocate and does not lock.
+ * <p>
+ * A {@link Metrics#timer(String, String) timer} records nanoseconds and exports
+ * seconds.
+ *
+ * @author Falko Bräutigam
+ */
+public class Histogram
+        extends Metric {
+
+    public static final int     SUB_BUCKET_BITS = 3;
+
+    public static final int     SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    public static final int     BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /**
+     * The bucket of the given value.
+     */
+    public static int bucketIndex( long value ) {
+        if (value < SUB_BUCKETS) {
+            return (int)Math.max( 0, value );
+        }
+        var exp = 63 - Long.numberOfLeadingZeros( value );
+        var sub = (int)(value >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exp - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * The smallest value of the given bucket.
+     */
+    public static long bucketLowerBound( int index ) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        var shift = index / SUB_BUCKETS - 1;
+        return (long)(SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    }
+
+    /**
+     * The biggest value of the given bucket.
+     */
+    public static long bucketUpperBound( int index ) {
+        return index < SUB_BUCKETS ? index : bucketLowerBound( index ) + (1L << (index / SUB_BUCKETS - 1)) - 1;
+    }
+
+    // instance *******************************************
+
+    /** Factor to convert the recorded values into the exported unit. */
+    public final double         scale;
+
+    private AtomicLong[]        buckets = new AtomicLong[BUCKETS];
+
+    private AtomicLong          count = new AtomicLong();
+
+    private AtomicLong          sum = new AtomicLong();
+
+    private AtomicLong          max = new AtomicLong();
+
+
+    protected Histogram( String name, String help, double scale ) {
+        super( name, help );
+        this.scale = scale;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new AtomicLong();
+        }
+    }
+
+
+    @Override
+    public Type type() {
+        return Type.HISTOGRAM;
+    }
+
+
+    public void record( long value ) {
+        buckets[bucketIndex( value )].incrementAndGet();
+        count.incrementAndGet();
+        sum.addAndGet( value );
+        for (var current = max.get(); value > current && !max.compareAndSet( current, value ); current = max.get()) {
+        }
+    }
+
+
+    /**
+     * Records the time since the given start, for {@link Metrics#timer(String, String) timers}.
+     *
+     * @param startNanos The start as returned by {@link System#nanoTime()}.
+     */
+    public void recordSince( long startNanos ) {
+        record( System.nanoTime() - startNanos );
+    }
+
+
+    public long count() {
+        return count.get();
+    }
+
+
+    /** The sum of all values, in the recorded unit. */
+    public long sum() {
+        return sum.get();
+    }
+
+
+    /** The max value, in the recorded unit. */
+    public long max() {
+        return max.get();
+    }
+
+
+    /** The number of values in the given bucket. */
+    public long bucketCount( int index ) {
+        return buckets[index].get();
+    }
+
+
+    /**
+     * The value at the given quantile, in the recorded unit. This is the upper
+     * bound of the bucket the value falls into, but not more than {@link #max()}.
+     *
+     * @param quantile 0..1
+     */
+    public long valueAt( double quantile ) {
+        var total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        var rank = (long)Math.ceil( quantile * total );
+        var seen = 0L;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i].get();
+            if (seen >= Math.max( 1, rank )) {
+                return Math.min( bucketUpperBound( i ), max.get() );
+            }
+        }
+        return max.get();
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.common.metrics;
+
+/**
+ * Base of all metrics of the {@link Metrics} registry.
+ *
+ * @author Falko Bräutigam
+ */
+public abstract class Metric {
+
+    public enum Type {
+        COUNTER, GAUGE, HISTOGRAM
+    }
+
+    /** The name: [a-z_]+, Prometheus conventions (unit suffix, _total for counters). */
+    public final String     name;
+
+    /** Human readable description. */
+    public final String     help;
+
+
+    protected Metric( String name, String help ) {
+        this.name = name;
+        this.help = help;
+    }
+
+
+    public abstract Type type();
+
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + name + "]";
+    }
+
+}
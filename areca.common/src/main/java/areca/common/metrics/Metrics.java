@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.common.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import areca.common.Assert;
+import areca.common.base.Supplier.RSupplier;
+
+/**
+ * The registry of all {@link Metric}s of the runtime (not per session).
+ * <p>
+ * Metrics are registered once, usually in a static field, and then updated
+ * without allocation and without locking:
+ * <pre>
+ * private static final Counter REQUESTS = Metrics.counter( "areca_requests_total", "..." );
+ * ...
+ * REQUESTS.inc();
+ * </pre>
+ * Registering a name again returns the already registered metric.
+ *
+ * @author Falko Bräutigam
+ */
+public class Metrics {
+
+    private static Map<String,Metric>   metrics = new LinkedHashMap<>();
+
+
+    public static Counter counter( String name, String help ) {
+        return register( name, Counter.class, () -> new Counter( name, help ) );
+    }
+
+
+    /**
+     * A {@link Gauge} that is {@link Gauge#set(long) set} directly.
+     */
+    public static Gauge gauge( String name, String help ) {
+        return register( name, Gauge.class, () -> new Gauge( name, help, null ) );
+    }
+
+
+    /**
+     * A {@link Gauge} whose value is computed by the given supplier on export.
+     */
+    public static Gauge gauge( String name, String help, RSupplier<Number> supplier ) {
+        return register( name, Gauge.class, () -> new Gauge( name, help, supplier ) );
+    }
+
+
+    public static Histogram histogram( String name, String help ) {
+        return register( name, Histogram.class, () -> new Histogram( name, help, 1 ) );
+    }
+
+
+    /**
+     * A {@link Histogram} that records nanoseconds and exports seconds.
+     * The name should end with "_seconds".
+     */
+    public static Histogram timer( String name, String help ) {
+        return register( name, Histogram.class, () -> new Histogram( name, help, 1e-9 ) );
+    }
+
+
+    @SuppressWarnings("unchecked")
+    protected static <M extends Metric> M register( String name, Class<M> type, RSupplier<M> factory ) {
+        synchronized (metrics) {
+            var result = metrics.computeIfAbsent( name, __ -> factory.get() );
+            Assert.that( type.isInstance( result ), "Metric already registered with different type: " + name );
+            return (M)result;
+        }
+    }
+
+
+    /**
+     * A snapshot of all registered metrics, in the order of registration.
+     */
+    public static List<Metric> all() {
+        synchronized (metrics) {
+            return Collections.unmodifiableList( new ArrayList<>( metrics.values() ) );
+        }
+    }
+
+}
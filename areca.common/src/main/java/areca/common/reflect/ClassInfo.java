@@ -14,6 +14,7 @@
 package areca.common.reflect;
 
 import java.util.Collection;
+import java.util.EventObject;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -109,6 +110,20 @@ public abstract class ClassInfo<T>
     public abstract T newInstance() throws InstantiationException, IllegalAccessException;
 
 
+    /**
+     * Invokes the first {@link areca.common.event.EventHandler} annotated method of
+     * this class or its {@link #superclassInfo() annotated super classes} that
+     * accepts the given event. Generated by {@link ReflectAnnotationProcessor} as
+     * plain <code>instanceof</code> checks and direct calls; no reflection, no
+     * allocation.
+     *
+     * @return False if there is no method for the given event.
+     */
+    public boolean invokeEventHandler( Object obj, EventObject ev ) throws Exception {
+        return false;
+    }
+
+
     @Override
     public List<AnnotationInfo> annotations() {
         return annotations.supply();
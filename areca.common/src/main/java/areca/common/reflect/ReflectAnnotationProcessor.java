@@ -16,6 +16,7 @@ package areca.common.reflect;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EventObject;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -36,6 +37,8 @@ import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic.Kind;
 import org.apache.commons.lang3.StringUtils;
 
 import com.squareup.javapoet.AnnotationSpec;
@@ -54,6 +57,7 @@ import com.squareup.javapoet.WildcardTypeName;
 import areca.common.base.Opt;
 
 /**
+ * Generates {@link ClassInfo} and {@link AnnotationInfo} classes.
  *
  * @author Falko Bräutigam
  */
@@ -62,6 +66,9 @@ import areca.common.base.Opt;
 public class ReflectAnnotationProcessor
         extends AbstractProcessor {
 
+    /** Not referenced as class in order to keep reflect independent of event. */
+    private static final String EVENT_HANDLER = "areca.common.event.EventHandler";
+
 
     @Override
     public boolean process( Set<? extends TypeElement> annotations, RoundEnvironment roundEnv ) {
@@ -307,6 +314,15 @@ public class ReflectAnnotationProcessor
             createFields.addStatement( "return result" );
             classBuilder.addMethod( createFields.build() );
 
+            // invokeEventHandler()
+            var invokeEventHandler = MethodSpec.methodBuilder( "invokeEventHandler" )
+                    .addModifiers( Modifier.PUBLIC )
+                    .returns( boolean.class )
+                    .addParameter( Object.class, "obj" )
+                    .addParameter( EventObject.class, "ev" )
+                    .addException( Exception.class );
+            var hasEventHandlers = false;
+
             // methods
             MethodSpec.Builder createMethods = MethodSpec.methodBuilder( "createDeclaredMethods" )
                     .addModifiers( Modifier.PROTECTED )
@@ -326,6 +342,20 @@ public class ReflectAnnotationProcessor
                     if (methodElm.getSimpleName().toString().equals( "<init>" )) {
                         continue outer;
                     }
+                    var eventType = eventHandlerType( methodElm );
+                    if (eventType != null && methodElm.getModifiers().contains( Modifier.PRIVATE )) {
+                        // the generated dispatcher cannot call it
+                        processingEnv.getMessager().printMessage( Kind.ERROR,
+                                "@EventHandler method must not be private: " + methodElm.getSimpleName(), methodElm );
+                    }
+                    else if (eventType != null && methodElm.getParameters().size() == 1) {
+                        var paramTypeName = rawTypeName( TypeName.get( methodElm.getParameters().get( 0 ).asType() ) );
+                        invokeEventHandler.beginControlFlow( "if (ev instanceof $T)", rawTypeName( TypeName.get( eventType ) ) )
+                                .addStatement( "(($T)obj).$L( ($T)ev )", rawTypeName, methodElm.getSimpleName(), paramTypeName )
+                                .addStatement( "return true" )
+                                .endControlFlow();
+                        hasEventHandlers = true;
+                    }
                     //                if (methodElm.getAnnotationMirrors().isEmpty()) {
                     //                    log( "        no annotation.");
                     //                    continue;
@@ -393,6 +423,14 @@ public class ReflectAnnotationProcessor
             createMethods.addStatement( "return result" );
             classBuilder.addMethod( createMethods.build() );
 
+            var hasSuperclassInfo = superclassExists || annotatedElements.contains( superType );
+            if (hasEventHandlers || hasSuperclassInfo) {
+                invokeEventHandler.addStatement( hasSuperclassInfo
+                        ? "return $L.instance().invokeEventHandler( obj, ev )"
+                        : "return false", ClassName.get( superPackageName, superInfoTypeName ) );
+                classBuilder.addMethod( invokeEventHandler.build() );
+            }
+
             // file
             log( "    package: " + packageName );
             JavaFile javaFile = JavaFile.builder( packageName, classBuilder.build() ).build();
@@ -401,12 +439,31 @@ public class ReflectAnnotationProcessor
         }
 
 
+        /**
+         * The event type of the {@link #EVENT_HANDLER} annotation of the given method,
+         * or null if not annotated.
+         */
+        private TypeMirror eventHandlerType( ExecutableElement methodElm ) {
+            for (AnnotationMirror am : methodElm.getAnnotationMirrors()) {
+                if (((TypeElement)am.getAnnotationType().asElement()).getQualifiedName().contentEquals( EVENT_HANDLER )) {
+                    for (var entry : am.getElementValues().entrySet()) {
+                        if (entry.getKey().getSimpleName().contentEquals( "value" )) {
+                            return (TypeMirror)entry.getValue().getValue();
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+
+
         private boolean isInteresting( TypeElement annotation ) {
             // XXX
             String qualifiedName = annotation.getQualifiedName().toString();
             return !qualifiedName.startsWith( "java." )
                     && !qualifiedName.startsWith( "javax." )
-                    && !qualifiedName.startsWith( "org.teavm." );
+                    && !qualifiedName.startsWith( "org.teavm." )
+                    && !qualifiedName.startsWith( "org.openjdk.jmh." );
         }
 
 
@@ -141,6 +141,60 @@ public abstract class EventManagerTest {
     }
 
 
+    @Test
+    public Promise<Void> performIfTypeTest() {
+        count = 0;
+        em.subscribe( ev -> count += 1 ).performIf( Event1.class, ev -> true );
+        em.subscribe( ev -> count += 10 ).performIf( Event2.class, ev -> true );
+        em.subscribe( ev -> count += 100 ).performIf( EventObject.class, ev -> true );
+        em.publish( new Event1() );
+        return em.publish2( new Event2() ).onSuccess( __ -> {
+            Assert.isEqual( 211, count, "" );
+        });
+    }
+
+
+    @Test
+    public Promise<Void> performIfTypeIndexedTest() {
+        count = 0;
+        em.subscribe( ev -> count += 1 );
+        // index entries for both types exist before the typed handlers are subscribed
+        em.publish( new Event1() );
+        return em.publish2( new Event2() )
+                .then( __ -> {
+                    em.subscribe( ev -> count += 10 ).performIf( Event1.class, ev -> true );
+                    em.subscribe( ev -> count += 100 ).performIf( Event2.class, ev -> true );
+                    em.publish( new Event1() );
+                    return em.publish2( new Event2() );
+                })
+                .onSuccess( __ -> {
+                    Assert.isEqual( 2 + 2 + 10 + 100, count, "" );
+                });
+    }
+
+
+    @Test
+    public Promise<Void> unsubscribeManyTest() {
+        count = 0;
+        var unsubscribe = new boolean[] {false};
+        for (int i=0; i<100; i++) {
+            em.subscribe( (Event1 ev) -> count++ )
+                    .performIf( Event1.class, ev -> true )
+                    .unsubscribeIf( () -> unsubscribe[0] );
+        }
+        return em.publish2( new Event1() )
+                .then( __ -> {
+                    Assert.isEqual( 100, count, "" );
+                    unsubscribe[0] = true;
+                    return em.publish2( new Event1() );
+                })
+                .then( __ -> em.publish2( new Event1() ) )
+                .onSuccess( __ -> {
+                    Assert.isEqual( 100, count, "" );
+                });
+    }
+
+
     @Test
     public Promise<Void> eventCascadeTest() {
         List<EventObject> caught = new ArrayList<>();
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.common.test;
+
+import org.apache.commons.lang3.StringUtils;
+
+import areca.common.Assert;
+import areca.common.log.LogFactory;
+import areca.common.log.LogFactory.Level;
+import areca.common.log.LogFactory.Log;
+import areca.common.reflect.ClassInfo;
+import areca.common.testrunner.After;
+import areca.common.testrunner.Test;
+
+/**
+ * Level resolution of {@link LogFactory}.
+ *
+ * @author Falko Bräutigam
+ */
+@Test
+public class LogFactoryTest {
+
+    public static final ClassInfo<LogFactoryTest> info = LogFactoryTestClassInfo.instance();
+
+    /** Not configured by any other test */
+    static class Inner {
+    }
+
+    private static final String PACKAGE = StringUtils.substringBeforeLast( LogFactoryTest.class.getName(), "." );
+
+    private static final String CLASS = LogFactoryTest.class.getName();
+
+
+    @After
+    public void tearDown() {
+        LogFactory.setLevel( PACKAGE, null );
+        LogFactory.setLevel( CLASS, null );
+    }
+
+
+    protected Level effective( Log log ) {
+        for (var l : Level.values()) {
+            if (log.isLevelEnabled( l )) {
+                return l;
+            }
+        }
+        return Level.OFF;
+    }
+
+
+    @Test
+    public void defaultLevelTest() {
+        var log = new Log( LogFactoryTest.class, null );
+        Assert.isEqual( LogFactory.DEFAULT_LEVEL, effective( log ) );
+    }
+
+
+    @Test
+    public void changeLevelTest() {
+        var log = new Log( LogFactoryTest.class, null );
+        var inner = new Log( Inner.class, null );
+        var other = new Log( Assert.class, null );
+        effective( log ); // resolved before the change
+
+        LogFactory.setLevel( PACKAGE, Level.ERROR );
+        Assert.isEqual( Level.ERROR, effective( log ) );
+        Assert.isEqual( Level.ERROR, effective( inner ) );
+        Assert.isEqual( LogFactory.DEFAULT_LEVEL, effective( other ) );
+
+        // more specific wins, also for inner classes
+        LogFactory.setLevel( CLASS, Level.DEBUG );
+        Assert.isEqual( Level.DEBUG, effective( log ) );
+        Assert.isEqual( Level.DEBUG, effective( inner ) );
+
+        LogFactory.setLevel( CLASS, null );
+        Assert.isEqual( Level.ERROR, effective( log ) );
+        Assert.isEqual( Level.ERROR, effective( inner ) );
+    }
+
+
+    @Test
+    public void defaultLevelChangeTest() {
+        var log = new Log( LogFactoryTest.class, null );
+        var before = LogFactory.DEFAULT_LEVEL;
+        effective( log );
+        try {
+            LogFactory.setDefaultLevel( Level.WARN );
+            Assert.isEqual( Level.WARN, effective( log ) );
+            Assert.isEqual( Level.WARN, LogFactory.effectiveLevel( CLASS ) );
+        }
+        finally {
+            LogFactory.setDefaultLevel( before );
+        }
+        Assert.isEqual( before, effective( log ) );
+    }
+
+
+    @Test
+    public void segmentsTest() {
+        var log = new Log( LogFactoryTest.class, null );
+        // not a package/class name prefix
+        LogFactory.setLevel( CLASS.substring( 0, CLASS.length() - 4 ), Level.OFF );
+        try {
+            Assert.isEqual( LogFactory.DEFAULT_LEVEL, effective( log ) );
+        }
+        finally {
+            LogFactory.setLevel( CLASS.substring( 0, CLASS.length() - 4 ), null );
+        }
+    }
+
+}
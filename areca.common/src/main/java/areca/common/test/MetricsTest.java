@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.common.test;
+
+import areca.common.Assert;
+import areca.common.AssertionException;
+import areca.common.metrics.Counter;
+import areca.common.metrics.Gauge;
+import areca.common.metrics.Histogram;
+import areca.common.metrics.Metrics;
+import areca.common.reflect.ClassInfo;
+import areca.common.testrunner.Test;
+
+/**
+ * {@link Metrics}, {@link Counter}, {@link Gauge} and {@link Histogram}.
+ *
+ * @author Falko Bräutigam
+ */
+@Test
+public class MetricsTest {
+
+    public static final ClassInfo<MetricsTest> info = MetricsTestClassInfo.instance();
+
+
+    @Test
+    public void counterTest() {
+        var counter = Metrics.counter( "test_counter_total", "Test" );
+        Assert.isSame( counter, Metrics.counter( "test_counter_total", "Test" ) );
+        var before = counter.get();
+        counter.inc();
+        counter.add( 2 );
+        Assert.isEqual( before + 3, counter.get() );
+        Assert.that( Metrics.all().contains( counter ) );
+    }
+
+
+    @Test(expected = AssertionException.class)
+    public void typeMismatchTest() {
+        Metrics.counter( "test_mismatch", "Test" );
+        Metrics.histogram( "test_mismatch", "Test" );
+    }
+
+
+    @Test
+    public void gaugeTest() {
+        var gauge = Metrics.gauge( "test_gauge", "Test" );
+        gauge.set( 10 );
+        gauge.add( -3 );
+        Assert.isEqual( 7d, gauge.get() );
+
+        var computed = Metrics.gauge( "test_gauge_computed", "Test", () -> 42 );
+        Assert.isEqual( 42d, computed.get() );
+    }
+
+
+    @Test
+    public void bucketsTest() {
+        for (long v : new long[] {0, 1, 7, 8, 9, 15, 16, 17, 100, 1000, 123456789, Long.MAX_VALUE}) {
+            var i = Histogram.bucketIndex( v );
+            Assert.that( i >= 0 && i < Histogram.BUCKETS, "index: " + i );
+            Assert.that( Histogram.bucketLowerBound( i ) <= v, "lower: " + v );
+            Assert.that( Histogram.bucketUpperBound( i ) >= v, "upper: " + v );
+        }
+        for (int i = 1; i < Histogram.BUCKETS; i++) {
+            Assert.isEqual( Histogram.bucketUpperBound( i - 1 ) + 1, Histogram.bucketLowerBound( i ) );
+        }
+    }
+
+
+    @Test
+    public void histogramTest() {
+        var h = Metrics.histogram( "test_histogram", "Test" );
+        for (int i = 1; i <= 1000; i++) {
+            h.record( i );
+        }
+        Assert.isEqual( 1000L, h.count() );
+        Assert.isEqual( 500500L, h.sum() );
+        Assert.isEqual( 1000L, h.max() );
+        Assert.isEqual( 1000L, h.valueAt( 1 ) );
+        // max relative error: 1/SUB_BUCKETS
+        var p50 = h.valueAt( 0.5 );
+        Assert.that( p50 >= 500 && p50 <= 500 + 500 / Histogram.SUB_BUCKETS, "p50: " + p50 );
+        var p99 = h.valueAt( 0.99 );
+        Assert.that( p99 >= 990 && p99 <= 1000, "p99: " + p99 );
+    }
+
+
+    @Test
+    public void timerTest() {
+        var timer = Metrics.timer( "test_timer_seconds", "Test" );
+        timer.recordSince( System.nanoTime() - 1000 );
+        Assert.that( timer.max() >= 1000 );
+        Assert.isEqual( 1e-9, timer.scale );
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.common.test;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import areca.common.Assert;
+import areca.common.base.DoubleSequence;
+import areca.common.base.IntSequence;
+import areca.common.base.LongSequence;
+import areca.common.base.Sequence;
+import areca.common.reflect.ClassInfo;
+import areca.common.testrunner.Test;
+
+/**
+ * {@link IntSequence}, {@link LongSequence} and {@link DoubleSequence}.
+ *
+ * @author Falko Bräutigam
+ */
+@Test
+public class PrimitiveSequenceTest {
+
+    public static final ClassInfo<PrimitiveSequenceTest> info = PrimitiveSequenceTestClassInfo.instance();
+
+
+    @Test
+    public void intArrayTest() {
+        Assert.isEqual( 6, IntSequence.of( 1, 2, 3 ).sum() );
+        Assert.isEqual( 3, IntSequence.of( 1, 2, 3 ).count() );
+        Assert.isEqual( 3, IntSequence.of( 1, 3, 2 ).max().get() );
+        Assert.isEqual( 1, IntSequence.of( 3, 1, 2 ).min().get() );
+        Assert.that( IntSequence.of().max().isAbsent() );
+        Assert.isEqual( 0, IntSequence.of().sum() );
+        Assert.that( Arrays.equals( new int[] {1, 2}, IntSequence.of( 1, 2 ).toArray() ) );
+    }
+
+
+    @Test
+    public void intChainTest() {
+        var result = IntSequence.ofInts( 0, 99 )
+                .filter( v -> v < 10 )
+                .map( v -> v * 2 )
+                .toArray();
+        Assert.isEqual( 10, result.length );
+        Assert.isEqual( 18, result[9] );
+        Assert.isEqual( 5, IntSequence.ofInts( 0, 9 ).filter( v -> v % 2 == 0 ).count() );
+        Assert.isEqual( 0, IntSequence.ofInts( 0, -1 ).count() );
+        Assert.isEqual( 10, IntSequence.ofInts( 0, 4 ).reduce( 0, (r,v) -> r + v ) );
+        Assert.isEqual( "[2, 3]", IntSequence.of( 1, 2 ).map( v -> v + 1 ).toString() );
+    }
+
+
+    @Test
+    public void intShortCircuitTest() {
+        var visited = new int[1];
+        var first = IntSequence.ofInts( 0, 1000 )
+                .filter( v -> { visited[0] ++; return v > 5; } )
+                .first();
+        Assert.isEqual( 6, first.get() );
+        Assert.isEqual( 7, visited[0] );
+        Assert.that( IntSequence.ofInts( 0, 10 ).anyMatches( v -> v == 10 ) );
+        Assert.that( !IntSequence.ofInts( 0, 10 ).anyMatches( v -> v == 11 ) );
+        Assert.that( IntSequence.ofInts( 0, 10 ).allMatch( v -> v >= 0 ) );
+        Assert.that( !IntSequence.ofInts( 0, 10 ).allMatch( v -> v < 10 ) );
+        Assert.that( IntSequence.of().first().isAbsent() );
+    }
+
+
+    @Test
+    public void mapToIntTest() {
+        // RandomAccess
+        Assert.isEqual( 6, Sequence.of( "a", "bb", "ccc" ).mapToInt( s -> s.length() ).sum() );
+        // Collection, not RandomAccess
+        var list = new LinkedList<>( Arrays.asList( "a", "bb", "ccc" ) );
+        Assert.isEqual( 3, Sequence.of( list ).mapToInt( s -> s.length() ).max().get() );
+        // no source
+        Assert.isEqual( 5, Sequence.of( list ).filter( s -> s.length() > 1 ).mapToInt( s -> s.length() ).sum() );
+        Assert.isEqual( 3, Sequence.of( list ).count() );
+    }
+
+
+    @Test
+    public void longTest() {
+        Assert.isEqual( 3_000_000_000L, LongSequence.of( 1_000_000_000L, 2_000_000_000L ).sum() );
+        Assert.isEqual( 2_000_000_000L, LongSequence.of( 1_000_000_000L, 2_000_000_000L ).max().get() );
+        Assert.isEqual( 6L, IntSequence.of( 1, 2, 3 ).mapToLong( v -> v ).sum() );
+        Assert.isEqual( 4L, Sequence.of( 1, 2, 3 ).mapToLong( v -> v ).filter( v -> v != 2 ).sum() );
+    }
+
+
+    @Test
+    public void doubleTest() {
+        Assert.isEqual( 1.5, DoubleSequence.of( 0.5, 1.0 ).sum() );
+        Assert.isEqual( 0.5, DoubleSequence.of( 0.5, 1.0 ).min().get() );
+        Assert.isEqual( 3.0, IntSequence.of( 1, 2 ).mapToDouble( v -> v ).sum() );
+        Assert.isEqual( 2, Sequence.of( 1, 2, 3 ).mapToDouble( v -> v / 2d ).filter( v -> v >= 1 ).count() );
+    }
+
+}
@@ -22,7 +22,6 @@ import areca.common.log.LogFactory;
 import areca.common.log.LogFactory.Log;
 import areca.common.reflect.ClassInfo;
 import areca.common.reflect.RuntimeInfo;
-import areca.common.testrunner.Skip;
 import areca.common.testrunner.Test;
 
 /**
@@ -44,7 +43,6 @@ public class SchedulerTest {
     }
 
 
-    @Skip
     @Test
     public Promise<?> priorityTest() {
         var result = scheduler.schedule( Priority.DECORATION, () -> "deco" );
@@ -59,6 +57,20 @@ public class SchedulerTest {
     }
 
 
+    @Test
+    public Promise<?> delayedTest() {
+        var start = System.currentTimeMillis();
+        var result = scheduler.schedule( Priority.BACKGROUND, 100, () -> "delayed" );
+        result = result.join( scheduler.schedule( Priority.BACKGROUND, 50, () -> "delayed2" ) );
+        result = result.join( scheduler.schedule( Priority.BACKGROUND, () -> "now" ) );
+        return result.reduce2( "", (r,next) -> r + " " + next )
+                .onSuccess( r -> {
+                    Assert.isEqual( " now delayed2 delayed", r );
+                    Assert.that( System.currentTimeMillis() - start >= 100, "Delay too short" );
+                });
+    }
+
+
     @Test
     public Promise<?> joinedTest() {
         return Promise.joined( 200, i -> {
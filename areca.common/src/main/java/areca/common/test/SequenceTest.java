@@ -21,6 +21,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
 import java.io.IOException;
@@ -28,6 +29,7 @@ import java.io.IOException;
 import org.apache.commons.lang3.mutable.MutableInt;
 
 import areca.common.Assert;
+import areca.common.base.ParallelSequence;
 import areca.common.base.Sequence;
 import areca.common.log.LogFactory;
 import areca.common.log.LogFactory.Log;
@@ -189,6 +191,69 @@ public class SequenceTest {
     }
 
 
+    @Test
+    public void parallelTest() {
+        var ints = Sequence.ofInts( 1, 1000 ).toList();
+        for (var parallelizer : Arrays.asList( null, new SplittingParallelizer() )) {
+            var current = ParallelSequence.parallelizer;
+            ParallelSequence.parallelizer = parallelizer;
+            try {
+                var l = Sequence.of( ints ).parallel().map( i -> i * 2 ).filter( i -> i % 3 == 0 ).toList();
+                Assert.isEqual( Sequence.of( ints ).map( i -> i * 2 ).filter( i -> i % 3 == 0 ).toList(), l );
+                Assert.isEqual( 500500, Sequence.of( ints ).parallel().reduce( 0, (r,i) -> r + i, Integer::sum ) );
+                Assert.isEqual( 1000, Sequence.of( ints ).parallel().reduce( Math::max ).get() );
+                Assert.that( Sequence.of( ints ).parallel().filter( i -> i < 0 ).reduce( Math::max ).isAbsent() );
+                Assert.isEqual( 333, Sequence.of( ints ).parallel().filter( i -> i % 3 == 0 ).count() );
+                Assert.isEqual( 1000, Sequence.of( ints ).parallel().toSet().size() );
+                var m = Sequence.of( ints ).parallel().toMap( i -> "" + i, i -> i * 2 );
+                Assert.isEqual( 1000, m.size() );
+                Assert.isEqual( 2000, m.get( "1000" ) );
+                // not a Collection source
+                Assert.isEqual( 1000, Sequence.ofInts( 1, 1000 ).parallel().toList().size() );
+            }
+            finally {
+                ParallelSequence.parallelizer = current;
+            }
+        }
+    }
+
+
+    @Test(expected = IllegalStateException.class)
+    public void parallelToMapFailTest() {
+        Sequence.of( 1, 2, 1 ).parallel().toMap( elm -> elm.toString() );
+    }
+
+
+    @Test(expected = IOException.class)
+    public void parallelExceptionTest() throws IOException {
+        Sequence.of( IOException.class, 1, 2, 3 ).parallel()
+                .map( elm -> throwException() )
+                .toList();
+    }
+
+
+    /**
+     * Collects the two halves of the source separately and combines the results.
+     */
+    protected static class SplittingParallelizer
+            implements ParallelSequence.Parallelizer {
+        @Override
+        public <S,A,R> R collect( Iterable<S> source, java.util.function.Function<S,Object> ops, Collector<Object,A,R> collector ) {
+            var elms = Sequence.of( source ).toList();
+            var half = elms.size() / 2;
+            var result1 = collector.supplier().get();
+            var result2 = collector.supplier().get();
+            for (int i = 0; i < elms.size(); i++) {
+                var v = ops.apply( elms.get( i ) );
+                if (v != ParallelSequence.FILTERED) {
+                    collector.accumulator().accept( i < half ? result1 : result2, v );
+                }
+            }
+            return collector.finisher().apply( collector.combiner().apply( result1, result2 ) );
+        }
+    }
+
+
     protected void iterateCollection( Collection<?> coll ) {
         coll.forEach( elm -> LOG.info( "" + elm ) );
     }
@@ -25,6 +25,9 @@ public class Tests {
         return new ClassInfo[] {
                 AnnotationTest.info,
                 SequenceTest.info,
+                PrimitiveSequenceTest.info,
+                MetricsTest.info,
+                LogFactoryTest.info,
                 SameStackEventManagerTest.info,
                 //ThreadedEventManagerTest.info,
                 RuntimeTest.info,
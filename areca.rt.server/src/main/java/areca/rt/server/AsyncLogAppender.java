@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.rt.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import areca.common.log.LogFactory.Appender;
+import areca.common.log.LogFactory.Level;
+import areca.common.log.LogFactory.Log;
+
+/**
+ * {@link Appender} that hands the messages over to a background thread via a
+ * bounded ring buffer. The thread formats and prints them in batches, so logging
+ * does not add formatting and I/O latency to the calling (event loop) thread.
+ * <p>
+ * The format arguments are rendered ({@link Object#toString()}) later, by the
+ * writer thread: arguments that are modified after the log call might be
+ * printed with their new state.
+ * <p>
+ * If the buffer is full, {@link Level#DEBUG} and {@link Level#INFO} messages are
+ * dropped (and counted); {@link Level#WARN} and {@link Level#ERROR} wait for
+ * free space.
+ *
+ * @author Falko Bräutigam
+ */
+public class AsyncLogAppender
+        implements Appender {
+
+    public static final int DEFAULT_CAPACITY = 8 * 1024;
+
+    public static final int MAX_BATCH = 512;
+
+    /** One message. */
+    protected static class Record {
+        Log         log;
+        Level       level;
+        String      msg;
+        Object[]    args;
+        Throwable   e;
+
+        Record( Log log, Level level, String msg, Object[] args, Throwable e ) {
+            this.log = log;
+            this.level = level;
+            this.msg = msg;
+            this.args = args;
+            this.e = e;
+        }
+    }
+
+    // instance *******************************************
+
+    protected BlockingQueue<Record> queue;
+
+    /** Add ANSI color codes. */
+    protected boolean               colors;
+
+    protected AtomicLong            dropped = new AtomicLong();
+
+    protected volatile boolean      closed;
+
+    protected Thread                writer;
+
+    protected Thread                shutdownHook = new Thread( () -> close(), "areca-log-shutdown" );
+
+
+    public AsyncLogAppender( int capacity, boolean colors ) {
+        this.queue = new ArrayBlockingQueue<>( capacity );
+        this.colors = colors;
+        this.writer = new Thread( () -> run(), "areca-log" );
+        writer.setDaemon( true );
+        writer.start();
+        Runtime.getRuntime().addShutdownHook( shutdownHook );
+    }
+
+
+    @Override
+    public void append( Log log, Level level, String msg, Object[] args, Throwable e ) {
+        var record = new Record( log, level, msg, args, e );
+        if (closed) {
+            write( List.of( record ) );
+        }
+        else if (!queue.offer( record )) {
+            if (level.ordinal() < Level.WARN.ordinal()) {
+                dropped.incrementAndGet();
+            }
+            else {
+                try {
+                    queue.put( record );
+                }
+                catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    write( List.of( record ) );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Stops the writer thread after all pending messages are written. Subsequent
+     * messages are written synchronously.
+     */
+    public void close() {
+        if (!closed) {
+            closed = true;
+            try {
+                writer.join( 5000 );
+                // appended while closing
+                var rest = new ArrayList<Record>();
+                queue.drainTo( rest );
+                write( rest );
+                Runtime.getRuntime().removeShutdownHook( shutdownHook );
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            catch (IllegalStateException e) {
+                // shutdown in progress
+            }
+        }
+    }
+
+
+    public boolean colors() {
+        return colors;
+    }
+
+
+    /** The number of messages dropped since the last written batch. */
+    public long dropped() {
+        return dropped.get();
+    }
+
+
+    protected void run() {
+        var batch = new ArrayList<Record>( MAX_BATCH );
+        while (!closed || !queue.isEmpty()) {
+            try {
+                var first = queue.poll( 100, TimeUnit.MILLISECONDS );
+                if (first != null) {
+                    batch.add( first );
+                    queue.drainTo( batch, MAX_BATCH - 1 );
+                    write( batch );
+                    batch.clear();
+                }
+            }
+            catch (InterruptedException e) {
+                closed = true;
+            }
+            catch (Throwable e) {
+                // never let the writer die
+                e.printStackTrace( System.err );
+                batch.clear();
+            }
+        }
+    }
+
+
+    protected void write( List<Record> batch ) {
+        var out = new StringBuilder( batch.size() * 128 );
+        StringBuilder err = null;
+        var count = dropped.getAndSet( 0 );
+        if (count > 0) {
+            out.append( "[WARN ] AsyncLogAppender: dropped " ).append( count ).append( " messages (buffer full)\n" );
+        }
+        for (var record : batch) {
+            var isError = record.level.ordinal() >= Level.ERROR.ordinal();
+            var buf = isError ? (err = err != null ? err : new StringBuilder( 1024 )) : out;
+            try {
+                buf.append( record.log.format( record.level, record.msg, record.args, colors ) ).append( '\n' );
+            }
+            catch (RuntimeException e) {
+                buf.append( "[ERROR] AsyncLogAppender: unable to format: " ).append( record.msg )
+                        .append( " (" ).append( e ).append( ")\n" );
+            }
+            if (record.e != null) {
+                var trace = new StringWriter( 1024 );
+                record.e.printStackTrace( new PrintWriter( trace ) );
+                buf.append( trace );
+            }
+        }
+        print( System.out, out );
+        print( System.err, err );
+    }
+
+
+    protected void print( PrintStream stream, StringBuilder buf ) {
+        if (buf != null && buf.length() > 0) {
+            stream.print( buf );
+            stream.flush();
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.rt.server;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import areca.common.Session;
+import areca.common.base.Function.RFunction;
+
+/**
+ * {@link Session.Storage} of the JVM runtime. Every type gets a global slot index
+ * (via {@link ClassValue}, on first use); the instances of a session are held in
+ * an array indexed by slot.
+ * <p>
+ * Lookup of an existing instance is one volatile read of the array plus a plain
+ * load of the element, without lock. Instances are added under lock, copy-on-write,
+ * so readers of other threads always see fully initialized instances. Each
+ * instance is created only once per session.
+ *
+ * @author Falko Bräutigam
+ */
+public class ConcurrentSessionStorage
+        implements Session.Storage {
+
+    private static final AtomicInteger nextSlot = new AtomicInteger();
+
+    private static final ClassValue<Integer> slots = new ClassValue<>() {
+        @Override
+        protected Integer computeValue( Class<?> type ) {
+            return nextSlot.getAndIncrement();
+        }
+    };
+
+    /** The global slot index of the given type. */
+    public static int slotOf( Class<?> type ) {
+        return slots.get( type );
+    }
+
+    // instance *******************************************
+
+    private volatile Object[]   instances = new Object[Math.max( 16, nextSlot.get() )];
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <R> R computeIfAbsent( Class<R> type, RFunction<Class<R>,R> factory ) {
+        var slot = slotOf( type );
+        var current = instances;
+        if (slot < current.length) {
+            var result = current[slot];
+            if (result != null) {
+                return (R)result;
+            }
+        }
+        synchronized (this) {
+            current = instances;
+            var result = slot < current.length ? current[slot] : null;
+            if (result == null) {
+                // factory might (recursively) add other instances
+                result = factory.apply( type );
+                set( slot, result );
+            }
+            return (R)result;
+        }
+    }
+
+
+    @Override
+    public Object put( Class<?> type, Object instance ) {
+        var slot = slotOf( type );
+        synchronized (this) {
+            var current = instances;
+            var previous = slot < current.length ? current[slot] : null;
+            set( slot, instance );
+            return previous;
+        }
+    }
+
+
+    /** Must be called under lock. */
+    private void set( int slot, Object instance ) {
+        var current = instances;
+        var copy = Arrays.copyOf( current, slot < current.length ? current.length : slot * 2 );
+        copy[slot] = instance;
+        instances = copy;
+    }
+
+
+    @Override
+    public void clear() {
+        synchronized (this) {
+            instances = new Object[instances.length];
+        }
+    }
+
+}
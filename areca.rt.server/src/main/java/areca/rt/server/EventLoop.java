@@ -68,6 +68,8 @@ public abstract class EventLoop {
         public String label;
         public Runnable task;
         public long scheduled;
+        /** {@link System#nanoTime()} when the task was ready to be executed */
+        public long ready;
 
         public Task( Runnable task, long scheduled, String label ) {
             this.label = label;
@@ -52,9 +52,7 @@ public class EventLoop1
         queue.add( new Task( task, now() + delayMillis, label ) );
 
         // let the ServerPlatform know that there is more work
-        synchronized (this) {
-            notifyAll();
-        }
+        notifyWaitingPollers();
     }
 
 
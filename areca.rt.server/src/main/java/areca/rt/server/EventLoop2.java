@@ -23,6 +23,10 @@ import areca.common.Timer;
 import areca.common.base.Opt;
 import areca.common.log.LogFactory;
 import areca.common.log.LogFactory.Log;
+import areca.common.metrics.Counter;
+import areca.common.metrics.Gauge;
+import areca.common.metrics.Histogram;
+import areca.common.metrics.Metrics;
 
 /**
  * Second implementation of {@link EventLoop}, with separate queue for
@@ -40,6 +44,16 @@ public class EventLoop2
 
     private static final Log LOG = LogFactory.getLog( EventLoop2.class );
 
+    private static final Gauge QUEUED = Metrics.gauge( "areca_eventloop_queue_depth", "Tasks ready to be executed by all EventLoops" );
+
+    private static final Counter TASKS = Metrics.counter( "areca_eventloop_tasks_total", "Tasks executed by all EventLoops" );
+
+    private static final Histogram LATENCY = Metrics.timer( "areca_eventloop_task_latency_seconds", "Time a ready task waits in the queue" );
+
+    private static final Histogram TASK_TIME = Metrics.timer( "areca_eventloop_task_seconds", "Time to execute one task" );
+
+    private static final Histogram TURN_TIME = Metrics.timer( "areca_eventloop_turn_seconds", "Time of one execute() of an EventLoop" );
+
     //private static java.util.Timer timer = new java.util.Timer( true );
 
     private Queue<Task>     queue = new ConcurrentLinkedQueue<>();
@@ -54,7 +68,7 @@ public class EventLoop2
 
         var t = new Task( task, now() + delayMillis, label );
         if (delayMillis == 0) {
-            queue.add( t );
+            ready( t );
             notifyWaitingPollers();
         }
         else {
@@ -76,12 +90,40 @@ public class EventLoop2
         var now = now();
         for (var t = delayed.poll( now ); t != null; t = delayed.poll( now )) {
             //LOG.warn( "Schedule delayed: '%s'", t.label );
-            queue.add( t );
+            ready( t );
             notifyWaitingPollers();
         }
     }
 
 
+    protected void ready( Task t ) {
+        t.ready = System.nanoTime();
+        queue.add( t );
+        QUEUED.add( 1 );
+    }
+
+
+    protected Task poll() {
+        var result = queue.poll();
+        if (result != null) {
+            QUEUED.add( -1 );
+            LATENCY.recordSince( result.ready );
+        }
+        return result;
+    }
+
+
+    /**
+     * Discards all tasks.
+     */
+    protected void clear() {
+        for (var t = queue.poll(); t != null; t = queue.poll()) {
+            QUEUED.add( -1 );
+        }
+        delayed.clear();
+    }
+
+
     @Override
     public void execute( long timeframeMillis ) {
         var deadline = timeframeMillis == -1 ? Long.MAX_VALUE : now() + timeframeMillis;
@@ -92,15 +134,17 @@ public class EventLoop2
         LOG.debug( "______ Run (queue: %s) ______", queue.size() );
         var t = Timer.start();
         var count = 0;
-        var task = queue.poll();
+        var task = poll();
         while (task != null) { // at least one
+            var start = System.nanoTime();
             try {
                 task.task.run();
             }
             catch (Throwable e) {
                 defaultErrorHandler.accept( e );
             }
-            task = now() < deadline ? queue.poll() : null;
+            TASK_TIME.recordSince( start );
+            task = now() < deadline ? poll() : null;
             count ++;
 
             // checkDelayed();
@@ -108,10 +152,20 @@ public class EventLoop2
         if (LOG.isLevelEnabled( DEBUG ) && !queue.isEmpty() && timeframeMillis > 0) {
             LOG.debug( "Break: queue=%s, count=%s [%s]", queue.size(), count, t );
         }
+        TASKS.add( count );
+        TURN_TIME.record( t.elapsedNanos() );
         LOG.debug( "______ End (queue: %s, count = %s [%s])", queue.size(), count, t );
     }
 
 
+    /**
+     * True if there are tasks ready to be executed, or delayed tasks that are due.
+     */
+    protected boolean hasReadyTasks() {
+        return !queue.isEmpty() || delayed.minScheduled().map( min -> min <= now() ).orElse( false );
+    }
+
+
     @Override
     public long pendingWait() {
         //queue.forEach( t -> LOG.debug( "pendingWait(): %s [%s]", t.scheduled - now(), t.label ) );
@@ -132,32 +186,46 @@ public class EventLoop2
 
 
     /**
-     *
+     * The delayed tasks, ordered by {@link Task#scheduled}. Tasks are added by
+     * {@link #enqueue(String, Runnable, long)} from any thread and polled by the
+     * thread that executes the loop, so all methods are synchronized.
      */
-    protected static class DelayedQueue
-            extends PriorityQueue<Task> {
+    protected static class DelayedQueue {
 
         private static final Comparator<Long> NATURAL_ORDER = Comparator.<Long>naturalOrder();
 
-        protected DelayedQueue() {
-            super( (t1,t2) -> NATURAL_ORDER.compare( t1.scheduled, t2.scheduled ) );
+        private PriorityQueue<Task> queue = new PriorityQueue<>( (t1,t2) -> NATURAL_ORDER.compare( t1.scheduled, t2.scheduled ) );
+
+        public synchronized void add( Task t ) {
+            queue.add( t );
         }
 
-        public Opt<Long> minScheduled() {
+        public synchronized Opt<Long> minScheduled() {
             return head().map( t -> t.scheduled ); //.orElse( -1l );
         }
 
-        public Task poll( long timestamp ) {
-            var peek = peek();
+        /**
+         * Removes and returns the head if it is scheduled before the given timestamp.
+         */
+        public synchronized Task poll( long timestamp ) {
+            var peek = queue.peek();
             if (peek != null && peek.scheduled <= timestamp) {
-                Assert.isSame( peek, poll() );
+                Assert.isSame( peek, queue.poll() );
                 return peek;
             }
             return null;
         }
 
-        public Opt<Task> head() {
-            return Opt.of(  peek() );
+        public synchronized Opt<Task> head() {
+            return Opt.of( queue.peek() );
+        }
+
+        public synchronized boolean isEmpty() {
+            return queue.isEmpty();
+        }
+
+        public synchronized void clear() {
+            queue.clear();
         }
     }
 
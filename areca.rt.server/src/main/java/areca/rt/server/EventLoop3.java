@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.rt.server;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import areca.common.Session;
+import areca.common.base.Consumer.RConsumer;
+import areca.common.log.LogFactory;
+import areca.common.log.LogFactory.Log;
+
+/**
+ * Third implementation of {@link EventLoop}: the loop drives itself. The tasks
+ * of a {@link Session} are executed by a shared {@link ScheduledExecutorService},
+ * not by the thread of a (polling) request. New tasks and due delayed tasks
+ * schedule a run; at most one run of a session is scheduled or running at any time.
+ * <p>
+ * Requests just enqueue client events and collect the render events in the
+ * {@link #afterExecute(Runnable) afterExecute} listener. A thread is used only
+ * while a session actually has work to do, so the number of threads scales with
+ * the active work rather than with the number of connected sessions.
+ *
+ * @author Falko Bräutigam
+ */
+public class EventLoop3
+        extends EventLoop2 {
+
+    private static final Log LOG = LogFactory.getLog( EventLoop3.class );
+
+    /** Max time of one run before the {@link #afterExecute(Runnable)} listener is called. */
+    public static final int TIMEFRAME = 100;
+
+    private ScheduledExecutorService    executor;
+
+    private RConsumer<Runnable>         context;
+
+    private AtomicBoolean               scheduled = new AtomicBoolean();
+
+    private volatile Runnable           afterExecute;
+
+    private volatile boolean            disposed;
+
+
+    /**
+     * @param executor The (shared) executor that runs the tasks.
+     * @param context Runs the given run of the loop in the context of the session:
+     *        bound {@link Session}, synchronized with requests.
+     */
+    public EventLoop3( ScheduledExecutorService executor, RConsumer<Runnable> context ) {
+        this.executor = executor;
+        this.context = context;
+    }
+
+
+    /**
+     * Stops scheduling new runs. Pending tasks are discarded.
+     */
+    public void dispose() {
+        disposed = true;
+        afterExecute = null;
+        clear();
+    }
+
+
+    /**
+     * Sets the listener that is called after every run, in the context of the session.
+     *
+     * @param listener The listener, or null to remove.
+     */
+    public void afterExecute( Runnable listener ) {
+        this.afterExecute = listener;
+    }
+
+
+    @Override
+    public void enqueue( String label, Runnable task, long delayMillis ) {
+        super.enqueue( label, task, delayMillis );
+        if (delayMillis > 0 && !disposed) {
+            executor.schedule( () -> wakeup(), delayMillis, MILLISECONDS );
+        }
+    }
+
+
+    @Override
+    protected void notifyWaitingPollers() {
+        super.notifyWaitingPollers();
+        wakeup();
+    }
+
+
+    /**
+     * Schedules a run if not yet scheduled. Called from any thread.
+     */
+    protected void wakeup() {
+        if (!disposed && scheduled.compareAndSet( false, true )) {
+            executor.execute( () -> run() );
+        }
+    }
+
+
+    protected void run() {
+        try {
+            if (!disposed) {
+                context.accept( () -> {
+                    execute( TIMEFRAME );
+                    var l = afterExecute;
+                    if (l != null) {
+                        l.run();
+                    }
+                });
+            }
+        }
+        catch (Throwable e) {
+            defaultErrorHandler.accept( e );
+        }
+        finally {
+            // not before: no second run while this one is running
+            scheduled.set( false );
+        }
+        // timeframe exceeded, or the wakeup() of tasks added during the run was dropped
+        if (hasReadyTasks()) {
+            LOG.debug( "run(): more tasks" );
+            wakeup();
+        }
+    }
+
+}
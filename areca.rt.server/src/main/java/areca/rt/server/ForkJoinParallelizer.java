@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.rt.server;
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.StreamSupport;
+
+import areca.common.base.ParallelSequence;
+
+/**
+ * Processes {@link ParallelSequence}s by a parallel {@link java.util.stream.Stream}
+ * over the {@link java.util.Spliterator} of the source, executed by the common
+ * {@link ForkJoinPool}.
+ *
+ * @author Falko Bräutigam
+ */
+public class ForkJoinParallelizer
+        implements ParallelSequence.Parallelizer {
+
+    /** Smaller {@link Collection}s are processed sequentially. */
+    public static final int MIN_PARALLEL_SIZE = 256;
+
+
+    @Override
+    public <S,A,R> R collect( Iterable<S> source, Function<S,Object> ops, Collector<Object,A,R> collector ) {
+        var parallel = !(source instanceof Collection)
+                || ((Collection<S>)source).size() >= MIN_PARALLEL_SIZE;
+        return StreamSupport.stream( source.spliterator(), parallel && ForkJoinPool.getCommonPoolParallelism() > 1 )
+                .map( ops )
+                .filter( v -> v != ParallelSequence.FILTERED )
+                .collect( collector );
+    }
+
+}
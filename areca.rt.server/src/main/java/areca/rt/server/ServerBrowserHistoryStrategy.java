@@ -81,6 +81,7 @@ public class ServerBrowserHistoryStrategy {
         var pageId = Integer.valueOf( pageId( ev.clientPage ) );
         var browserEvent = new JsonUIComponentEvent( "Pageflow" );
         browserEvent.propName = ev.type.toString();
+        browserEvent.propValue = pageId;
         browserEvent.propNewValue = JsonServer2ClientMessage.encodeValue( pageId );
 
         if (ev.type == EventType.PAGE_OPENED) {
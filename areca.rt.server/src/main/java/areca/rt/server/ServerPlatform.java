@@ -36,6 +36,7 @@ import areca.common.Timer;
 import areca.common.base.Consumer;
 import areca.common.base.Consumer.RConsumer;
 import areca.common.base.Lazy.RLazy;
+import areca.common.base.ParallelSequence;
 import areca.common.base.Supplier.RSupplier;
 import areca.common.log.LogFactory;
 import areca.common.log.LogFactory.Log;
@@ -51,6 +52,11 @@ public class ServerPlatform
 
     public static final Duration HTTP_TIMEOUT = Duration.ofSeconds( 30 );
 
+    static {
+        ParallelSequence.parallelizer = new ForkJoinParallelizer();
+        Session.storageFactory = () -> new ConcurrentSessionStorage();
+    }
+
     // instance *******************************************
 
     /** One HttpClient for all {@link Session}s */
@@ -203,9 +209,9 @@ public class ServerPlatform
                     var eventLoop = Session.instanceOf( EventLoop.class );
                     eventLoop.requestPolling();
                     future.whenComplete( (response,e) -> {
-                        LOG.warn( "XHR: whenComplete(): ...");
+                        LOG.debug( "XHR: whenComplete(): ..." );
                         eventLoop.releasePolling( "xhr", () -> {
-                            LOG.warn( "XHR: enqueued(): ...");
+                            LOG.debug( "XHR: enqueued(): ..." );
                             if (e != null) {
                                 if (!(e instanceof CancellationException)) {
                                     promise.completeWithError( e );
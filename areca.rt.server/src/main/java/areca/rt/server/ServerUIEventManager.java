@@ -31,7 +31,7 @@ public class ServerUIEventManager
 
     @Override
     public void publish( EventObject ev ) {
-        for (var handler : handlers) {
+        for (var handler : handlersFor( ev )) {
             handler.perform( ev );
        }
     }
@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.rt.server.client;
+
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.EV_ATTACHED;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.EV_CONSTRUCTING;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.EV_DECORATOR_ATTACHED;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.EV_DECORATOR_DETACHED;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.EV_DETACHED;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.EV_DISPOSED;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.EV_END;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.EV_PAGEFLOW;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.EV_PROPERTY;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.VERSION;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.V_COLLECTION;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.V_COLOR;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.V_CSS_STYLE;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.V_EVENT_HANDLER;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.V_FALSE;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.V_INT;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.V_NULL;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.V_NUMBER;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.V_POSITION;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.V_SIZE;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.V_STRING;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.V_TRUE;
+import static areca.rt.server.servlet.BinaryServer2ClientMessage.V_TYPED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.teavm.jso.typedarrays.Uint8Array;
+
+import areca.common.Assert;
+import areca.rt.server.servlet.BinaryServer2ClientMessage;
+import areca.ui.Color;
+import areca.ui.Position;
+import areca.ui.Size;
+import areca.ui.component2.Events.EventType;
+import areca.ui.component2.Property.PropertyChangedEvent;
+import areca.ui.component2.UIComponent.CssStyle;
+import areca.ui.component2.UIComponentEvent.ComponentAttachedEvent;
+import areca.ui.component2.UIComponentEvent.ComponentConstructingEvent;
+import areca.ui.component2.UIComponentEvent.ComponentDetachedEvent;
+import areca.ui.component2.UIComponentEvent.ComponentDisposedEvent;
+import areca.ui.component2.UIComponentEvent.DecoratorAttachedEvent;
+import areca.ui.component2.UIComponentEvent.DecoratorDetachedEvent;
+
+/**
+ * Decodes messages encoded by {@link BinaryServer2ClientMessage}.
+ * <p>
+ * The response is received as String via the <code>x-user-defined</code>
+ * charset, so every char holds exactly one byte. This keeps us with the
+ * standard {@link areca.common.Platform#xhr(String, String)} API. Push messages
+ * are received as {@link Uint8Array}.
+ * <p>
+ * The decoder is a cursor: {@link #next()} reads one event into the public
+ * fields, no objects are created per event (except for the values).
+ * The string table must live as long as the session.
+ *
+ * @author Falko Bräutigam
+ */
+class BinaryServer2ClientDecoder {
+
+    public static final String  MIME_TYPE = "text/plain; charset=x-user-defined";
+
+    private static final String PROPERTY_CHANGED_EVENT = PropertyChangedEvent.class.getSimpleName();
+    private static final String COMPONENT_CONSTRUCTING_EVENT = ComponentConstructingEvent.class.getSimpleName();
+    private static final String COMPONENT_ATTACHED_EVENT = ComponentAttachedEvent.class.getSimpleName();
+    private static final String COMPONENT_DETACHED_EVENT = ComponentDetachedEvent.class.getSimpleName();
+    private static final String COMPONENT_DISPOSED_EVENT = ComponentDisposedEvent.class.getSimpleName();
+    private static final String DECORATOR_ATTACHED_EVENT = DecoratorAttachedEvent.class.getSimpleName();
+    private static final String DECORATOR_DETACHED_EVENT = DecoratorDetachedEvent.class.getSimpleName();
+
+    /** The string table of the session. */
+    private List<String>    strings = new ArrayList<>( 256 );
+
+    private String          data;
+
+    private Uint8Array      bytes;
+
+    private int             pos;
+
+    // current event
+
+    public String           eventType;
+
+    public int              componentId;
+
+    public String           componentClass;
+
+    public int              parentId;
+
+    public String           propName;
+
+    public Object           value;
+
+    /** The sequence number of the message, valid after {@link #start()}. */
+    public int              seq;
+
+    /** Valid after {@link #next()} returned false. */
+    public int              pendingWait;
+
+
+    public BinaryServer2ClientDecoder start( String _data ) {
+        this.data = _data;
+        this.bytes = null;
+        return start();
+    }
+
+
+    public BinaryServer2ClientDecoder start( Uint8Array _bytes ) {
+        this.data = null;
+        this.bytes = _bytes;
+        return start();
+    }
+
+
+    protected BinaryServer2ClientDecoder start() {
+        this.pos = 0;
+        var version = readByte();
+        Assert.isEqual( VERSION, version, "Wrong protocol version: " + version );
+        seq = readVarInt();
+        return this;
+    }
+
+
+    /**
+     * Reads the next event.
+     *
+     * @return False if the end of the message has been reached.
+     */
+    public boolean next() {
+        componentClass = null;
+        propName = null;
+        value = null;
+
+        var opcode = readByte();
+        switch (opcode) {
+            case EV_END: {
+                pendingWait = unzigzag( readVarInt() );
+                data = null;
+                bytes = null;
+                return false;
+            }
+            case EV_PROPERTY: {
+                eventType = PROPERTY_CHANGED_EVENT;
+                componentId = readVarInt();
+                propName = readString();
+                value = readValue();
+                return true;
+            }
+            case EV_CONSTRUCTING: {
+                eventType = COMPONENT_CONSTRUCTING_EVENT;
+                componentId = readVarInt();
+                componentClass = readString();
+                return true;
+            }
+            case EV_ATTACHED: {
+                eventType = COMPONENT_ATTACHED_EVENT;
+                componentId = readVarInt();
+                parentId = readVarInt();
+                return true;
+            }
+            case EV_DETACHED: {
+                eventType = COMPONENT_DETACHED_EVENT;
+                componentId = readVarInt();
+                return true;
+            }
+            case EV_DISPOSED: {
+                eventType = COMPONENT_DISPOSED_EVENT;
+                componentId = readVarInt();
+                return true;
+            }
+            case EV_DECORATOR_ATTACHED: {
+                eventType = DECORATOR_ATTACHED_EVENT;
+                componentId = readVarInt();
+                parentId = readVarInt();
+                return true;
+            }
+            case EV_DECORATOR_DETACHED: {
+                eventType = DECORATOR_DETACHED_EVENT;
+                componentId = readVarInt();
+                parentId = readVarInt();
+                return true;
+            }
+            case EV_PAGEFLOW: {
+                eventType = "Pageflow";
+                propName = readString();
+                value = readValue();
+                return true;
+            }
+            default:
+                throw new RuntimeException( "Unknown opcode: " + opcode + " at: " + (pos-1) );
+        }
+    }
+
+
+    protected Object readValue() {
+        var tag = readByte();
+        switch (tag) {
+            case V_NULL: return null;
+            case V_STRING: return readUtf8();
+            case V_INT: return unzigzag( readVarInt() );
+            case V_TRUE: return Boolean.TRUE;
+            case V_FALSE: return Boolean.FALSE;
+            case V_SIZE: return Size.of( unzigzag( readVarInt() ), unzigzag( readVarInt() ) );
+            case V_POSITION: return Position.of( unzigzag( readVarInt() ), unzigzag( readVarInt() ) );
+            case V_COLOR: return Color.rgb( readByte(), readByte(), readByte() );
+            case V_CSS_STYLE: return CssStyle.of( readString(), readUtf8() );
+            case V_EVENT_HANDLER: return EventType.valueOf( readString() );
+            case V_TYPED: return JSServer2ClientMessage.decodeTyped( readString(), readString() );
+            case V_NUMBER: return JSServer2ClientMessage.decodeTyped( readString(), readUtf8() );
+            case V_COLLECTION: {
+                var size = readVarInt();
+                var result = new ArrayList<>( size );
+                for (int i = 0; i < size; i++) {
+                    result.add( readValue() );
+                }
+                return result;
+            }
+            default:
+                throw new RuntimeException( "Unknown value tag: " + tag + " at: " + (pos-1) );
+        }
+    }
+
+
+    protected String readString() {
+        var n = readVarInt();
+        if ((n & 1) == 0) {
+            return strings.get( n >>> 1 );
+        }
+        else {
+            var s = readUtf8( n >>> 1 );
+            strings.add( s );
+            return s;
+        }
+    }
+
+
+    protected String readUtf8() {
+        return readUtf8( readVarInt() );
+    }
+
+
+    protected String readUtf8( int length ) {
+        var utf8 = new byte[length];
+        for (int i = 0; i < length; i++) {
+            utf8[i] = (byte)readByte();
+        }
+        return new String( utf8, UTF_8 );
+    }
+
+
+    protected int readVarInt() {
+        int result = 0;
+        for (int shift = 0; ; shift += 7) {
+            var b = readByte();
+            result |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+    }
+
+
+    protected int readByte() {
+        return bytes != null ? bytes.get( pos++ ) : data.charAt( pos++ ) & 0xff;
+    }
+
+
+    protected static int unzigzag( int v ) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+}
@@ -56,14 +56,18 @@ public class ClientApp
     public static void main( String[] args ) throws Exception {
         debug = Window.current().getLocation().getSearch().contains( "debug" );
         LOG.info( "Debug: %s", debug );
-        LogFactory.DEFAULT_LEVEL = debug ? Level.INFO : Level.WARN;
+        LogFactory.setDefaultLevel( debug ? Level.INFO : Level.WARN );
         LogFactory.setClassLevel( ClientApp.class, Level.INFO );
 
         Promise.setDefaultErrorHandler( defaultErrorHandler() );
         try {
             // UI
             new ClientApp().createUI( rootWindow -> {
-                var conn = new Connection( rootWindow );
+                // ?json -> readable render events for debugging
+                var json = Window.current().getLocation().getSearch().contains( "json" );
+                // ?nopush -> HTTP polling only
+                var nopush = Window.current().getLocation().getSearch().contains( "nopush" );
+                var conn = new Connection( rootWindow ).binary( !json ).push( !nopush );
                 Session.setInstance( conn );
 
                 // rootWindow resize
@@ -13,14 +13,21 @@
  */
 package areca.rt.server.client;
 
+import static areca.common.log.LogFactory.a;
 import static areca.rt.server.client.JSServer2ClientMessage.VALUE_MISSING;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
+import org.teavm.jso.browser.Window;
+import org.teavm.jso.dom.events.MessageEvent;
 import org.teavm.jso.json.JSON;
+import org.teavm.jso.typedarrays.Uint8Array;
+import org.teavm.jso.websocket.CloseEvent;
+import org.teavm.jso.websocket.WebSocket;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -31,13 +38,16 @@ import areca.common.Promise;
 import areca.common.Promise.CancelledException;
 import areca.common.Scheduler.Priority;
 import areca.common.Timer;
+import areca.common.base.BiConsumer.RBiConsumer;
 import areca.common.base.Sequence;
 import areca.common.event.EventManager;
 import areca.common.log.LogFactory;
 import areca.common.log.LogFactory.Log;
 import areca.rt.server.client.ClientBrowserHistoryStrategy.PageflowEvent;
 import areca.rt.server.client.JSClient2ServerMessage.JSClickEvent;
+import areca.rt.server.servlet.ArecaUIPush;
 import areca.rt.server.servlet.ArecaUIServer;
+import areca.rt.server.servlet.BinaryServer2ClientMessage;
 import areca.ui.App.RootWindow;
 import areca.ui.component2.Badge;
 import areca.ui.component2.Button;
@@ -73,6 +83,9 @@ import areca.ui.pageflow.PageContainer;
 
 /**
  * The client (browser) side connection to an {@link ArecaUIServer}.
+ * <p>
+ * Render events are polled via HTTP requests, or pushed via the
+ * {@link ArecaUIPush} WebSocket if {@link #push(boolean) enabled} and available.
  *
  * @author Falko Bräutigam
  */
@@ -82,10 +95,17 @@ public class Connection {
 
     private static final String SERVER_PATH = "eventloop";
 
+    private static final String PUSH_PATH = SERVER_PATH + "/push";
+
+    /** HTTP status of a request to an evicted session. */
+    private static final int SC_GONE = 410;
+
     private static final String PACKAGE_UI = "areca.ui";
     private static final String PACKAGE_UI_COMPONENTS = PACKAGE_UI + ".component2";
     private static final String PACKAGE_UI_PAGEFLOW = PACKAGE_UI + ".pageflow";
 
+    private static final String PROPERTY_CHANGED_EVENT = PropertyChangedEvent.class.getSimpleName();
+
     /** The RootWindow on the client side */
     private UIComposite                 rootWindow;
 
@@ -102,12 +122,56 @@ public class Connection {
 
     private boolean                     isStarted;
 
+    /** Use {@link BinaryServer2ClientMessage} encoding instead of JSON. */
+    private boolean                     binary;
+
+    private BinaryServer2ClientDecoder  decoder = new BinaryServer2ClientDecoder();
+
+    /** Try to use the {@link ArecaUIPush} channel. */
+    private boolean                     push;
+
+    private WebSocket                   socket;
+
+    /** The {@link #socket} is open. */
+    private boolean                     socketOpen;
+
+    /** Client events and render events are sent via the {@link #socket}; no polling. */
+    private boolean                     pushActive;
+
+    /** The sequence number of the last message received from the server. */
+    private int                         lastSeq;
+
+    /** Makes the ids of the {@link FileUpload}s unique. */
+    private int                         uploadCount;
+
 
     public Connection( UIComposite rootWindow ) {
         this.rootWindow = rootWindow;
     }
 
 
+    /**
+     * Request the compact {@link BinaryServer2ClientMessage} encoding for
+     * the render events. Must be called before {@link #start()}.
+     */
+    public Connection binary( boolean _binary ) {
+        Assert.that( !isStarted, "Connection already started." );
+        this.binary = _binary;
+        return this;
+    }
+
+
+    /**
+     * Use the {@link ArecaUIPush} WebSocket channel after the first response,
+     * falls back to polling if not available. Must be called before {@link #start()}.
+     */
+    public Connection push( boolean _push ) {
+        Assert.that( !isStarted, "Connection already started." );
+        this.push = _push;
+        return this;
+    }
+
+
     public Connection start() {
         readServer( true );
         isStarted = true;
@@ -118,38 +182,59 @@ public class Connection {
     protected void readServer( boolean startSession ) {
         var send = JSClient2ServerMessage.create();
         send.setStartSession( startSession );
+        if (startSession) {
+            lastSeq = 0;
+        }
+        if (binary) {
+            send.setEncoding( BinaryServer2ClientMessage.ENCODING );
+        }
         send.setEvents( Sequence.of( clickEvents ).toArray( JSClickEvent[]::new ) );
         clickEvents.clear();
         var json = JSON.stringify( send );
         //var rt = Timer.start();
-        LOG.warn( "Sending request: %s", StringUtils.abbreviate( json, 40 ) );
-        pendingRequest = Platform.xhr( "POST", SERVER_PATH )
+        LOG.debug( "Sending request: %s", () -> a( StringUtils.abbreviate( json, 40 ) ) );
+        var request = Platform.xhr( "POST", SERVER_PATH );
+        if (binary) {
+            request.overrideMimeType( BinaryServer2ClientDecoder.MIME_TYPE );
+        }
+        pendingRequest = request
                 .submit( json )
                 //.onSuccess( __ -> LOG.warn( "    main: %s", rt ) )
                 .priority( Priority.BACKGROUND )
                 .onSuccess( response -> {
                     //LOG.warn( "    idle: %s", rt );
                     pendingRequest = null;
+                    if (response.status() == SC_GONE) {
+                        LOG.warn( "Session evicted: reload" );
+                        Window.current().getLocation().reload();
+                        return;
+                    }
                     try {
                         var t = Timer.start();
-                        var msg = (JSServer2ClientMessage)JSON.parse( response.text() );
-
-                        // wait -> next request
                         pendingWait = null;
-                        if (msg.pendingWait() >= 0) {
-                            int delay = Math.max( 0, msg.pendingWait() - (int)t.elapsedMillis() );
-                            LOG.info( "Pending wait: processing=%s - requested=%s, actual=%s", t, msg.pendingWait(), delay );
-
-                            if (delay <= 0) {
-                                LOG.warn( "No delay readServer() ..." );
-                                readServer( false );
+                        if (binary) {
+                            if (!checkSequence( decoder.start( response.text() ).seq )) {
+                                return;
                             }
-                            else {
-                                pendingWait = Platform.schedule( delay, () -> readServer( false ) );
+                            processUIEvents( decoder );
+                            schedulePendingWait( decoder.pendingWait, t );
+                        }
+                        else {
+                            var msg = (JSServer2ClientMessage)JSON.parse( response.text() );
+                            if (!checkSequence( msg.seq() )) {
+                                return;
                             }
+                            // wait -> next request
+                            schedulePendingWait( msg.pendingWait(), t );
+                            // process
+                            processUIEvents( msg );
+                        }
+                        if (push && startSession) {
+                            openPush();
+                        }
+                        else if (socketOpen && !pushActive) {
+                            activatePush();
                         }
-                        // process
-                        processUIEvents( msg );
                     }
                     catch (Exception e) {
                         LOG.warn( e.getMessage(), e );
@@ -162,85 +247,209 @@ public class Connection {
     }
 
 
-    protected void processUIEvents( JSServer2ClientMessage msg ) {
-        LOG.info( "Received: %s render events", msg.uiEvents().length );
-        for (var ev : msg.uiEvents()) {
-            //LOG.info( "Event: %s", ev.eventType() );
+    protected void schedulePendingWait( int requested, Timer t ) {
+        if (requested >= 0 && !pushActive) {
+            int delay = Math.max( 0, requested - (int)t.elapsedMillis() );
+            LOG.debug( "Pending wait: processing=%s - requested=%s, actual=%s", t, requested, delay );
 
-            // property
-            var eventType = ev.eventType();
-            if (PropertyChangedEvent.class.getSimpleName().equals( eventType )) {
-                var element = components.get( ev.componentId() );
-                var prop = Assert.notNull( element.propertyForName( ev.propName() ) );
-
-                @SuppressWarnings("unchecked")
-                var rw = (ReadWrite<?,Object>)prop;
-                var value = JSServer2ClientMessage.decodeValue( ev.propNewValue().cast() );
-                Assert.that( value != VALUE_MISSING );
-
-                // Events
-                if (value instanceof List
-                        && !((List)value).isEmpty()
-                        && ((List)value).get( 0 ) instanceof EventType) {
-                    LOG.debug( "Register: %s", value );
-                    var component = (UIComponent)element;
-                    Assert.that( component.events.$().isEmpty(), "..." );
-                    for (var v : (List)value) {
-                        component.events.on( (EventType)v, _ev -> {
-                            onComponentEvent( component, _ev );
-                        });
-                    }
-                }
-                // normal
-                else {
-                    rw.set( value );
-                }
-            }
-            // constructing
-            else if (ComponentConstructingEvent.class.getSimpleName().equals( eventType )) {
-                var component = ev.componentClass().equals( RootWindow.class.getName() )
-                        ? rootWindow
-                        : createInstance( ev.componentClass() );
-                component.setId( ev.componentId() );
-                Assert.isNull( components.put( component.id(), component ) );
+            if (delay <= 0) {
+                LOG.debug( "No delay readServer() ..." );
+                readServer( false );
             }
-            // attached
-            else if (ComponentAttachedEvent.class.getSimpleName().equals( eventType )) {
-                var parent = (UIComposite)components.get( ev.parentId() );
-                var component = (UIComponent)components.get( ev.componentId() );
-                parent.add( component );
-            }
-            // detached
-            else if (ComponentDetachedEvent.class.getSimpleName().equals( eventType )) {
-                var component = (UIComponent)components.get( ev.componentId() );
-                //Assert.isEqual( ev.parentId(), component.parent().id() );
-                component.parent().components.remove( component ).orElseError();
+            else {
+                pendingWait = Platform.schedule( delay, () -> readServer( false ) );
             }
-            // disposed
-            else if (ComponentDisposedEvent.class.getSimpleName().equals( eventType )) {
-                components.remove( ev.componentId() ).dispose();
+        }
+    }
+
+
+    protected void openPush() {
+        var location = Window.current().getLocation();
+        var url = (location.getProtocol().equals( "https:" ) ? "wss://" : "ws://")
+                + location.getHost()
+                + StringUtils.substringBeforeLast( location.getPathName(), "/" ) + "/" + PUSH_PATH;
+        LOG.info( "Push: %s", url );
+        socket = WebSocket.create( url );
+        socket.setBinaryType( "arraybuffer" );
+        socket.onOpen( ev -> {
+            socketOpen = true;
+            // wait for the pending request so that the server sees the messages in order
+            if (pendingRequest == null) {
+                activatePush();
             }
-            // decorator attached
-            else if (DecoratorAttachedEvent.class.getSimpleName().equals( eventType )) {
-                var component = Assert.notNull( (UIComponent)components.get( ev.parentId() ), "No such component: " + ev.parentId() );
-                var decorator = Assert.notNull( (UIComponentDecorator)components.get( ev.componentId() ) );
-                component.addDecorator( decorator );
+        });
+        socket.onMessage( ev -> onPushMessage( ev ) );
+        socket.onError( ev -> LOG.warn( "Push: error" ) );
+        socket.onClose( ev -> onPushClosed( ev ) );
+    }
+
+
+    /**
+     * Switches from polling to push: the first message over the socket
+     * tells the server to start pushing.
+     */
+    protected void activatePush() {
+        LOG.info( "Push: active" );
+        pushActive = true;
+        if (pendingWait != null) {
+            pendingWait.cancel();
+            pendingWait = null;
+        }
+        sendPush();
+    }
+
+
+    protected void sendPush() {
+        var send = JSClient2ServerMessage.create();
+        send.setEvents( Sequence.of( clickEvents ).toArray( JSClickEvent[]::new ) );
+        clickEvents.clear();
+        socket.send( JSON.stringify( send ) );
+    }
+
+
+    protected void onPushMessage( MessageEvent ev ) {
+        if (binary) {
+            if (checkSequence( decoder.start( Uint8Array.create( ev.getDataAsArray() ) ).seq )) {
+                processUIEvents( decoder );
             }
-            // decorator detached
-            else if (DecoratorDetachedEvent.class.getSimpleName().equals( eventType )) {
-                var component = Assert.notNull( (UIComponent)components.get( ev.parentId() ), "No such component: " + ev.parentId() );
-                var decorator = Assert.notNull( (UIComponentDecorator)components.get( ev.componentId() ) );
-                component.decorators.remove( decorator );
+        }
+        else {
+            var msg = (JSServer2ClientMessage)JSON.parse( ev.getDataAsString() );
+            if (checkSequence( msg.seq() )) {
+                processUIEvents( msg );
             }
-            // Pageflow
-            else if (eventType.equals( "Pageflow" )) {
-                var value = JSServer2ClientMessage.decodeValue( ev.propNewValue().cast() );
-                EventManager.instance().publish( new PageflowEvent( ev.propName(), (int)value ) );
+        }
+    }
+
+
+    /**
+     * Render events are received via HTTP response and push channel. A message
+     * that is out of order or missing (failed send) leaves the UI in an undefined
+     * state (and the binary string table out of sync): reload.
+     *
+     * @return False if the message must not be processed.
+     */
+    protected boolean checkSequence( int seq ) {
+        if (seq != lastSeq + 1) {
+            LOG.warn( "Message out of sequence: %s, expected: %s -> reload", seq, lastSeq + 1 );
+            Window.current().getLocation().reload();
+            return false;
+        }
+        lastSeq = seq;
+        return true;
+    }
+
+
+    protected void onPushClosed( CloseEvent ev ) {
+        LOG.warn( "Push: closed (%s, %s)", ev.getCode(), ev.getReason() );
+        var wasActive = pushActive;
+        socket = null;
+        socketOpen = false;
+        pushActive = false;
+        // fall back to polling
+        if (wasActive && pendingRequest == null) {
+            readServer( false );
+        }
+    }
+
+
+    protected void processUIEvents( JSServer2ClientMessage msg ) {
+        LOG.debug( "Received: %s render events", msg.uiEvents().length );
+        for (var ev : msg.uiEvents()) {
+            var eventType = ev.eventType();
+            var value = PROPERTY_CHANGED_EVENT.equals( eventType ) || eventType.equals( "Pageflow" )
+                    ? JSServer2ClientMessage.decodeValue( ev.propNewValue().cast() )
+                    : null;
+            processUIEvent( eventType, ev.componentId(), ev.componentClass(), ev.parentId(), ev.propName(), value );
+        }
+    }
+
+
+    protected void processUIEvents( BinaryServer2ClientDecoder msg ) {
+        var c = 0;
+        while (msg.next()) {
+            processUIEvent( msg.eventType, msg.componentId, msg.componentClass, msg.parentId, msg.propName, msg.value );
+            c++;
+        }
+        LOG.debug( "Received: %s render events", c );
+    }
+
+
+    protected void processUIEvent( String eventType, int componentId, String componentClass, int parentId,
+            String propName, Object value ) {
+        // property
+        if (PROPERTY_CHANGED_EVENT.equals( eventType )) {
+            var element = components.get( componentId );
+            var prop = Assert.notNull( element.propertyForName( propName ) );
+
+            @SuppressWarnings("unchecked")
+            var rw = (ReadWrite<?,Object>)prop;
+            Assert.that( value != VALUE_MISSING );
+
+            // Events
+            if (value instanceof List
+                    && !((List)value).isEmpty()
+                    && ((List)value).get( 0 ) instanceof EventType) {
+                LOG.debug( "Register: %s", value );
+                var component = (UIComponent)element;
+                Assert.that( component.events.$().isEmpty(), "..." );
+                for (var v : (List)value) {
+                    component.events.on( (EventType)v, _ev -> {
+                        onComponentEvent( component, _ev );
+                    });
+                }
             }
+            // normal
             else {
-                throw new RuntimeException( "mas trabajo: " + eventType );
+                rw.set( value );
+            }
+        }
+        // constructing
+        else if (ComponentConstructingEvent.class.getSimpleName().equals( eventType )) {
+            var component = componentClass.equals( RootWindow.class.getName() )
+                    ? rootWindow
+                    : createInstance( componentClass );
+            component.setId( componentId );
+            Assert.isNull( components.put( component.id(), component ) );
+            if (component instanceof ScrollableComposite) {
+                listenScroll( (ScrollableComposite)component );
             }
         }
+        // attached
+        else if (ComponentAttachedEvent.class.getSimpleName().equals( eventType )) {
+            var parent = (UIComposite)components.get( parentId );
+            var component = (UIComponent)components.get( componentId );
+            parent.add( component );
+        }
+        // detached
+        else if (ComponentDetachedEvent.class.getSimpleName().equals( eventType )) {
+            var component = (UIComponent)components.get( componentId );
+            //Assert.isEqual( ev.parentId(), component.parent().id() );
+            component.parent().components.remove( component ).orElseError();
+        }
+        // disposed
+        else if (ComponentDisposedEvent.class.getSimpleName().equals( eventType )) {
+            components.remove( componentId ).dispose();
+        }
+        // decorator attached
+        else if (DecoratorAttachedEvent.class.getSimpleName().equals( eventType )) {
+            var component = Assert.notNull( (UIComponent)components.get( parentId ), "No such component: " + parentId );
+            var decorator = Assert.notNull( (UIComponentDecorator)components.get( componentId ) );
+            component.addDecorator( decorator );
+        }
+        // decorator detached
+        else if (DecoratorDetachedEvent.class.getSimpleName().equals( eventType )) {
+            var component = Assert.notNull( (UIComponent)components.get( parentId ), "No such component: " + parentId );
+            var decorator = Assert.notNull( (UIComponentDecorator)components.get( componentId ) );
+            component.decorators.remove( decorator );
+        }
+        // Pageflow
+        else if (eventType.equals( "Pageflow" )) {
+            EventManager.instance().publish( new PageflowEvent( propName, (int)value ) );
+        }
+        else {
+            throw new RuntimeException( "mas trabajo: " + eventType );
+        }
     }
 
     /**
@@ -276,11 +485,16 @@ public class Connection {
         // UPLOAD
         else if (ev.type == EventType.UPLOAD) {
             var file = ((FileUpload)component).data.get();
-            Platform.xhr( "PUT", SERVER_PATH + "/" + file.name() )
+            var uploadId = component.id() + "-" + (++uploadCount);
+            Platform.xhr( "PUT", SERVER_PATH + "/" + uploadId + "/" + file.name() )
                     .submit( file.underlying() )
                     .onSuccess( response -> {
-                        LOG.info( "upload complete" );
-                        jsev.setContent( file.name() );
+                        if (response.status() < 200 || response.status() >= 300) {
+                            LOG.warn( "upload failed: %s (%s)", uploadId, response.status() );
+                            return;
+                        }
+                        LOG.info( "upload complete: %s (%s)", uploadId, response.status() );
+                        jsev.setContent( uploadId );
                         clickEvents.add( jsev );
                         sendClientEvents( 0 );
                     });
@@ -292,6 +506,28 @@ public class Connection {
     }
 
 
+    /**
+     * Sends the scroll position of the given component to the server, so that
+     * windowed viewers can update their rows. The renderer throttles scroll events
+     * already; just the last pending position per component is sent.
+     */
+    protected void listenScroll( ScrollableComposite component ) {
+        RBiConsumer<Integer,Integer> handler = (newValue, oldValue) -> {
+            if (!Objects.equals( newValue, oldValue )) {
+                clickEvents.removeIf( ev -> ev.getEventType().equals( "scroll" ) && ev.getComponentId() == component.id() );
+                var jsev = JSClickEvent.create();
+                jsev.setEventType( "scroll" );
+                jsev.setComponentId( component.id() );
+                jsev.setContent( component.scrollLeft.opt().orElse( 0 ) + ":" + component.scrollTop.opt().orElse( 0 ) );
+                clickEvents.add( jsev );
+                sendClientEvents( 100 );
+            }
+        };
+        component.scrollTop.onChange( handler );
+        component.scrollLeft.onChange( handler );
+    }
+
+
     protected void sendClientEvents( int throttleDelay ) {
         if (clientEventThrottle != null) {
             clientEventThrottle.cancel();
@@ -299,6 +535,12 @@ public class Connection {
         clientEventThrottle = Platform.schedule( throttleDelay, () -> {
             LOG.debug( "THROTTLE: %s events", clickEvents.size() );
 
+            if (pushActive) {
+                sendPush();
+                clientEventThrottle = null;
+                return null;
+            }
+
             //Assert.isNull( pendingRequest );
             if (pendingRequest != null) {
                 //Window.alert( "Das Klick war etwas zu schnell.\nSag' Falko, dass er das ändern soll. :)" );
@@ -29,6 +29,9 @@ abstract class JSClient2ServerMessage
     @JSProperty("startSession")
     public abstract void setStartSession( boolean v );
 
+    @JSProperty("encoding")
+    public abstract void setEncoding( String v );
+
     @JSProperty("events")
     public abstract void setEvents( JSClient2ServerMessage.JSClickEvent[] v );
 
@@ -44,12 +47,18 @@ abstract class JSClient2ServerMessage
         @JSProperty("eventType")
         public abstract void setEventType( String v );
 
+        @JSProperty("eventType")
+        public abstract String getEventType();
+
         @JSProperty("position")
         public abstract void setPosition( String v );
 
         @JSProperty("componentId")
         public abstract void setComponentId( int v );
 
+        @JSProperty("componentId")
+        public abstract int getComponentId();
+
         @JSProperty("content")
         public abstract void setContent( String v );
     }
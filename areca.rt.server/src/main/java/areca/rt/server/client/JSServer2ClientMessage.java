@@ -45,6 +45,10 @@ abstract class JSServer2ClientMessage
     @JSProperty("pendingWait")
     public abstract int pendingWait();
 
+    /** The sequence number of the message within the session, starting with 1. */
+    @JSProperty("seq")
+    public abstract int seq();
+
     /**
      *
      */
@@ -81,89 +85,91 @@ abstract class JSServer2ClientMessage
      * Decode property value encoded by JsonServer2ClientMessage.
      */
     public static Object decodeValue( JSPropertyValueBase value ) {
-        if (value.type().equals( "missing" )) {
+        var type = value.type();
+        if (type.equals( "missing" )) {
             return VALUE_MISSING;
         }
-        else if (value.type().equals( "null" )) {
+        else if (type.equals( "null" )) {
             return null;
         }
-        // String
-        else if (value.type().equals( String.class.getName() )) {
-            var primitive = (JSPrimitivePropertyValue)value;
-            return primitive.value();
-        }
-        // Integer
-        else if (value.type().equals( Integer.class.getName() )) {
-            var primitive = (JSPrimitivePropertyValue)value;
-            return Integer.valueOf( primitive.value() );
-        }
-        // Float
-        else if (value.type().equals( Float.class.getName() )) {
-            var primitive = (JSPrimitivePropertyValue)value;
-            return Float.valueOf( primitive.value() );
-        }
-        // Boolean
-        else if (value.type().equals( Boolean.class.getName() )) {
-            var primitive = (JSPrimitivePropertyValue)value;
-            return Boolean.parseBoolean( primitive.value() );
-        }
-        // Enum: Text.Format
-        else if (value.type().equals( Text.Format.class.getName() )) {
-            var primitive = (JSPrimitivePropertyValue)value;
-            return Text.Format.valueOf( primitive.value() );
-        }
-        // Enum: Button.Type
-        else if (value.type().equals( Button.Type.class.getName() )) {
-            var primitive = (JSPrimitivePropertyValue)value;
-            return Button.Type.valueOf( primitive.value() );
-        }
-        // Enum: Button.IconStyle
-        else if (value.type().equals( Button.IconStyle.class.getName() )) {
-            var primitive = (JSPrimitivePropertyValue)value;
-            return Button.IconStyle.valueOf( primitive.value() );
-        }
-        // Enum: TextField.Type
-        else if (value.type().equals( TextField.Type.class.getName() )) {
-            var primitive = (JSPrimitivePropertyValue)value;
-            return TextField.Type.valueOf( primitive.value() );
-        }
-        // Enum: DatePicker.DateTime
-        else if (value.type().equals( DatePicker.DateTime.class.getName() )) {
-            var primitive = (JSPrimitivePropertyValue)value;
-            return DatePicker.DateTime.valueOf( primitive.value() );
-        }
         // Size
-        else if (value.type().equals( Size.class.getName() )) {
+        else if (type.equals( Size.class.getName() )) {
             var primitive = (JSPrimitivePropertyValue)value;
             return Size.of( Integer.parseInt( primitive.value() ), Integer.parseInt( primitive.value2() ) );
         }
         // Position
-        else if (value.type().equals( Position.class.getName() )) {
+        else if (type.equals( Position.class.getName() )) {
             var primitive = (JSPrimitivePropertyValue)value;
             return Position.of( Integer.parseInt( primitive.value() ), Integer.parseInt( primitive.value2() ) );
         }
-        // Color
-        else if (value.type().equals( Color.class.getName() )) {
-            var primitive = (JSPrimitivePropertyValue)value;
-            return Color.ofHex( primitive.value() );
-        }
         // CssStyle
-        else if (value.type().equals( "CssStyle" )) {
+        else if (type.equals( "CssStyle" )) {
             var primitive = (JSPrimitivePropertyValue)value;
             return CssStyle.of( primitive.value(), primitive.value2() );
         }
         // EventType
-        else if (value.type().equals( "EventHandler" )) {
+        else if (type.equals( "EventHandler" )) {
             var primitive = (JSPrimitivePropertyValue)value;
             return EventType.valueOf( primitive.value() );
         }
         // collection
-        else if (value.type().equals( "collection" )) {
+        else if (type.equals( "collection" )) {
             var coll = (JSCollectionPropertyValue)value;
             return Sequence.of( coll.values() ).map( v -> decodeValue( v ) ).toList();
         }
         else {
-            throw new RuntimeException( "UNHANDLED: type = " + value.type() );
+            return decodeTyped( type, ((JSPrimitivePropertyValue)value).value() );
+        }
+    }
+
+
+    /**
+     * Decode a value that is encoded as type name and String value. Used by
+     * JSON and {@link BinaryServer2ClientDecoder binary} encoding.
+     */
+    public static Object decodeTyped( String type, String value ) {
+        // String
+        if (type.equals( String.class.getName() )) {
+            return value;
+        }
+        // Integer
+        else if (type.equals( Integer.class.getName() )) {
+            return Integer.valueOf( value );
+        }
+        // Float
+        else if (type.equals( Float.class.getName() )) {
+            return Float.valueOf( value );
+        }
+        // Boolean
+        else if (type.equals( Boolean.class.getName() )) {
+            return Boolean.parseBoolean( value );
+        }
+        // Enum: Text.Format
+        else if (type.equals( Text.Format.class.getName() )) {
+            return Text.Format.valueOf( value );
+        }
+        // Enum: Button.Type
+        else if (type.equals( Button.Type.class.getName() )) {
+            return Button.Type.valueOf( value );
+        }
+        // Enum: Button.IconStyle
+        else if (type.equals( Button.IconStyle.class.getName() )) {
+            return Button.IconStyle.valueOf( value );
+        }
+        // Enum: TextField.Type
+        else if (type.equals( TextField.Type.class.getName() )) {
+            return TextField.Type.valueOf( value );
+        }
+        // Enum: DatePicker.DateTime
+        else if (type.equals( DatePicker.DateTime.class.getName() )) {
+            return DatePicker.DateTime.valueOf( value );
+        }
+        // Color
+        else if (type.equals( Color.class.getName() )) {
+            return Color.ofHex( value );
+        }
+        else {
+            throw new RuntimeException( "UNHANDLED: type = " + type );
         }
     }
 
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.rt.server.servlet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.google.gson.GsonBuilder;
+
+import areca.common.metrics.Counter;
+import areca.common.metrics.Gauge;
+import areca.common.metrics.Histogram;
+import areca.common.metrics.Metric;
+import areca.common.metrics.Metrics;
+
+/**
+ * Exports the {@link Metrics} registry in the Prometheus text format, or as JSON
+ * if requested via <code>?format=json</code> or <code>Accept: application/json</code>.
+ * <p>
+ * Not mapped by default; add a servlet mapping that is not public.
+ *
+ * @author Falko Bräutigam
+ */
+public class ArecaMetricsServlet
+        extends HttpServlet {
+
+    public static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    public static final String[] QUANTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+
+    @Override
+    protected void doGet( HttpServletRequest req, HttpServletResponse resp ) throws ServletException, IOException {
+        resp.setHeader( "Cache-Control", "no-store" );
+        resp.setCharacterEncoding( UTF_8.name() );
+        if ("json".equals( req.getParameter( "format" ) )
+                || StringUtils.contains( req.getHeader( "Accept" ), "application/json" )) {
+            resp.setContentType( "application/json" );
+            try (var out = resp.getWriter()) {
+                new GsonBuilder().setPrettyPrinting().create().toJson( json(), out );
+            }
+        }
+        else {
+            resp.setContentType( "text/plain; version=0.0.4" );
+            try (var out = resp.getWriter()) {
+                writePrometheus( out );
+            }
+        }
+    }
+
+
+    protected void writePrometheus( PrintWriter out ) {
+        for (var metric : Metrics.all()) {
+            out.append( "# HELP " ).append( metric.name ).append( ' ' ).append( metric.help ).append( '\n' );
+            out.append( "# TYPE " ).append( metric.name ).append( ' ' ).append( metric.type().name().toLowerCase() ).append( '\n' );
+            if (metric instanceof Counter) {
+                out.append( metric.name ).append( ' ' ).append( Long.toString( ((Counter)metric).get() ) ).append( '\n' );
+            }
+            else if (metric instanceof Gauge) {
+                out.append( metric.name ).append( ' ' ).append( format( ((Gauge)metric).get() ) ).append( '\n' );
+            }
+            else if (metric instanceof Histogram) {
+                var h = (Histogram)metric;
+                var cumulative = 0L;
+                for (int i = 0; i < Histogram.BUCKETS; i++) {
+                    var c = h.bucketCount( i );
+                    if (c > 0) {
+                        cumulative += c;
+                        out.append( metric.name ).append( "_bucket{le=\"" )
+                                .append( format( Histogram.bucketUpperBound( i ) * h.scale ) )
+                                .append( "\"} " ).append( Long.toString( cumulative ) ).append( '\n' );
+                    }
+                }
+                out.append( metric.name ).append( "_bucket{le=\"+Inf\"} " ).append( Long.toString( h.count() ) ).append( '\n' );
+                out.append( metric.name ).append( "_sum " ).append( format( h.sum() * h.scale ) ).append( '\n' );
+                out.append( metric.name ).append( "_count " ).append( Long.toString( h.count() ) ).append( '\n' );
+            }
+        }
+    }
+
+
+    protected Map<String,Object> json() {
+        var result = new LinkedHashMap<String,Object>();
+        for (var metric : Metrics.all()) {
+            var entry = new LinkedHashMap<String,Object>();
+            entry.put( "type", metric.type().name().toLowerCase() );
+            entry.put( "help", metric.help );
+            if (metric instanceof Counter) {
+                entry.put( "value", ((Counter)metric).get() );
+            }
+            else if (metric instanceof Gauge) {
+                entry.put( "value", ((Gauge)metric).get() );
+            }
+            else if (metric instanceof Histogram) {
+                var h = (Histogram)metric;
+                entry.put( "count", h.count() );
+                entry.put( "sum", h.sum() * h.scale );
+                entry.put( "max", h.max() * h.scale );
+                for (int i = 0; i < QUANTILES.length; i++) {
+                    entry.put( QUANTILE_NAMES[i], h.valueAt( QUANTILES[i] ) * h.scale );
+                }
+            }
+            result.put( metric.name, entry );
+        }
+        return result;
+    }
+
+
+    protected String format( double value ) {
+        return value == Math.rint( value ) && Math.abs( value ) < 1e15 ? Long.toString( (long)value ) : Double.toString( value );
+    }
+
+}
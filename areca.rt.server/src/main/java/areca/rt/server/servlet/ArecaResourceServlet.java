@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.rt.server.servlet;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+
+import areca.common.log.LogFactory;
+import areca.common.log.LogFactory.Log;
+
+/**
+ * Serves the resources of the {@link ResourceStore}: <code>GET .../&lt;hash&gt;</code>.
+ * The content of a hash never changes, so responses are cached by the browser
+ * without revalidation.
+ * <p>
+ * By default requests are delegated by {@link ArecaUIServer}
+ * ({@link ArecaUIServer#PARAM_RESOURCES_PATH}), no extra mapping needed.
+ *
+ * @author Falko Bräutigam
+ */
+public class ArecaResourceServlet
+        extends HttpServlet {
+
+    private static final Log LOG = LogFactory.getLog( ArecaResourceServlet.class );
+
+    public static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    /**
+     * Resources are (user supplied) data served from the app origin; an SVG opened
+     * directly must not run scripts or load anything.
+     */
+    public static final String CONTENT_SECURITY_POLICY = "default-src 'none'; style-src 'unsafe-inline'; sandbox";
+
+
+    @Override
+    protected void doGet( HttpServletRequest req, HttpServletResponse resp ) throws ServletException, IOException {
+        var hash = StringUtils.substringAfterLast( req.getPathInfo(), "/" );
+        var etag = "\"" + hash + "\"";
+
+        // same hash -> same content
+        if (etag.equals( req.getHeader( "If-None-Match" ) )) {
+            resp.setHeader( "Cache-Control", CACHE_CONTROL );
+            resp.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+            return;
+        }
+
+        var store = ResourceStore.instance();
+        var resource = store != null && !StringUtils.isEmpty( hash ) ? store.get( hash ) : null;
+        if (resource == null) {
+            LOG.warn( "No resource: %s", req.getPathInfo() );
+            resp.setStatus( HttpServletResponse.SC_NOT_FOUND );
+            return;
+        }
+        LOG.debug( "GET: %s (%s, %s bytes)", hash, resource.mimetype, resource.data.length );
+        resp.setHeader( "Cache-Control", CACHE_CONTROL );
+        resp.setHeader( "ETag", etag );
+        resp.setHeader( "X-Content-Type-Options", "nosniff" );
+        resp.setHeader( "Content-Security-Policy", CONTENT_SECURITY_POLICY );
+        resp.setContentType( resource.mimetype );
+        resp.setContentLength( resource.data.length );
+        try (var out = resp.getOutputStream()) {
+            out.write( resource.data );
+        }
+    }
+
+}
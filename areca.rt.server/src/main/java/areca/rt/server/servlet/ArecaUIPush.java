@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.rt.server.servlet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpSession;
+import javax.websocket.CloseReason;
+import javax.websocket.CloseReason.CloseCodes;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.HandshakeResponse;
+import javax.websocket.MessageHandler;
+import javax.websocket.server.HandshakeRequest;
+import javax.websocket.server.ServerContainer;
+import javax.websocket.server.ServerEndpointConfig;
+
+import com.google.gson.Gson;
+
+import areca.common.Session;
+import areca.common.Timer;
+import areca.common.log.LogFactory;
+import areca.common.log.LogFactory.Log;
+import areca.rt.server.EventLoop;
+import areca.rt.server.EventLoop3;
+
+/**
+ * Persistent push channel (WebSocket) of one client session. Render events are
+ * sent as soon as the {@link EventLoop3} has produced them, including the results
+ * of background work ({@link areca.rt.server.ServerPlatform#xhr(String, String) xhr},
+ * delayed tasks) without the client polling. Client events are received on the
+ * same channel.
+ * <p>
+ * The client starts with the HTTP requests of {@link ArecaUIServer} (session start,
+ * createUI()) and switches to the push channel with its first message. If the
+ * channel cannot be opened or is closed, then the client falls back to
+ * HTTP polling.
+ *
+ * @author Falko Bräutigam
+ */
+public class ArecaUIPush
+        extends Endpoint {
+
+    private static final Log LOG = LogFactory.getLog( ArecaUIPush.class );
+
+    /**
+     * Registers the endpoint with the WebSocket container of the given context.
+     *
+     * @return False if there is no WebSocket container.
+     */
+    static boolean start( ArecaUIServer server, ServletContext context, String path ) {
+        var container = (ServerContainer)context.getAttribute( ServerContainer.class.getName() );
+        if (container == null) {
+            return false;
+        }
+        try {
+            container.addEndpoint( ServerEndpointConfig.Builder.create( ArecaUIPush.class, path )
+                    .configurator( new ServerEndpointConfig.Configurator() {
+                        @Override
+                        public void modifyHandshake( ServerEndpointConfig sec, HandshakeRequest request, HandshakeResponse response ) {
+                            var httpSession = request.getHttpSession();
+                            if (httpSession != null) {
+                                sec.getUserProperties().put( HttpSession.class.getName(), httpSession );
+                            }
+                        }
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public <T> T getEndpointInstance( Class<T> endpointClass ) {
+                            return (T)new ArecaUIPush( server );
+                        }
+                    })
+                    .build() );
+            return true;
+        }
+        catch (Exception e) {
+            LOG.warn( "Unable to register push endpoint: " + path, e );
+            return false;
+        }
+    }
+
+    // instance *******************************************
+
+    private ArecaUIServer               server;
+
+    private Gson                        gson = new Gson();
+
+    private javax.websocket.Session     ws;
+
+    private HttpSession                 httpSession;
+
+    private Session                     session;
+
+    private EventLoop                   eventLoop;
+
+    private UIEventCollector            collector;
+
+    private BinaryServer2ClientMessage  encoder;
+
+    /** Set after the first client message; the client does not poll anymore. */
+    private volatile boolean            active;
+
+
+    protected ArecaUIPush( ArecaUIServer server ) {
+        this.server = server;
+    }
+
+
+    @Override
+    public void onOpen( javax.websocket.Session _ws, EndpointConfig config ) {
+        this.ws = _ws;
+        this.httpSession = (HttpSession)config.getUserProperties().get( HttpSession.class.getName() );
+        this.session = httpSession != null ? (Session)httpSession.getAttribute( ArecaUIServer.ATTR_SESSION ) : null;
+        if (session == null) {
+            LOG.warn( "Push: no session" );
+            close( CloseCodes.CANNOT_ACCEPT, "No session" );
+            return;
+        }
+        ArecaUIServer.sessionScope.bind( session, __ -> {
+            eventLoop = __._instanceOf( EventLoop.class );
+            collector = __._instanceOf( UIEventCollector.class );
+        });
+        encoder = (BinaryServer2ClientMessage)httpSession.getAttribute( ArecaUIServer.ATTR_ENCODER );
+        ws.addMessageHandler( String.class, new MessageHandler.Whole<String>() {
+            @Override
+            public void onMessage( String json ) {
+                onClientMessage( json );
+            }
+        });
+        LOG.info( "Push: open (%s)", encoder != null ? "binary" : "JSON" );
+    }
+
+
+    @Override
+    public void onClose( javax.websocket.Session _ws, CloseReason reason ) {
+        LOG.info( "Push: closed (%s)", reason );
+        if (active) {
+            active = false;
+            synchronized (session) {
+                if (httpSession.getAttribute( ArecaUIServer.ATTR_PUSH ) == this) {
+                    httpSession.removeAttribute( ArecaUIServer.ATTR_PUSH );
+                }
+            }
+        }
+    }
+
+
+    @Override
+    public void onError( javax.websocket.Session _ws, Throwable e ) {
+        LOG.warn( "Push: " + e, e );
+    }
+
+
+    protected void onClientMessage( String json ) {
+        var msg = gson.fromJson( json, JsonClient2ServerMessage.class );
+        LOG.debug( "Received: %s events", msg.events != null ? msg.events.size() : 0 );
+        synchronized (session) {
+            if (!active) {
+                active = true;
+                httpSession.setAttribute( ArecaUIServer.ATTR_PUSH, this );
+            }
+            // always enqueue: the run sends what is pending
+            server.sessions.touch( httpSession, msg.events != null && !msg.events.isEmpty() );
+            server.enqueueClientEvents( msg, eventLoop, collector, httpSession );
+        }
+    }
+
+
+    /**
+     * Sends the pending render events. Called by the {@link EventLoop3} after every
+     * run, in the context of the session.
+     */
+    protected void send() {
+        if (!active || !ws.isOpen() || collector.pendingCount() == 0) {
+            return;
+        }
+        try {
+            var t = Timer.start();
+            var out = new ByteArrayOutputStream( 4096 );
+            var c = server.writeRenderEvents( eventLoop, collector, encoder, out );
+            // always send: the message has a sequence number
+            if (encoder != null) {
+                ws.getBasicRemote().sendBinary( ByteBuffer.wrap( out.toByteArray() ) );
+                encoder.commit();
+            }
+            else {
+                ws.getBasicRemote().sendText( new String( out.toByteArray(), UTF_8 ) );
+            }
+            LOG.info( "Pushed: %s render events, %s bytes (%s)", c, out.size(), t );
+        }
+        catch (IOException e) {
+            LOG.warn( "Push: " + e );
+            close( CloseCodes.UNEXPECTED_CONDITION, e.getMessage() );
+        }
+        finally {
+            if (encoder != null) {
+                encoder.rollback(); // no-op if sent
+            }
+        }
+    }
+
+
+    protected boolean isOpen() {
+        return active && ws.isOpen();
+    }
+
+
+    protected void close( CloseCodes code, String reason ) {
+        try {
+            ws.close( new CloseReason( code, reason ) );
+        }
+        catch (IOException e) {
+            LOG.warn( "Push: " + e );
+        }
+    }
+
+}
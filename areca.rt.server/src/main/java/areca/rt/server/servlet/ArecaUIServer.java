@@ -16,23 +16,35 @@ package areca.rt.server.servlet;
 import static java.lang.Integer.parseInt;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import java.util.Collections;
 import java.util.LinkedList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import java.io.ByteArrayInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.nio.file.Path;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
+import javax.websocket.CloseReason.CloseCodes;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import com.google.gson.Gson;
@@ -47,9 +59,14 @@ import areca.common.Timer;
 import areca.common.base.Opt;
 import areca.common.base.Sequence;
 import areca.common.event.EventManager;
+import areca.common.log.ConsoleAppender;
 import areca.common.log.LogFactory;
 import areca.common.log.LogFactory.Log;
+import areca.common.metrics.Histogram;
+import areca.common.metrics.Metrics;
+import areca.rt.server.AsyncLogAppender;
 import areca.rt.server.EventLoop;
+import areca.rt.server.EventLoop3;
 import areca.rt.server.ServerApp;
 import areca.rt.server.ServerBrowserHistoryStrategy.BrowserHistoryEvent;
 import areca.ui.Position;
@@ -60,6 +77,7 @@ import areca.ui.component2.Events.EventType;
 import areca.ui.component2.Events.UIEvent;
 import areca.ui.component2.FileUpload;
 import areca.ui.component2.IFrame.IFrameMsgEvent;
+import areca.ui.component2.ScrollableComposite;
 import areca.ui.component2.Select;
 import areca.ui.component2.TextField;
 import areca.ui.component2.UIComponent;
@@ -71,15 +89,76 @@ import areca.ui.component2.UIComponent;
 public class ArecaUIServer
         extends HttpServlet {
 
-    private static final String ATTR_SESSION = "areca.session";
-    private static final String ATTR_UPLOADED = "areca.uploaded";
+    static final String ATTR_SESSION = "areca.session";
+    static final String ATTR_UPLOADS = "areca.uploads";
+    static final String ATTR_ENCODER = "areca.encoder";
+    static final String ATTR_PENDING = "areca.pending";
+    static final String ATTR_PUSH = "areca.push";
+    static final String ATTR_MONITOR = "areca.monitor";
+    static final String ATTR_HIBERNATED = "areca.hibernated";
+
+    /** Init parameter: path of the {@link ArecaUIPush} endpoint, or "none" */
+    public static final String PARAM_PUSH_PATH = "areca.push.path";
+
+    /**
+     * Init parameter: path of the {@link ArecaResourceServlet}, or "none" to send
+     * images inline (Base64). Default: the mapping of this servlet + "/res/".
+     */
+    public static final String PARAM_RESOURCES_PATH = "areca.resources.path";
+
+    /** Sub path of the default {@link ArecaResourceServlet} of this servlet. */
+    public static final String RESOURCES_PATH = "/res/";
+
+    /** Init parameter: directory of the {@link UploadSpool} files. Default: java.io.tmpdir */
+    public static final String PARAM_UPLOAD_DIR = "areca.upload.dir";
+
+    /** Init parameter: max size of a {@link FileUpload} in bytes. */
+    public static final String PARAM_UPLOAD_MAX_SIZE = "areca.upload.maxSize";
+
+    public static final long DEFAULT_UPLOAD_MAX_SIZE = 100 * 1024 * 1024;
+
+    /** Init parameter: seconds after which a not accessed session is evicted; 0: never */
+    public static final String PARAM_SESSION_IDLE_TIMEOUT = "areca.session.idleTimeout";
+
+    public static final int DEFAULT_SESSION_IDLE_TIMEOUT = 10 * 60;
+
+    /**
+     * Init parameter: max estimated heap of all sessions in bytes; 0: unbounded.
+     * Default: half of the max heap.
+     */
+    public static final String PARAM_SESSION_MAX_MEMORY = "areca.session.maxMemory";
+
+    /** Init parameter: class name of a {@link SessionMonitor.Hibernator} */
+    public static final String PARAM_SESSION_HIBERNATOR = "areca.session.hibernator";
+
+    /** Interval of {@link SessionMonitor#sweep()} */
+    public static final int SESSION_SWEEP_INTERVAL = 30;
+
+    /** Init parameter: log via {@link AsyncLogAppender} (default: true) */
+    public static final String PARAM_LOG_ASYNC = "areca.log.async";
+
+    /** Init parameter: add ANSI color codes to log messages (default: true) */
+    public static final String PARAM_LOG_COLORS = "areca.log.colors";
+
+    /** Max time a polling request waits for render events. */
+    public static final int POLL_TIMEOUT = 30000;
 
     private static final Log LOG = LogFactory.getLog( ArecaUIServer.class );
 
+    private static final Histogram REQUEST_TIME = Metrics.timer( "areca_http_request_seconds", "Time from receiving a request until its response is sent, including polling wait" );
+
+    private static final Histogram RESPONSE_BYTES = Metrics.histogram( "areca_ui_response_bytes", "Bytes of the render events per response/push message" );
+
+    /** Request attribute: {@link System#nanoTime()} when the request was received */
+    private static final String ATTR_REQUEST_START = "areca.requestStart";
+
     /** The HTTP request of (accessible in) the current EventLoop */
     public static ThreadLocal<Request> currentRequest = new ThreadLocal<>();
 
-    private static ThreadBoundSessionScoper sessionScope = new ThreadBoundSessionScoper();
+    static ThreadBoundSessionScoper sessionScope = new ThreadBoundSessionScoper();
+
+    /** Executes the {@link EventLoop3} of all sessions. */
+    private static ScheduledExecutorService executor;
 
     private Class<ServerApp> appClass;
 
@@ -87,6 +166,14 @@ public class ArecaUIServer
 
     private Gson notPretty = new GsonBuilder().create();
 
+    private ArecaResourceServlet resources = new ArecaResourceServlet();
+
+    private Path uploadDir;
+
+    private long uploadMaxSize;
+
+    SessionMonitor sessions;
+
 
     @Override
     @SuppressWarnings({"unchecked", "deprecation"})
@@ -94,6 +181,7 @@ public class ArecaUIServer
         try {
             // servlet needs <load-on-startup>1</load-on-startup> if other servlets
             SessionScoper.setInstance( sessionScope );
+            initLog();
             LOG.warn( "Session scope: %s", ThreadBoundSessionScoper.instance().getClass().getSimpleName() );
 
             appClass = Opt.of( getServletConfig().getInitParameter( "areca.appclass" ) )
@@ -118,6 +206,23 @@ public class ArecaUIServer
             }
 
             Session.registerFactory( ServerApp.class, () -> appClass.newInstance() );
+
+            var count = new AtomicInteger();
+            executor = Executors.newScheduledThreadPool( Runtime.getRuntime().availableProcessors(), r -> {
+                var thread = new Thread( r, "EventLoop-" + count.incrementAndGet() );
+                thread.setDaemon( true );
+                return thread;
+            });
+
+            initPush();
+            initResources();
+
+            uploadDir = Path.of( Opt.of( getServletConfig().getInitParameter( PARAM_UPLOAD_DIR ) )
+                    .orElse( System.getProperty( "java.io.tmpdir" ) + "/areca-uploads" ) );
+            uploadMaxSize = Opt.of( getServletConfig().getInitParameter( PARAM_UPLOAD_MAX_SIZE ) )
+                    .map( v -> Long.parseLong( v ) ).orElse( DEFAULT_UPLOAD_MAX_SIZE );
+
+            initSessionMonitor();
         }
         catch (Exception e) {
             e.printStackTrace();
@@ -126,8 +231,100 @@ public class ArecaUIServer
     }
 
 
+    /**
+     * Installs the {@link LogFactory#appender} as configured by {@link #PARAM_LOG_ASYNC}
+     * and {@link #PARAM_LOG_COLORS}.
+     */
+    protected void initLog() {
+        var config = getServletConfig();
+        var async = Opt.of( config.getInitParameter( PARAM_LOG_ASYNC ) ).map( v -> Boolean.parseBoolean( v ) ).orElse( true );
+        var colors = Opt.of( config.getInitParameter( PARAM_LOG_COLORS ) ).map( v -> Boolean.parseBoolean( v ) ).orElse( true );
+        LogFactory.appender = async
+                ? new AsyncLogAppender( AsyncLogAppender.DEFAULT_CAPACITY, colors )
+                : new ConsoleAppender( colors );
+    }
+
+
+    /**
+     * Registers the {@link ArecaUIPush} endpoint. Default path is the mapping of
+     * this servlet + "/push", which is what the client expects.
+     */
+    protected void initPush() {
+        var path = getServletConfig().getInitParameter( PARAM_PUSH_PATH );
+        if (path == null) {
+            var registration = getServletContext().getServletRegistration( getServletName() );
+            path = Sequence.of( registration != null ? registration.getMappings() : Collections.<String>emptyList() )
+                    .first().map( mapping -> StringUtils.removeEnd( mapping, "/*" ) + "/push" ).orNull();
+        }
+        if (path == null || path.equals( "none" )) {
+            LOG.info( "Push: disabled" );
+        }
+        else if (ArecaUIPush.start( this, getServletContext(), path )) {
+            LOG.info( "Push: %s", path );
+        }
+        else {
+            LOG.warn( "Push: no WebSocket container, falling back to polling" );
+        }
+    }
+
+
+    /**
+     * Initializes the {@link ResourceStore}. By default its resources are served
+     * by this servlet via {@link #RESOURCES_PATH}.
+     */
+    protected void initResources() {
+        var path = getServletConfig().getInitParameter( PARAM_RESOURCES_PATH );
+        if (path == null) {
+            var registration = getServletContext().getServletRegistration( getServletName() );
+            path = Sequence.of( registration != null ? registration.getMappings() : Collections.<String>emptyList() )
+                    .first().map( mapping -> getServletContext().getContextPath()
+                            + StringUtils.removeEnd( mapping, "/*" ) + RESOURCES_PATH ).orNull();
+        }
+        if (path == null || path.equals( "none" )) {
+            LOG.info( "Resources: inline" );
+        }
+        else {
+            ResourceStore.instance = new ResourceStore( path, ResourceStore.DEFAULT_MAX_BYTES );
+            LOG.info( "Resources: %s", path );
+        }
+    }
+
+
+    /**
+     * Initializes the {@link SessionMonitor} and schedules its {@link SessionMonitor#sweep()}.
+     */
+    @SuppressWarnings("deprecation")
+    protected void initSessionMonitor() throws Exception {
+        var config = getServletConfig();
+        var idleTimeout = Opt.of( config.getInitParameter( PARAM_SESSION_IDLE_TIMEOUT ) )
+                .map( v -> Long.parseLong( v ) ).orElse( (long)DEFAULT_SESSION_IDLE_TIMEOUT );
+        var maxMemory = Opt.of( config.getInitParameter( PARAM_SESSION_MAX_MEMORY ) )
+                .map( v -> Long.parseLong( v ) ).orElse( Runtime.getRuntime().maxMemory() / 2 );
+        sessions = new SessionMonitor( idleTimeout * 1000, maxMemory );
+
+        var hibernator = config.getInitParameter( PARAM_SESSION_HIBERNATOR );
+        if (hibernator != null) {
+            sessions.setHibernator( (SessionMonitor.Hibernator)Class.forName( hibernator ).newInstance() );
+        }
+        executor.scheduleWithFixedDelay( () -> {
+            try {
+                sessions.sweep();
+            }
+            catch (Throwable e) {
+                LOG.warn( "Session sweep: " + e, e );
+            }
+        }, SESSION_SWEEP_INTERVAL, SESSION_SWEEP_INTERVAL, TimeUnit.SECONDS );
+        LOG.info( "Sessions: idle timeout: %ss, max memory: %s MB, hibernator: %s", idleTimeout, maxMemory / 1024 / 1024, hibernator );
+    }
+
+
     @Override
     public void destroy() {
+        ResourceStore.instance = null;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
         try {
             if (appClass != null) {
                 // find/call all static dispose()
@@ -141,6 +338,11 @@ public class ArecaUIServer
         catch (Exception e) {
             LOG.warn( "Error during destroy()", e );
         }
+        if (LogFactory.appender instanceof AsyncLogAppender) {
+            var async = (AsyncLogAppender)LogFactory.appender;
+            LogFactory.appender = new ConsoleAppender( async.colors() );
+            async.close();
+        }
     }
 
 
@@ -152,20 +354,38 @@ public class ArecaUIServer
         if (startSession) {
             synchronized (httpSession) {
                 session = (Session)httpSession.getAttribute( ATTR_SESSION );
+                // the push channel of the previous session
+                var push = (ArecaUIPush)httpSession.getAttribute( ATTR_PUSH );
+                if (push != null) {
+                    httpSession.removeAttribute( ATTR_PUSH );
+                    push.close( CloseCodes.GOING_AWAY, "Session restarted" );
+                }
                 if (session != null) {
                     LOG.info( "Session: DISPOSE" );
+                    session._instanceOf( EventLoop3.class ).dispose();
                     session.dispose();
                 }
                 LOG.info( "Session: START" );
-                session = new Session();
+                var newSession = session = new Session();
                 httpSession.setAttribute( ATTR_SESSION, session );
+                httpSession.removeAttribute( ATTR_PENDING );
 
                 sessionScope.bind( session, __ -> {
-                    Session.setInstance( new UIEventCollector() ).start();
+                    var collector = Session.setInstance( new UIEventCollector() );
+                    collector.start();
 
-                    Session.setInstance( EventLoop.create() ).enqueue( "createUI()", () -> {
-                        Session.instanceOf( ServerApp.class ).createUI();
+                    var eventLoop = Session.setInstance( new EventLoop3( executor, run -> {
+                        synchronized (newSession) {
+                            sessionScope.bind( newSession, ___ -> run.run() );
+                        }
+                    }));
+                    eventLoop.afterExecute( () -> afterExecute( httpSession, newSession, eventLoop, collector ) );
+                    eventLoop.enqueue( "createUI()", () -> {
+                        if (!sessions.restore( httpSession, newSession )) {
+                            Session.instanceOf( ServerApp.class ).createUI();
+                        }
                     }, 0 );
+                    sessions.register( httpSession, newSession, eventLoop, collector );
                 });
             }
         }
@@ -173,9 +393,13 @@ public class ArecaUIServer
     }
 
 
-    /** Just testing with curl. */
+    /** {@link ArecaResourceServlet} resources, or just testing with curl. */
     @Override
     protected void doGet( HttpServletRequest req, HttpServletResponse resp ) throws ServletException, IOException {
+        if (StringUtils.startsWith( req.getPathInfo(), RESOURCES_PATH )) {
+            resources.doGet( req, resp );
+            return;
+        }
         doPost( req, resp );
     }
 
@@ -185,6 +409,7 @@ public class ArecaUIServer
         try {
             LOG.info( "---------" );
             var t = Timer.start();
+            request.setAttribute( ATTR_REQUEST_START, System.nanoTime() );
 
             // request: handle click events
             var _msg = (JsonClient2ServerMessage)null;
@@ -196,151 +421,365 @@ public class ArecaUIServer
 
             // check/init session
             var httpSession = request.getSession( true );
-            var session = checkInitSession( httpSession, msg != null ? msg.startSession : true );
-
-            sessionScope.bind( session, __ -> {
-                Assert.isSame( __, Session.current() );
-                var eventLoop = __._instanceOf( EventLoop.class );
-                var collector = __._instanceOf( UIEventCollector.class );
-
-                // request: handle click events
-                if (msg != null) {
-                    eventLoop.enqueue( "client event", () -> {
-                        for (var event : msg.events) {
-                            // resize
-                            if (event.eventType.equals( "resize" )) {
-                                LOG.info( "RESIZE: %s", event.content );
-                                var parts = StringUtils.split( event.content, ":" );
-                                var size = Size.of( parseInt( parts[0] ), parseInt( parts[1] ) );
-                                var component = event.componentId == 0
-                                        ? collector.rootWindow()
-                                        : collector.componentForId( event.componentId ).orElseError();
-                                component.size.set( size );
-                            }
-                            // BrowsertHistory
-                            else if (event.eventType.startsWith( "BrowserHistory" )) {
-                                LOG.debug( "BrowserHistory: %s", event.content );
-                                EventManager.instance().publish( new BrowserHistoryEvent( "popstate", event.content ) );
-                            }
-                            // IFrame
-                            else if (event.eventType.startsWith( "IFrame" )) {
-                                LOG.debug( "IFrame: %s : %s", event.eventType, event.content );
-                                EventManager.instance().publish( new IFrameMsgEvent( event.content ) );
-                            }
-                            // click, text, upload ...
-                            else {
-                                var component = collector.componentForId( event.componentId ).orNull();
-                                if (component == null) {
-                                    LOG.warn( "No component for id: %s, %s, %s", event.componentId, event.eventType, event.content );
-                                    continue;
-                                }
-                                var eventType = EventType.valueOf( event.eventType );
-                                if (component instanceof TextField) {
-                                    Assert.isEqual( EventType.TEXT, eventType );
-                                    ((TextField)component).content.rawSet( event.content );
-                                }
-                                else if (component instanceof ColorPicker) {
-                                    Assert.isEqual( EventType.TEXT, eventType );
-                                    ((ColorPicker)component).value.rawSet( event.content );
-                                }
-                                else if (component instanceof DatePicker) {
-                                    Assert.isEqual( EventType.TEXT, eventType );
-                                    ((DatePicker)component).value.rawSet( event.content );
-                                }
-                                else if (component instanceof Select) {
-                                    Assert.isEqual( EventType.TEXT, eventType );
-                                    ((Select)component).value.rawSet( event.content );
-                                }
-                                else if (component instanceof FileUpload) {
-                                    Assert.isEqual( EventType.UPLOAD, eventType );
-
-                                    var file = (FileUpload.File)httpSession.getAttribute( ATTR_UPLOADED );
-                                    Assert.notNull( file, "No such uploaded file: " + event.content );
-                                    Assert.isEqual( file.name(), event.content, "Uploaded file and name in event do not match." );
-
-                                    ((FileUpload)component).data.rawSet( file );
-                                    httpSession.removeAttribute( ATTR_UPLOADED );
-                                }
+            var startSession = msg != null ? msg.startSession : true;
+            if (!startSession && httpSession.getAttribute( ATTR_SESSION ) == null) {
+                LOG.info( "Session: GONE (evicted)" );
+                response.setStatus( HttpServletResponse.SC_GONE );
+                return;
+            }
+            var session = checkInitSession( httpSession, startSession );
+            sessions.touch( httpSession, msg != null && msg.events != null && !msg.events.isEmpty() );
+            if (startSession) {
+                if (msg != null && BinaryServer2ClientMessage.ENCODING.equals( msg.encoding )) {
+                    httpSession.setAttribute( ATTR_ENCODER, new BinaryServer2ClientMessage() );
+                }
+                else {
+                    httpSession.removeAttribute( ATTR_ENCODER );
+                }
+            }
+            var encoder = (BinaryServer2ClientMessage)httpSession.getAttribute( ATTR_ENCODER );
 
-                                component.events.values()
-                                        .filter( handler -> handler.type.equals( eventType ) )
-                                        .forEach( handler -> {
-                                            // RuntimeException are catched by EventHandler.defaultErrorHandler
-                                            handler.consumer.accept( new ServerUIEvent( component, eventType ) );
+            synchronized (session) {
+                sessionScope.bind( session, __ -> {
+                    Assert.isSame( __, Session.current() );
+                    var eventLoop = __._instanceOf( EventLoop.class );
+                    var collector = __._instanceOf( UIEventCollector.class );
+
+                    // request: handle click events (executed by the EventLoop3 thread)
+                    if (msg != null) {
+                        enqueueClientEvents( msg, eventLoop, collector, httpSession );
+                    }
+
+                    // response: immediately, or when the EventLoop3 has done its work
+                    response.setBufferSize( 8*1024 );
+                    if (isResponseReady( eventLoop, collector )) {
+                        writeResponse( request, response, eventLoop, collector, encoder );
+                        LOG.info( "Sent: immediately (%s)", t );
+                    }
+                    else if (request.isAsyncSupported()) {
+                        var async = request.startAsync();
+                        async.setTimeout( POLL_TIMEOUT );
+                        async.addListener( new AsyncListener() {
+                            @Override public void onTimeout( AsyncEvent ev ) throws IOException {
+                                synchronized (session) {
+                                    if (httpSession.getAttribute( ATTR_PENDING ) == async) {
+                                        httpSession.removeAttribute( ATTR_PENDING );
+                                        sessionScope.bind( session, ___ -> {
+                                            writeResponse( request, response, eventLoop, collector, encoder );
                                         });
+                                        async.complete();
+                                    }
+                                }
                             }
+                            @Override public void onComplete( AsyncEvent ev ) { }
+                            @Override public void onError( AsyncEvent ev ) { }
+                            @Override public void onStartAsync( AsyncEvent ev ) { }
+                        });
+                        // replace (should not happen)
+                        var previous = (AsyncContext)httpSession.getAttribute( ATTR_PENDING );
+                        if (previous != null) {
+                            LOG.warn( "Pending request: replaced" );
+                            previous.complete();
                         }
-                    }, 0 );
-                }
+                        httpSession.setAttribute( ATTR_PENDING, async );
+                    }
+                    // no async support: block the request thread
+                    else {
+                        while (!isResponseReady( eventLoop, collector )) {
+                            session.wait( POLL_TIMEOUT );
+                        }
+                        writeResponse( request, response, eventLoop, collector, encoder );
+                        LOG.info( "Sent: after wait (%s)", t );
+                    }
+                });
+            }
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
 
-                // response
-                response.setBufferSize( 8*1024 );
-                response.setCharacterEncoding( "UTF-8" );
 
-                var c = new MutableInt();
-                try (var out = response.getWriter()) {
-                    out.write( "{\n  \"uiEvents\": [\n" );
+    /**
+     * The response to a polling request can be sent if there are render events or
+     * the {@link EventLoop} has nothing to do.
+     */
+    protected boolean isResponseReady( EventLoop eventLoop, UIEventCollector collector ) {
+        return collector.pendingCount() > 0 || eventLoop.pendingWait() == -1;
+    }
 
-                    collector.sink( ev -> {
-                        out.write( c.getAndIncrement() == 0 ? "" : ",\n" );
-                        gson.toJson( Assert.notNull( ev ), out );
-                    });
 
-                    currentRequest.set( new Request( request, response ) );
+    /**
+     * Called by the {@link EventLoop3} after every run, in the context of the session:
+     * sends the render events via the {@link ArecaUIPush push} channel or the pending
+     * polling request.
+     */
+    protected void afterExecute( HttpSession httpSession, Session session, EventLoop eventLoop, UIEventCollector collector ) {
+        session.notifyAll();  // no async support: blocked request
 
-                    // eventloop
-                    eventLoop.execute( () -> c.intValue() > 0 );
+        var push = (ArecaUIPush)httpSession.getAttribute( ATTR_PUSH );
+        if (push != null) {
+            push.send();
+        }
+        var async = (AsyncContext)httpSession.getAttribute( ATTR_PENDING );
+        if (async != null && isResponseReady( eventLoop, collector )) {
+            httpSession.removeAttribute( ATTR_PENDING );
+            try {
+                var encoder = (BinaryServer2ClientMessage)httpSession.getAttribute( ATTR_ENCODER );
+                writeResponse( (HttpServletRequest)async.getRequest(), (HttpServletResponse)async.getResponse(),
+                        eventLoop, collector, encoder );
+            }
+            catch (IOException e) {
+                LOG.warn( "Pending request: " + e );
+            }
+            finally {
+                async.complete();
+            }
+        }
+    }
 
-                    // immediately send next request, and then wait until something is available
-                    var pendingWait = eventLoop.pendingWait();
-                    pendingWait = pendingWait == EventLoop.POLLING_TIMEOUT ? 0 : pendingWait;
 
-                    out.write( String.format( "\n  ],\n  \"pendingWait\": %s\n}", pendingWait ) );
+    protected void writeResponse( HttpServletRequest request, HttpServletResponse response, EventLoop eventLoop,
+            UIEventCollector collector, BinaryServer2ClientMessage encoder ) throws IOException {
+        if (encoder != null) {
+            response.setContentType( "application/octet-stream" );
+        }
+        else {
+            response.setCharacterEncoding( "UTF-8" );
+        }
+        currentRequest.set( new Request( request, response ) );
+        try {
+            try (var out = response.getOutputStream()) {
+                var c = writeRenderEvents( eventLoop, collector, encoder, out );
+                LOG.info( "Sent: %s render events", c );
+            }
+            if (encoder != null) {
+                encoder.commit();
+            }
+        }
+        finally {
+            if (encoder != null) {
+                encoder.rollback();
+            }
+            currentRequest.set( null );
+            var start = (Long)request.getAttribute( ATTR_REQUEST_START );
+            if (start != null) {
+                REQUEST_TIME.recordSince( start );
+            }
+        }
+    }
+
+
+    /**
+     * Enqueues the handling of the events of the given client message.
+     */
+    protected void enqueueClientEvents( JsonClient2ServerMessage msg, EventLoop eventLoop,
+            UIEventCollector collector, HttpSession httpSession ) {
+        eventLoop.enqueue( "client event", () -> {
+            for (var event : msg.events) {
+                // resize
+                if (event.eventType.equals( "resize" )) {
+                    LOG.info( "RESIZE: %s", event.content );
+                    var parts = StringUtils.split( event.content, ":" );
+                    var size = Size.of( parseInt( parts[0] ), parseInt( parts[1] ) );
+                    var component = event.componentId == 0
+                            ? collector.rootWindow()
+                            : collector.componentForId( event.componentId ).orElseError();
+                    component.size.set( size );
                 }
-                finally {
-                    collector.sink( null );
-                    currentRequest.set( null );
+                // scroll: the windowed viewers depend on the scroll position
+                else if (event.eventType.equals( "scroll" )) {
+                    LOG.debug( "SCROLL: %s", event.content );
+                    var component = collector.componentForId( event.componentId ).orNull();
+                    if (!(component instanceof ScrollableComposite)) {
+                        LOG.warn( "No scrollable for id: %s", event.componentId );
+                        continue;
+                    }
+                    var scrollable = (ScrollableComposite)component;
+                    var parts = StringUtils.split( event.content, ":" );
+                    scrollable.scrollLeft.set( parseInt( parts[0] ) );
+                    scrollable.scrollTop.set( parseInt( parts[1] ) );
+                    // the client already has the position
+                    collector.discard( scrollable.scrollLeft );
+                    collector.discard( scrollable.scrollTop );
                 }
-                LOG.info( "Sent: %s render events (%s)", c.getValue(), t );
-            });
+                // BrowsertHistory
+                else if (event.eventType.startsWith( "BrowserHistory" )) {
+                    LOG.debug( "BrowserHistory: %s", event.content );
+                    EventManager.instance().publish( new BrowserHistoryEvent( "popstate", event.content ) );
+                }
+                // IFrame
+                else if (event.eventType.startsWith( "IFrame" )) {
+                    LOG.debug( "IFrame: %s : %s", event.eventType, event.content );
+                    EventManager.instance().publish( new IFrameMsgEvent( event.content ) );
+                }
+                // click, text, upload ...
+                else {
+                    var component = collector.componentForId( event.componentId ).orNull();
+                    if (component == null) {
+                        LOG.warn( "No component for id: %s, %s, %s", event.componentId, event.eventType, event.content );
+                        continue;
+                    }
+                    var eventType = EventType.valueOf( event.eventType );
+                    if (component instanceof TextField) {
+                        Assert.isEqual( EventType.TEXT, eventType );
+                        ((TextField)component).content.rawSet( event.content );
+                    }
+                    else if (component instanceof ColorPicker) {
+                        Assert.isEqual( EventType.TEXT, eventType );
+                        ((ColorPicker)component).value.rawSet( event.content );
+                    }
+                    else if (component instanceof DatePicker) {
+                        Assert.isEqual( EventType.TEXT, eventType );
+                        ((DatePicker)component).value.rawSet( event.content );
+                    }
+                    else if (component instanceof Select) {
+                        Assert.isEqual( EventType.TEXT, eventType );
+                        ((Select)component).value.rawSet( event.content );
+                    }
+                    else if (component instanceof FileUpload) {
+                        Assert.isEqual( EventType.UPLOAD, eventType );
+
+                        var spool = UploadSpool.of( httpSession, uploadDir, uploadMaxSize );
+                        var file = spool.claim( event.content );
+                        if (file == null) {
+                            // PUT rejected (size) or spool already cleaned
+                            LOG.warn( "No such upload: %s", event.content );
+                            continue;
+                        }
+                        ((FileUpload)component).data.opt()
+                                .matches( previous -> previous instanceof UploadSpool.SpooledFile )
+                                .ifPresent( previous -> spool.delete( (UploadSpool.SpooledFile)previous ) );
+                        ((FileUpload)component).data.rawSet( file );
+                    }
+
+                    component.events.values()
+                            .filter( handler -> handler.type.equals( eventType ) )
+                            .forEach( handler -> {
+                                // RuntimeException are catched by EventHandler.defaultErrorHandler
+                                handler.consumer.accept( new ServerUIEvent( component, eventType ) );
+                            });
+                }
+            }
+        }, 0 );
+    }
+
+
+    /**
+     * Writes the (coalesced) render events collected so far to the given stream.
+     * Used by the HTTP request and the {@link ArecaUIPush push} channel.
+     *
+     * @param encoder The binary encoder of the session, or null for JSON.
+     * @return The number of render events written.
+     */
+    protected int writeRenderEvents( EventLoop eventLoop, UIEventCollector collector, BinaryServer2ClientMessage encoder,
+            OutputStream _out ) throws IOException {
+        var c = new MutableInt();
+        var out = new CountingOutputStream( _out );
+        try {
+            var seq = collector.nextSequence();
+            // binary
+            if (encoder != null) {
+                encoder.start( out, seq );
+                collector.sink( ev -> {
+                    c.getAndIncrement();
+                    try {
+                        encoder.write( Assert.notNull( ev ) );
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException( e );
+                    }
+                });
+                collector.flush();
+                encoder.end( pendingWait( eventLoop ) );
+            }
+            // JSON
+            else {
+                var writer = new PrintWriter( new OutputStreamWriter( out, UTF_8 ) );
+                writer.write( String.format( "{\n  \"seq\": %s,\n  \"uiEvents\": [\n", seq ) );
+                collector.sink( ev -> {
+                    writer.write( c.getAndIncrement() == 0 ? "" : ",\n" );
+                    notPretty.toJson( Assert.notNull( ev ), writer );
+                });
+                collector.flush();
+                writer.write( String.format( "\n  ],\n  \"pendingWait\": %s\n}", pendingWait( eventLoop ) ) );
+                writer.flush();
+            }
         }
-        catch (Exception e) {
-            e.printStackTrace();
+        finally {
+            collector.sink( null );
+            RESPONSE_BYTES.record( out.count );
+        }
+        return c.intValue();
+    }
+
+
+    /**
+     * Counts the bytes written to the underlying stream.
+     */
+    protected static class CountingOutputStream
+            extends FilterOutputStream {
+
+        public long count;
+
+        public CountingOutputStream( OutputStream out ) {
+            super( out );
         }
+
+        @Override
+        public void write( int b ) throws IOException {
+            out.write( b );
+            count ++;
+        }
+
+        @Override
+        public void write( byte[] b, int off, int len ) throws IOException {
+            out.write( b, off, len );
+            count += len;
+        }
+    }
+
+
+    /**
+     * Immediately send next request, and then wait until something is available.
+     */
+    protected long pendingWait( EventLoop eventLoop ) {
+        var pendingWait = eventLoop.pendingWait();
+        return pendingWait == EventLoop.POLLING_TIMEOUT ? 0 : pendingWait;
     }
 
 
     /**
-     * {@link FileUpload}
+     * {@link FileUpload}: <code>PUT .../&lt;upload id&gt;/&lt;file name&gt;</code>
+     * streamed into the {@link UploadSpool} of the session.
      */
     @Override
     protected void doPut( HttpServletRequest req, HttpServletResponse resp ) throws ServletException, IOException {
-        var httpSession = req.getSession();
+        var httpSession = req.getSession( false );
         if (httpSession == null) {
             resp.setStatus( HttpServletResponse.SC_FORBIDDEN );
             return;
         }
-        var file = new FileUpload.File() {
-            String mimetype = req.getContentType();
-            String name = StringUtils.substringAfterLast( req.getPathInfo(), "/" );
-            byte[] data = IOUtils.toByteArray( req.getInputStream() );  // XXX limit upload size
-
-            @Override public InputStream data() { return new ByteArrayInputStream( data ); }
-            @Override public int size() { return data.length; }
-            @Override public String mimetype() { return mimetype; }
-            @Override public String name() { return name; }
-
-            @Override
-            public int lastModified() {
-                throw new RuntimeException( "not yet implemented (on server side)" );
-            }
-            @Override
-            public Object underlying() {
-                throw new RuntimeException( "not yet implemented (on server side)" );
-            }
-        };
-        httpSession.setAttribute( ATTR_UPLOADED, file );
-        LOG.info( "PUT: complete (%s, %s, %s bytes)", file.name(), file.mimetype(), file.size() );
+        var path = StringUtils.removeStart( req.getPathInfo(), "/" );
+        var id = StringUtils.substringBefore( path, "/" );
+        var name = StringUtils.substringAfter( path, "/" );
+        if (StringUtils.isEmpty( id ) || StringUtils.isEmpty( name )) {
+            resp.setStatus( HttpServletResponse.SC_BAD_REQUEST );
+            return;
+        }
+        if (req.getContentLengthLong() > uploadMaxSize) {
+            LOG.warn( "PUT: too large (%s, %s bytes)", name, req.getContentLengthLong() );
+            resp.setStatus( HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE );
+            return;
+        }
+        try (var in = req.getInputStream()) {
+            var file = UploadSpool.of( httpSession, uploadDir, uploadMaxSize ).spool( id, name, req.getContentType(), in );
+            LOG.info( "PUT: complete (%s, %s, %s bytes)", file.name(), file.mimetype(), file.size() );
+        }
+        catch (UploadSpool.UploadTooLargeException e) {
+            LOG.warn( "PUT: too large (%s)", name );
+            resp.setStatus( HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE );
+        }
     }
 
 
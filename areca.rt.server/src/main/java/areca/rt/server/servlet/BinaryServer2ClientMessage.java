@@ -0,0 +1,350 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.rt.server.servlet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import areca.common.log.LogFactory;
+import areca.common.log.LogFactory.Log;
+import areca.rt.server.servlet.JsonServer2ClientMessage.JsonUIComponentEvent;
+import areca.ui.Color;
+import areca.ui.Position;
+import areca.ui.Size;
+import areca.ui.component2.Events.EventHandler;
+import areca.ui.component2.UIComponent.CssStyle;
+
+/**
+ * Compact binary encoding of the render events of one response. This is the
+ * alternative to {@link JsonServer2ClientMessage}, negotiated per session via
+ * {@link JsonClient2ServerMessage#encoding}.
+ * <p>
+ * A message is: {@link #VERSION} byte, varint sequence number, events (opcode + payload), {@link #EV_END},
+ * zigzag varint <code>pendingWait</code>. Component ids are varints. Class names,
+ * property names, enum values and other repeating strings are interned: the
+ * first occurrence is sent inline and gets the next index in the string table
+ * of the session, subsequent occurrences just send the index. So an instance
+ * must live as long as the session and is not thread-safe.
+ * <p>
+ * The strings interned by a message are added to the table of the session only
+ * if the message was actually sent: {@link #commit()} after, {@link #rollback()}
+ * if sending failed, so that the tables of server and client stay in sync.
+ *
+ * @see areca.rt.server.client.BinaryServer2ClientDecoder
+ * @author Falko Bräutigam
+ */
+public class BinaryServer2ClientMessage {
+
+    private static final Log LOG = LogFactory.getLog( BinaryServer2ClientMessage.class );
+
+    public static final String  ENCODING = "binary";
+
+    public static final int     VERSION = 2;
+
+    // event opcodes
+    public static final int     EV_END = 0;
+    public static final int     EV_CONSTRUCTING = 1;
+    public static final int     EV_ATTACHED = 2;
+    public static final int     EV_DETACHED = 3;
+    public static final int     EV_DISPOSED = 4;
+    public static final int     EV_DECORATOR_ATTACHED = 5;
+    public static final int     EV_DECORATOR_DETACHED = 6;
+    public static final int     EV_PROPERTY = 7;
+    public static final int     EV_PAGEFLOW = 8;
+
+    // value tags
+    public static final int     V_NULL = 0;
+    public static final int     V_STRING = 1;
+    public static final int     V_INT = 2;
+    public static final int     V_TRUE = 3;
+    public static final int     V_FALSE = 4;
+    public static final int     V_SIZE = 5;
+    public static final int     V_POSITION = 6;
+    public static final int     V_COLOR = 7;
+    public static final int     V_CSS_STYLE = 8;
+    public static final int     V_EVENT_HANDLER = 9;
+    public static final int     V_COLLECTION = 10;
+    /** Interned type name + interned value as String (Enum: {@link Enum#name()}) */
+    public static final int     V_TYPED = 11;
+    /** Interned type name + inline UTF-8 value (Float, Long, ...) */
+    public static final int     V_NUMBER = 12;
+
+    // instance *******************************************
+
+    /** The string table of the session. */
+    private Map<String,Integer> strings = new HashMap<>( 256 );
+
+    /** Strings added to {@link #strings} by the current, not yet committed message. */
+    private List<String>        uncommitted = new ArrayList<>();
+
+    private byte[]              buf = new byte[8 * 1024];
+
+    private int                 pos;
+
+    private OutputStream        out;
+
+    private int                 bytesWritten;
+
+
+    /**
+     * Starts a new message written to the given stream.
+     */
+    public void start( OutputStream _out, int seq ) throws IOException {
+        rollback(); // not committed: not sent
+        this.out = _out;
+        this.pos = 0;
+        this.bytesWritten = 0;
+        writeByte( VERSION );
+        writeVarInt( seq );
+    }
+
+
+    /**
+     * Writes the end marker and flushes the buffer.
+     */
+    public void end( long pendingWait ) throws IOException {
+        writeByte( EV_END );
+        writeVarInt( zigzag( (int)pendingWait ) );
+        flush();
+        out = null;
+    }
+
+
+    /**
+     * The current/last message was sent successfully: its interned strings are
+     * known by the client now.
+     */
+    public void commit() {
+        uncommitted.clear();
+    }
+
+
+    /**
+     * The current/last message was not (completely) sent: removes its interned
+     * strings from the table. No-op after {@link #commit()}.
+     */
+    public void rollback() {
+        if (!uncommitted.isEmpty()) {
+            LOG.debug( "Rollback: %s strings", uncommitted.size() );
+            for (var s : uncommitted) {
+                strings.remove( s );
+            }
+            uncommitted.clear();
+        }
+    }
+
+
+    /** The number of bytes written by the current/last message. */
+    public int bytesWritten() {
+        return bytesWritten + pos;
+    }
+
+
+    public void write( JsonUIComponentEvent ev ) throws IOException {
+        var type = ev.eventType;
+        if (EventTypeNames.PROPERTY_CHANGED_EVENT.equals( type )) {
+            writeByte( EV_PROPERTY );
+            writeVarInt( ev.componentId );
+            writeString( ev.propName );
+            writeValue( ev.propValue );
+        }
+        else if (EventTypeNames.COMPONENT_CONSTRUCTING_EVENT.equals( type )) {
+            writeByte( EV_CONSTRUCTING );
+            writeVarInt( ev.componentId );
+            writeString( ev.componentClass );
+        }
+        else if (EventTypeNames.COMPONENT_ATTACHED_EVENT.equals( type )) {
+            writeByte( EV_ATTACHED );
+            writeVarInt( ev.componentId );
+            writeVarInt( ev.parentId );
+        }
+        else if (EventTypeNames.COMPONENT_DETACHED_EVENT.equals( type )) {
+            writeByte( EV_DETACHED );
+            writeVarInt( ev.componentId );
+        }
+        else if (EventTypeNames.COMPONENT_DISPOSED_EVENT.equals( type )) {
+            writeByte( EV_DISPOSED );
+            writeVarInt( ev.componentId );
+        }
+        else if (EventTypeNames.DECORATOR_ATTACHED_EVENT.equals( type )) {
+            writeByte( EV_DECORATOR_ATTACHED );
+            writeVarInt( ev.componentId );
+            writeVarInt( ev.parentId );
+        }
+        else if (EventTypeNames.DECORATOR_DETACHED_EVENT.equals( type )) {
+            writeByte( EV_DECORATOR_DETACHED );
+            writeVarInt( ev.componentId );
+            writeVarInt( ev.parentId );
+        }
+        else if ("Pageflow".equals( type )) {
+            writeByte( EV_PAGEFLOW );
+            writeString( ev.propName );
+            writeValue( ev.propValue );
+        }
+        else {
+            throw new IllegalArgumentException( "Unhandled event type: " + type );
+        }
+    }
+
+
+    /**
+     * Encodes the same value types as {@link JsonServer2ClientMessage#encodeValue(Object)}.
+     */
+    protected void writeValue( Object value ) throws IOException {
+        if (value == null) {
+            writeByte( V_NULL );
+        }
+        else if (value instanceof String) {
+            writeByte( V_STRING );
+            writeUtf8( (String)value );
+        }
+        else if (value instanceof Integer) {
+            writeByte( V_INT );
+            writeVarInt( zigzag( (Integer)value ) );
+        }
+        else if (value instanceof Boolean) {
+            writeByte( (Boolean)value ? V_TRUE : V_FALSE );
+        }
+        else if (value instanceof Number) {
+            // not interned: the values are not bounded
+            writeByte( V_NUMBER );
+            writeString( value.getClass().getName() );
+            writeUtf8( value.toString() );
+        }
+        else if (value instanceof Enum) {
+            writeByte( V_TYPED );
+            writeString( ((Enum<?>)value).getDeclaringClass().getName() );
+            writeString( ((Enum<?>)value).name() );
+        }
+        else if (value instanceof Size) {
+            var s = (Size)value;
+            writeByte( V_SIZE );
+            writeVarInt( zigzag( s.width() ) );
+            writeVarInt( zigzag( s.height() ) );
+        }
+        else if (value instanceof Position) {
+            var p = (Position)value;
+            writeByte( V_POSITION );
+            writeVarInt( zigzag( p.x() ) );
+            writeVarInt( zigzag( p.y() ) );
+        }
+        else if (value instanceof Color) {
+            var c = (Color)value;
+            writeByte( V_COLOR );
+            writeByte( c.r );
+            writeByte( c.g );
+            writeByte( c.b );
+        }
+        else if (value instanceof EventHandler) {
+            writeByte( V_EVENT_HANDLER );
+            writeString( ((EventHandler)value).type.name() );
+        }
+        else if (value instanceof CssStyle) {
+            var cssStyle = (CssStyle)value;
+            writeByte( V_CSS_STYLE );
+            writeString( cssStyle.name );
+            writeUtf8( cssStyle.value );
+        }
+        else if (value instanceof Collection) {
+            var coll = (Collection<?>)value;
+            writeByte( V_COLLECTION );
+            writeVarInt( coll.size() );
+            for (var v : coll) {
+                writeValue( v );
+            }
+        }
+        else {
+            // JsonUIComponentEvent.createFrom() should have filtered this already
+            throw new IllegalArgumentException( "Unhandled value type: " + value.getClass().getName() );
+        }
+    }
+
+
+    /**
+     * Interned string: <code>(index << 1)</code> if known, or
+     * <code>(length << 1 | 1)</code> followed by the UTF-8 bytes.
+     */
+    protected void writeString( String s ) throws IOException {
+        var index = strings.get( s );
+        if (index != null) {
+            writeVarInt( index << 1 );
+        }
+        else {
+            strings.put( s, strings.size() );
+            uncommitted.add( s );
+            var bytes = s.getBytes( UTF_8 );
+            writeVarInt( bytes.length << 1 | 1 );
+            writeBytes( bytes );
+        }
+    }
+
+
+    protected void writeUtf8( String s ) throws IOException {
+        var bytes = s.getBytes( UTF_8 );
+        writeVarInt( bytes.length );
+        writeBytes( bytes );
+    }
+
+
+    protected static int zigzag( int v ) {
+        return (v << 1) ^ (v >> 31);
+    }
+
+
+    protected void writeVarInt( int v ) throws IOException {
+        while ((v & ~0x7f) != 0) {
+            writeByte( (v & 0x7f) | 0x80 );
+            v >>>= 7;
+        }
+        writeByte( v );
+    }
+
+
+    protected void writeByte( int b ) throws IOException {
+        if (pos == buf.length) {
+            flush();
+        }
+        buf[pos++] = (byte)b;
+    }
+
+
+    protected void writeBytes( byte[] bytes ) throws IOException {
+        if (bytes.length > buf.length - pos) {
+            flush();
+            if (bytes.length > buf.length) {
+                out.write( bytes );
+                bytesWritten += bytes.length;
+                return;
+            }
+        }
+        System.arraycopy( bytes, 0, buf, pos, bytes.length );
+        pos += bytes.length;
+    }
+
+
+    protected void flush() throws IOException {
+        out.write( buf, 0, pos );
+        bytesWritten += pos;
+        pos = 0;
+    }
+
+}
@@ -23,6 +23,9 @@ class JsonClient2ServerMessage {
 
     public boolean startSession;
 
+    /** The requested render event encoding, or null for JSON. */
+    public String encoding;
+
     public List<JsonClickEvent> events;
 
     /**
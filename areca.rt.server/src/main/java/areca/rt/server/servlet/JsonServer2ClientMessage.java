@@ -25,6 +25,7 @@ import areca.ui.Color;
 import areca.ui.Position;
 import areca.ui.Size;
 import areca.ui.component2.Events.EventHandler;
+import areca.ui.component2.Image;
 import areca.ui.component2.Property.PropertyChangedEvent;
 import areca.ui.component2.UIComponent;
 import areca.ui.component2.UIComponent.CssStyle;
@@ -61,6 +62,9 @@ public class JsonServer2ClientMessage {
         public Object   propNewValue;
         //public Object   propOldValue;
 
+        /** The raw (not encoded) new value; not serialized by Gson. */
+        public transient Object propValue;
+
         public JsonUIComponentEvent( String eventType ) {
             this.eventType = eventType;
         }
@@ -104,11 +108,47 @@ public class JsonServer2ClientMessage {
                 return Opt.absent();
             }
             else {
-                result.propNewValue = encodeValue( ev.optNewValue().orNull() );
+                result.propValue = ev.optNewValue().orNull();
+                storeResource( result, ev.getSource().component() );
+                result.propNewValue = encodeValue( result.propValue );
                 //result.propOldValue = encodeValue( ev.optOldValue().orNull() );
                 return result.propNewValue != null ? Opt.of( result ) : Opt.absent();
             }
         }
+
+
+        /**
+         * Base64 image data ({@link Image#data}, {@link UIComponent#bgImage}) is
+         * put in the {@link ResourceStore}; just the URL is sent ({@link Image#src},
+         * {@link UIComponent#bgImageSrc}). Data that is not Base64 is sent inline.
+         */
+        protected static void storeResource( JsonUIComponentEvent result, Object component ) {
+            var store = ResourceStore.instance();
+            if (store == null) {
+                return;
+            }
+            String srcName = null;
+            if (component instanceof Image && result.propName.equals( "data" )) {
+                srcName = "src";
+            }
+            else if (component instanceof UIComponent && result.propName.equals( "bgImage" )) {
+                srcName = "bgImageSrc";
+            }
+            else {
+                return;
+            }
+            if (result.propValue != null) {
+                try {
+                    result.propValue = store.putBase64( (String)result.propValue );
+                }
+                catch (IllegalArgumentException e) {
+                    // not Base64: send inline, as without store
+                    LOG.warn( "%s: not Base64, sending inline (%s)", result.propName, e.getMessage() );
+                    return;
+                }
+            }
+            result.propName = srcName;
+        }
     }
 
 
@@ -129,7 +169,9 @@ public class JsonServer2ClientMessage {
         }
         // Enum
         else if (value instanceof Enum) {
-            return new JsonPrimitivePropertyValue( type, value.toString() );
+            // same as BinaryServer2ClientMessage: decoded via valueOf()
+            var e = (Enum<?>)value;
+            return new JsonPrimitivePropertyValue( e.getDeclaringClass().getName(), e.name() );
         }
         // Size
         else if (value instanceof Size) {
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.rt.server.servlet;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import areca.common.log.LogFactory;
+import areca.common.log.LogFactory.Log;
+
+/**
+ * Content addressed store of binary resources (images) of all sessions. A resource
+ * is identified by the hash of its content, so the URL of a resource never changes
+ * its content and can be cached by the browser forever. Served by
+ * {@link ArecaResourceServlet}.
+ * <p>
+ * The store holds the most recently used resources up to {@link #maxBytes}. A
+ * resource is put again every time it is sent to a client.
+ *
+ * @author Falko Bräutigam
+ */
+public class ResourceStore {
+
+    private static final Log LOG = LogFactory.getLog( ResourceStore.class );
+
+    public static final int DEFAULT_MAX_BYTES = 64 * 1024 * 1024;
+
+    /** The store of the {@link ArecaUIServer}, or null if images are sent inline. */
+    static ResourceStore    instance;
+
+    public static ResourceStore instance() {
+        return instance;
+    }
+
+    /**
+     *
+     */
+    public static class Resource {
+
+        public final String     hash;
+
+        public final byte[]     data;
+
+        public final String     mimetype;
+
+        protected Resource( String hash, byte[] data ) {
+            this.hash = hash;
+            this.data = data;
+            this.mimetype = mimetype( data );
+        }
+    }
+
+    /**
+     * Guesses the mime type from the first bytes of the given image data.
+     */
+    public static String mimetype( byte[] data ) {
+        if (startsWith( data, 0, 0x89, 'P', 'N', 'G' )) {
+            return "image/png";
+        }
+        else if (startsWith( data, 0, 0xff, 0xd8, 0xff )) {
+            return "image/jpeg";
+        }
+        else if (startsWith( data, 0, 'G', 'I', 'F', '8' )) {
+            return "image/gif";
+        }
+        else if (startsWith( data, 0, 'R', 'I', 'F', 'F' ) && startsWith( data, 8, 'W', 'E', 'B', 'P' )) {
+            return "image/webp";
+        }
+        else if (startsWith( data, 0, '<', 's', 'v', 'g' ) || startsWith( data, 0, '<', '?', 'x', 'm', 'l' )) {
+            return "image/svg+xml";
+        }
+        return "application/octet-stream";
+    }
+
+    private static boolean startsWith( byte[] data, int offset, int... magic ) {
+        if (data.length < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((data[offset + i] & 0xff) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // instance *******************************************
+
+    /** The path the {@link ArecaResourceServlet} is mapped to, ending with "/". */
+    protected String                basePath;
+
+    protected long                  maxBytes;
+
+    protected long                  bytes;
+
+    /** Access ordered: least recently used first. */
+    protected Map<String,Resource>  resources = new LinkedHashMap<>( 256, 0.75f, true );
+
+
+    public ResourceStore( String basePath, long maxBytes ) {
+        this.basePath = basePath.endsWith( "/" ) ? basePath : basePath + "/";
+        this.maxBytes = maxBytes;
+    }
+
+
+    /**
+     * Stores the given data.
+     *
+     * @return The URL of the resource.
+     */
+    public String put( byte[] data ) {
+        var hash = hash( data );
+        synchronized (resources) {
+            if (resources.get( hash ) == null) {
+                resources.put( hash, new Resource( hash, data ) );
+                bytes += data.length;
+                evict();
+                LOG.debug( "put: %s (%s bytes, total: %s)", hash, data.length, bytes );
+            }
+        }
+        return basePath + hash;
+    }
+
+
+    /**
+     * Stores the given Base64 encoded data, as used by
+     * {@link areca.ui.component2.Image#data} and
+     * {@link areca.ui.component2.UIComponent#bgImage}.
+     *
+     * @return The URL of the resource.
+     */
+    public String putBase64( String base64 ) {
+        return put( Base64.getMimeDecoder().decode( base64.getBytes( ISO_8859_1 ) ) );
+    }
+
+
+    /**
+     * The resource for the given hash, or null if there is no such resource (anymore).
+     */
+    public Resource get( String hash ) {
+        synchronized (resources) {
+            return resources.get( hash );
+        }
+    }
+
+
+    public long bytes() {
+        synchronized (resources) {
+            return bytes;
+        }
+    }
+
+
+    protected void evict() {
+        for (var it = resources.values().iterator(); bytes > maxBytes && resources.size() > 1; ) {
+            var evicted = it.next();
+            it.remove();
+            bytes -= evicted.data.length;
+        }
+    }
+
+
+    protected String hash( byte[] data ) {
+        try {
+            var digest = MessageDigest.getInstance( "SHA-256" ).digest( data );
+            return Base64.getUrlEncoder().withoutPadding().encodeToString( digest );
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException( e );
+        }
+    }
+
+}
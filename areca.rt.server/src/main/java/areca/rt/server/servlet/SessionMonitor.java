@@ -0,0 +1,355 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.rt.server.servlet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
+import javax.websocket.CloseReason.CloseCodes;
+
+import areca.common.Session;
+import areca.common.log.LogFactory;
+import areca.common.log.LogFactory.Log;
+import areca.common.metrics.Counter;
+import areca.common.metrics.Gauge;
+import areca.common.metrics.Metrics;
+import areca.rt.server.EventLoop3;
+
+/**
+ * Tracks the {@link Session}s of an {@link ArecaUIServer}: estimated heap usage,
+ * last access and last client event. {@link #sweep()} evicts sessions that were
+ * not accessed for {@link #idleTimeout} (closed browser tab), and the sessions with
+ * the oldest client events as long as the estimated heap of all sessions exceeds
+ * {@link #maxBytes}.
+ * <p>
+ * An evicted session is disposed and removed from its {@link HttpSession}; the next
+ * request of the client gets {@link HttpServletResponse#SC_GONE} and the client
+ * reloads. An optional {@link Hibernator} can save the state of the session
+ * before and restore it on the next request.
+ *
+ * @author Falko Bräutigam
+ */
+public class SessionMonitor {
+
+    private static final Log LOG = LogFactory.getLog( SessionMonitor.class );
+
+    private static final Gauge SESSIONS = Metrics.gauge( "areca_sessions", "Active sessions, as of the last sweep" );
+
+    private static final Gauge ESTIMATED = Metrics.gauge( "areca_sessions_estimated_bytes", "Estimated heap of all sessions, as of the last sweep" );
+
+    private static final Counter EVICTED = Metrics.counter( "areca_sessions_evicted_total", "Evicted sessions" );
+
+    private static final Counter HIBERNATED = Metrics.counter( "areca_sessions_hibernated_total", "Hibernated sessions" );
+
+    /** Rough estimate of the heap of a session without components. */
+    public static long  BYTES_PER_SESSION = 32 * 1024;
+
+    /** Rough estimate of the heap of one component: properties, handlers, renderer state. */
+    public static long  BYTES_PER_COMPONENT = 4 * 1024;
+
+    /** Rough estimate of the heap of one pending render event. */
+    public static long  BYTES_PER_EVENT = 256;
+
+    /**
+     * Saves the state of an evicted session and restores it when the client
+     * restarts the session.
+     */
+    public interface Hibernator {
+
+        /**
+         * Called before the given session is evicted, in the context of the session.
+         *
+         * @return True if the state was saved and {@link #restore(HttpSession, Session)}
+         *         should be called for the next session.
+         */
+        public boolean hibernate( HttpSession httpSession, Session session );
+
+        /**
+         * Called instead of {@link areca.rt.server.ServerApp#createUI()} for the
+         * next session of the given {@link HttpSession}, in the context of the
+         * new session.
+         *
+         * @return False if the state could not be restored and the UI should be
+         *         created as usual.
+         */
+        public boolean restore( HttpSession httpSession, Session session );
+    }
+
+    /**
+     * The monitored state of one {@link Session}. Bound to its {@link HttpSession}
+     * in order to dispose the session when the {@link HttpSession} ends.
+     */
+    public class Entry
+            implements HttpSessionBindingListener {
+
+        public final HttpSession        httpSession;
+
+        public final Session            session;
+
+        protected EventLoop3            eventLoop;
+
+        protected UIEventCollector      collector;
+
+        protected volatile long         lastAccess = System.currentTimeMillis();
+
+        protected volatile long         lastEvent = lastAccess;
+
+        protected volatile long         estimatedBytes = BYTES_PER_SESSION;
+
+        protected Entry( HttpSession httpSession, Session session, EventLoop3 eventLoop, UIEventCollector collector ) {
+            this.httpSession = httpSession;
+            this.session = session;
+            this.eventLoop = eventLoop;
+            this.collector = collector;
+        }
+
+        @Override
+        public void valueBound( HttpSessionBindingEvent ev ) {
+        }
+
+        @Override
+        public void valueUnbound( HttpSessionBindingEvent ev ) {
+            if (entries.remove( httpSession.getId(), this )) {
+                LOG.info( "Session ended: %s", httpSession.getId() );
+                synchronized (session) {
+                    eventLoop.dispose();
+                    session.dispose();
+                }
+            }
+        }
+
+        public long lastAccess() {
+            return lastAccess;
+        }
+
+        public long lastEvent() {
+            return lastEvent;
+        }
+
+        public long estimatedBytes() {
+            return estimatedBytes;
+        }
+
+        /**
+         * Not synchronized with the session: the numbers might be slightly off.
+         */
+        protected long estimate() {
+            return estimatedBytes = BYTES_PER_SESSION
+                    + collector.componentCount() * BYTES_PER_COMPONENT
+                    + collector.pendingCount() * BYTES_PER_EVENT;
+        }
+    }
+
+    // instance *******************************************
+
+    /** HttpSession id -&gt; {@link Entry} */
+    protected Map<String,Entry>     entries = new ConcurrentHashMap<>();
+
+    /** Sessions not accessed for this time (millis) are evicted; 0: never */
+    protected long                  idleTimeout;
+
+    /** The max estimated heap of all sessions; 0: unbounded */
+    protected long                  maxBytes;
+
+    protected Hibernator            hibernator;
+
+    protected volatile long         totalBytes;
+
+    protected AtomicLong            evicted = new AtomicLong();
+
+    protected AtomicLong            hibernated = new AtomicLong();
+
+
+    public SessionMonitor( long idleTimeout, long maxBytes ) {
+        this.idleTimeout = idleTimeout;
+        this.maxBytes = maxBytes;
+    }
+
+
+    public SessionMonitor setHibernator( Hibernator hibernator ) {
+        this.hibernator = hibernator;
+        return this;
+    }
+
+
+    public void register( HttpSession httpSession, Session session, EventLoop3 eventLoop, UIEventCollector collector ) {
+        var entry = new Entry( httpSession, session, eventLoop, collector );
+        entries.put( httpSession.getId(), entry );
+        httpSession.setAttribute( ArecaUIServer.ATTR_MONITOR, entry );
+    }
+
+
+    public void unregister( HttpSession httpSession ) {
+        entries.remove( httpSession.getId() );
+    }
+
+
+    /**
+     * Marks the session of the given {@link HttpSession} as accessed.
+     *
+     * @param clientEvents True if the request carries events of the user.
+     */
+    public void touch( HttpSession httpSession, boolean clientEvents ) {
+        var entry = entries.get( httpSession.getId() );
+        if (entry != null) {
+            entry.lastAccess = System.currentTimeMillis();
+            if (clientEvents) {
+                entry.lastEvent = entry.lastAccess;
+            }
+        }
+    }
+
+
+    /**
+     * Restores the state of the previous, hibernated session of the given
+     * {@link HttpSession}. Called in the context of the new session.
+     *
+     * @return True if the state was restored, false if the UI has to be created.
+     */
+    public boolean restore( HttpSession httpSession, Session session ) {
+        if (hibernator != null && httpSession.getAttribute( ArecaUIServer.ATTR_HIBERNATED ) != null) {
+            httpSession.removeAttribute( ArecaUIServer.ATTR_HIBERNATED );
+            var result = hibernator.restore( httpSession, session );
+            LOG.info( "Restored: %s (%s)", httpSession.getId(), result ? "ok" : "failed" );
+            return result;
+        }
+        return false;
+    }
+
+
+    /**
+     * Updates the estimates and evicts idle sessions and, if {@link #maxBytes} is
+     * exceeded, the sessions with the oldest client events. Called periodically.
+     */
+    public void sweep() {
+        var now = System.currentTimeMillis();
+        var total = 0L;
+        var alive = new ArrayList<Entry>( entries.size() );
+        for (var entry : entries.values()) {
+            if (isPushOpen( entry )) {
+                entry.lastAccess = now;
+            }
+            if (idleTimeout > 0 && now - entry.lastAccess > idleTimeout) {
+                evict( entry, "idle" );
+            }
+            else {
+                total += entry.estimate();
+                alive.add( entry );
+            }
+        }
+        if (maxBytes > 0 && total > maxBytes) {
+            alive.sort( Comparator.comparingLong( entry -> entry.lastEvent ) );
+            for (var it = alive.iterator(); total > maxBytes && it.hasNext(); ) {
+                var entry = it.next();
+                evict( entry, "memory" );
+                total -= entry.estimatedBytes;
+            }
+        }
+        totalBytes = total;
+        SESSIONS.set( entries.size() );
+        ESTIMATED.set( total );
+        LOG.info( "Sessions: %s, estimated: %s KB, evicted: %s, hibernated: %s",
+                entries.size(), total / 1024, evicted.get(), hibernated.get() );
+    }
+
+
+    protected boolean isPushOpen( Entry entry ) {
+        try {
+            var push = (ArecaUIPush)entry.httpSession.getAttribute( ArecaUIServer.ATTR_PUSH );
+            return push != null && push.isOpen();
+        }
+        catch (IllegalStateException e) {
+            return false; // invalidated
+        }
+    }
+
+
+    /**
+     * Disposes the session of the given entry and removes it from its
+     * {@link HttpSession}.
+     */
+    protected void evict( Entry entry, String reason ) {
+        LOG.info( "Evict: %s (%s, %s KB)", entry.httpSession.getId(), reason, entry.estimatedBytes / 1024 );
+        entries.remove( entry.httpSession.getId(), entry );
+        evicted.incrementAndGet();
+        EVICTED.inc();
+        synchronized (entry.session) {
+            try {
+                if (hibernator != null) {
+                    ArecaUIServer.sessionScope.bind( entry.session, __ -> {
+                        if (hibernator.hibernate( entry.httpSession, __ )) {
+                            entry.httpSession.setAttribute( ArecaUIServer.ATTR_HIBERNATED, Boolean.TRUE );
+                            hibernated.incrementAndGet();
+                            HIBERNATED.inc();
+                        }
+                    });
+                }
+                if (entry.httpSession.getAttribute( ArecaUIServer.ATTR_SESSION ) == entry.session) {
+                    entry.httpSession.removeAttribute( ArecaUIServer.ATTR_SESSION );
+                }
+                var push = (ArecaUIPush)entry.httpSession.getAttribute( ArecaUIServer.ATTR_PUSH );
+                if (push != null) {
+                    entry.httpSession.removeAttribute( ArecaUIServer.ATTR_PUSH );
+                    push.close( CloseCodes.GOING_AWAY, "Session evicted" );
+                }
+                var async = (AsyncContext)entry.httpSession.getAttribute( ArecaUIServer.ATTR_PENDING );
+                if (async != null) {
+                    entry.httpSession.removeAttribute( ArecaUIServer.ATTR_PENDING );
+                    ((HttpServletResponse)async.getResponse()).setStatus( HttpServletResponse.SC_GONE );
+                    async.complete();
+                }
+            }
+            catch (IllegalStateException e) {
+                // HttpSession invalidated
+            }
+            entry.eventLoop.dispose();
+            entry.session.dispose();
+        }
+    }
+
+
+    public int sessionCount() {
+        return entries.size();
+    }
+
+
+    /** The estimated heap of all sessions, as of the last {@link #sweep()}. */
+    public long totalBytes() {
+        return totalBytes;
+    }
+
+
+    public long evictedCount() {
+        return evicted.get();
+    }
+
+
+    public long hibernatedCount() {
+        return hibernated.get();
+    }
+
+
+    public Iterable<Entry> entries() {
+        return entries.values();
+    }
+
+}
@@ -13,8 +13,12 @@
  */
 package areca.rt.server.servlet;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Set;
 
 import areca.common.Assert;
 import areca.common.base.Consumer.RConsumer;
@@ -22,11 +26,15 @@ import areca.common.base.Opt;
 import areca.common.event.EventHandler;
 import areca.common.log.LogFactory;
 import areca.common.log.LogFactory.Log;
+import areca.common.metrics.Counter;
+import areca.common.metrics.Histogram;
+import areca.common.metrics.Metrics;
 import areca.common.reflect.ClassInfo;
 import areca.common.reflect.NoRuntimeInfo;
 import areca.common.reflect.RuntimeInfo;
 import areca.rt.server.servlet.JsonServer2ClientMessage.JsonUIComponentEvent;
 import areca.ui.App.RootWindow;
+import areca.ui.component2.Property;
 import areca.ui.component2.Property.PropertyChangedEvent;
 import areca.ui.component2.UIComponent;
 import areca.ui.component2.UIComponentEvent;
@@ -37,11 +45,16 @@ import areca.ui.component2.UIComponentEvent.ComponentDetachedEvent;
 import areca.ui.component2.UIComponentEvent.ComponentDisposedEvent;
 import areca.ui.component2.UIComponentEvent.DecoratorAttachedEvent;
 import areca.ui.component2.UIComponentEvent.DecoratorDetachedEvent;
+import areca.ui.component2.UIComposite;
 import areca.ui.component2.UIElement;
 
 /**
  * A collector of all UI render events: {@link UIComponentEvent} and
  * {@link PropertyChangedEvent}.
+ * <p>
+ * Events are coalesced until {@link #flush()} (once per response): just the last
+ * change of a property is sent, attach/detach pairs cancel out and components that
+ * are constructed and disposed are not sent at all.
  *
  * @author Falko Bräutigam
  */
@@ -52,10 +65,41 @@ public class UIEventCollector {
 
     public static final ClassInfo<UIEventCollector> TYPE = UIEventCollectorClassInfo.instance();
 
+    private static final Histogram SENT = Metrics.histogram( "areca_ui_render_events", "Render events per response" );
+
+    private static final Counter COALESCED = Metrics.counter( "areca_ui_render_events_coalesced_total", "Render events not sent because of coalescing" );
+
     private Map<Integer,UIElement>      components = new HashMap<>( 512 );
 
     private RConsumer<JsonUIComponentEvent> sink;
 
+    /**
+     * The events of the current response: {@link JsonUIComponentEvent} or
+     * {@link PropertyChangedEvent} (encoded on {@link #flush()}). Removed events
+     * are set to null.
+     */
+    private ArrayList<Object>           pending = new ArrayList<>( 256 );
+
+    private int                         pendingCount;
+
+    /** Events of the current response dropped by coalescing */
+    private int                         coalesced;
+
+    /** Property -> index of its last change in {@link #pending} */
+    private Map<Object,Integer>         pendingProps = new IdentityHashMap<>( 256 );
+
+    /** Component/decorator id -> index of its attach event in {@link #pending} */
+    private Map<Integer,Integer>        attached = new HashMap<>();
+
+    /** Ids of the components constructed during the current response */
+    private Set<Integer>                constructed = new HashSet<>();
+
+    /** Ids of the components constructed *and* disposed during the current response */
+    private Set<Integer>                cancelled = new HashSet<>();
+
+    /** The sequence number of the last message sent to the client */
+    private int                         sequence;
+
 
     @NoRuntimeInfo
     public void start() {
@@ -71,9 +115,116 @@ public class UIEventCollector {
 
     @NoRuntimeInfo
     public void add( JsonUIComponentEvent ev ) {
-        Assert.notNull( sink, "App code called outside eventloop!?" );
         Assert.notNull( ev.eventType );
-        sink.accept( ev );
+        append( ev );
+    }
+
+
+    protected int append( Object ev ) {
+        pending.add( ev );
+        pendingCount ++;
+        return pending.size() - 1;
+    }
+
+
+    /** Removes a pending event that is superseded/cancelled by coalescing. */
+    protected void remove( int index ) {
+        Assert.notNull( pending.set( index, null ) );
+        pendingCount --;
+        coalesced ++;
+    }
+
+
+    /**
+     * Drops the pending change of the given property. Used for values that came
+     * from the client (scroll position): sending them back would reset a client
+     * that has moved on meanwhile.
+     */
+    @NoRuntimeInfo
+    public void discard( Property<?,?> prop ) {
+        var index = pendingProps.remove( prop );
+        if (index != null) {
+            Assert.notNull( pending.set( index, null ) );
+            pendingCount --;
+        }
+    }
+
+
+    /**
+     * The number of pending events; an upper bound of what {@link #flush()} sends.
+     */
+    @NoRuntimeInfo
+    public int pendingCount() {
+        return pendingCount;
+    }
+
+
+    /**
+     * The number of components of the session.
+     */
+    @NoRuntimeInfo
+    public int componentCount() {
+        return components.size();
+    }
+
+
+    /**
+     * The sequence number of the next message to the client. Messages are sent
+     * via HTTP response or push; the client checks the numbers in order to detect
+     * messages that are lost or out of order.
+     */
+    @NoRuntimeInfo
+    public int nextSequence() {
+        return ++sequence;
+    }
+
+
+    /**
+     * Sends the coalesced events of the current response to the {@link #sink}.
+     */
+    @NoRuntimeInfo
+    public void flush() {
+        Assert.notNull( sink, "No sink." );
+        var sent = 0;
+        for (var ev : pending) {
+            if (ev == null) {
+                continue;
+            }
+            if (ev instanceof PropertyChangedEvent) {
+                var prop = ((PropertyChangedEvent<?>)ev).getSource();
+                if (!cancelled.contains( ((UIElement)prop.component()).id() )) {
+                    var json = JsonUIComponentEvent.createFrom( (PropertyChangedEvent<?>)ev ).orNull();
+                    if (json != null) {
+                        sink.accept( json );
+                        sent ++;
+                    }
+                }
+                else {
+                    coalesced ++;
+                }
+            }
+            else {
+                var json = (JsonUIComponentEvent)ev;
+                if (cancelled.isEmpty()
+                        || !((json.componentId != null && cancelled.contains( json.componentId ))
+                        || (json.parentId != null && cancelled.contains( json.parentId )))) {
+                    sink.accept( json );
+                    sent ++;
+                }
+                else {
+                    coalesced ++;
+                }
+            }
+        }
+        SENT.record( sent );
+        COALESCED.add( coalesced );
+        pending.clear();
+        pendingCount = 0;
+        coalesced = 0;
+        pendingProps.clear();
+        attached.clear();
+        constructed.clear();
+        cancelled.clear();
     }
 
 
@@ -93,10 +244,16 @@ public class UIEventCollector {
     @EventHandler( PropertyChangedEvent.class )
     public void propertyChanged( PropertyChangedEvent ev ) {
         var prop = ev.getSource();
+        if (prop.name().equals( UIComposite.PROP_COMPONENTS ) || prop.name().equals( UIComponent.PROP_DECORATORS )) {
+            return;
+        }
         if (prop.component() instanceof UIElement) {
             LOG.debug( "PROPERTY: %s", prop.name() );
             if (components.containsKey( ((UIElement)prop.component()).id() ))  {
-                JsonUIComponentEvent.createFrom( ev ).ifPresent( json -> add( json ) );
+                var previous = pendingProps.put( prop, append( ev ) );
+                if (previous != null) {
+                    remove( previous );
+                }
             }
             else {
                 LOG.warn( "Property: %s: component already disposed", prop.name());
@@ -113,6 +270,7 @@ public class UIEventCollector {
         var component = ev.getSource();
         LOG.debug( "CONSTRUCTING: %s (id=%s)", component.getClass().getName(), component.id() );
         Assert.isNull( components.put( component.id(), component ) );
+        constructed.add( component.id() );
         add( new JsonUIComponentEvent( ev ) );
     }
 
@@ -127,14 +285,21 @@ public class UIEventCollector {
     @EventHandler( ComponentAttachedEvent.class )
     public void componentAttached( ComponentAttachedEvent ev ) {
         LOG.debug( "ATTACHED: %s", ev.getSource().getClass().getSimpleName() );
-        add( new JsonUIComponentEvent( ev ) );
+        attached.put( ev.getSource().id(), append( new JsonUIComponentEvent( ev ) ) );
     }
 
 
     @EventHandler( ComponentDetachedEvent.class )
     public void componentDetached( ComponentDetachedEvent ev ) {
         LOG.debug( "DETACHED: %s", ev.getSource().getClass().getSimpleName() );
-        add( new JsonUIComponentEvent( ev ) );
+        var attachedIndex = attached.remove( ev.getSource().id() );
+        if (attachedIndex != null) {
+            remove( attachedIndex );
+            coalesced ++; // the detach event itself
+        }
+        else {
+            add( new JsonUIComponentEvent( ev ) );
+        }
     }
 
 
@@ -143,7 +308,12 @@ public class UIEventCollector {
         var component = ev.getSource();
         LOG.debug( "DISPOSED: %s", component.getClass().getName() );
         Assert.notNull( components.remove( component.id() ) );
-        add( new JsonUIComponentEvent( ev ) );
+        if (constructed.contains( component.id() )) {
+            cancelled.add( component.id() );
+        }
+        else {
+            add( new JsonUIComponentEvent( ev ) );
+        }
     }
 
 
@@ -151,7 +321,7 @@ public class UIEventCollector {
     public void decoratorAttached( DecoratorAttachedEvent ev ) {
         var decorator = ev.getSource();
         LOG.debug( "DECORATOR: %s", decorator.getClass().getName() );
-        add( new JsonUIComponentEvent( ev ) );
+        attached.put( decorator.id(), append( new JsonUIComponentEvent( ev ) ) );
     }
 
 
@@ -159,6 +329,13 @@ public class UIEventCollector {
     public void decoratorDetached( DecoratorDetachedEvent ev ) {
         var component = ev.getSource();
         LOG.debug( "DECORATOR detached:: %s", component.getClass().getName() );
-        add( new JsonUIComponentEvent( ev ) );
+        var attachedIndex = attached.remove( component.id() );
+        if (attachedIndex != null) {
+            remove( attachedIndex );
+            coalesced ++; // the detach event itself
+        }
+        else {
+            add( new JsonUIComponentEvent( ev ) );
+        }
     }
 }
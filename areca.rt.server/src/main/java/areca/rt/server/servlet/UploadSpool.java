@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2024, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.rt.server.servlet;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
+
+import areca.common.log.LogFactory;
+import areca.common.log.LogFactory.Log;
+import areca.ui.component2.FileUpload;
+
+/**
+ * The {@link FileUpload} files of one {@link HttpSession}. Uploads are streamed
+ * into spool files, so the size of an upload is limited by {@link #maxSize}
+ * and not by the heap. Several uploads can be pending at once, each identified
+ * by an id given by the client.
+ * <p>
+ * An upload is pending until it is {@link #claim(String) claimed} by the
+ * {@link FileUpload} event. All spool files of the session are deleted when
+ * the session ends.
+ *
+ * @author Falko Bräutigam
+ */
+public class UploadSpool
+        implements HttpSessionBindingListener {
+
+    private static final Log LOG = LogFactory.getLog( UploadSpool.class );
+
+    /**
+     * Thrown if an upload exceeds {@link UploadSpool#maxSize}.
+     */
+    public static class UploadTooLargeException
+            extends IOException {
+
+        public UploadTooLargeException( long maxSize ) {
+            super( "Upload exceeds max size: " + maxSize );
+        }
+    }
+
+    /**
+     * The {@link UploadSpool} of the given session.
+     */
+    public static UploadSpool of( HttpSession httpSession, Path dir, long maxSize ) {
+        synchronized (httpSession) {
+            var result = (UploadSpool)httpSession.getAttribute( ArecaUIServer.ATTR_UPLOADS );
+            if (result == null) {
+                result = new UploadSpool( dir, maxSize );
+                httpSession.setAttribute( ArecaUIServer.ATTR_UPLOADS, result );
+            }
+            return result;
+        }
+    }
+
+    // instance *******************************************
+
+    protected Path                      dir;
+
+    protected long                      maxSize;
+
+    /** Upload id -&gt; uploaded but not yet claimed file */
+    protected Map<String,SpooledFile>   pending = new ConcurrentHashMap<>();
+
+    /** All files of the session, for cleanup */
+    protected Set<SpooledFile>          files = ConcurrentHashMap.newKeySet();
+
+
+    protected UploadSpool( Path dir, long maxSize ) {
+        this.dir = dir;
+        this.maxSize = Math.min( maxSize, Integer.MAX_VALUE );
+    }
+
+
+    /**
+     * Streams the given data into a new spool file.
+     *
+     * @param id The id of the upload given by the client.
+     * @throws UploadTooLargeException If the data exceeds {@link #maxSize}.
+     */
+    public SpooledFile spool( String id, String name, String mimetype, InputStream in ) throws IOException {
+        Files.createDirectories( dir );
+        var path = Files.createTempFile( dir, "upload-", ".spool" );
+        var success = false;
+        try (var out = Files.newOutputStream( path )) {
+            var buf = new byte[32 * 1024];
+            long size = 0;
+            for (int c = in.read( buf ); c > -1; c = in.read( buf )) {
+                size += c;
+                if (size > maxSize) {
+                    throw new UploadTooLargeException( maxSize );
+                }
+                out.write( buf, 0, c );
+            }
+            var file = new SpooledFile( path, name, mimetype, (int)size );
+            files.add( file );
+            var previous = pending.put( id, file );
+            if (previous != null) {
+                delete( previous );
+            }
+            success = true;
+            return file;
+        }
+        finally {
+            if (!success) {
+                Files.deleteIfExists( path );
+            }
+        }
+    }
+
+
+    /**
+     * Removes the pending upload with the given id.
+     *
+     * @return The file, or null if there is no such upload.
+     */
+    public SpooledFile claim( String id ) {
+        return pending.remove( id );
+    }
+
+
+    public void delete( SpooledFile file ) {
+        files.remove( file );
+        try {
+            Files.deleteIfExists( file.path );
+        }
+        catch (IOException e) {
+            LOG.warn( "Unable to delete: %s (%s)", file.path, e );
+        }
+    }
+
+
+    @Override
+    public void valueBound( HttpSessionBindingEvent ev ) {
+    }
+
+
+    @Override
+    public void valueUnbound( HttpSessionBindingEvent ev ) {
+        LOG.debug( "Session ended: deleting %s files", files.size() );
+        pending.clear();
+        for (var file : files) {
+            delete( file );
+        }
+    }
+
+
+    /**
+     * A {@link FileUpload.File} backed by a spool file.
+     */
+    public static class SpooledFile
+            implements FileUpload.File {
+
+        protected Path      path;
+
+        protected String    name;
+
+        protected String    mimetype;
+
+        protected int       size;
+
+        protected SpooledFile( Path path, String name, String mimetype, int size ) {
+            this.path = path;
+            this.name = name;
+            this.mimetype = mimetype;
+            this.size = size;
+        }
+
+        @Override
+        public InputStream data() {
+            try {
+                return Files.newInputStream( path );
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException( e );
+            }
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public String mimetype() {
+            return mimetype;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        /** The {@link Path} of the spool file. */
+        @Override
+        public Object underlying() {
+            return path;
+        }
+
+        @Override
+        public int lastModified() {
+            throw new RuntimeException( "not yet implemented (on server side)" );
+        }
+    }
+
+}
@@ -29,6 +29,7 @@ import areca.common.reflect.ClassInfo;
 import areca.common.reflect.RuntimeInfo;
 import areca.ui.Align.Vertical;
 import areca.ui.Position;
+import areca.ui.component2.CssClassSet;
 import areca.ui.component2.Events.UIEvent;
 import areca.ui.component2.UIComponent;
 import areca.ui.component2.UIComponentEvent;
@@ -126,7 +127,15 @@ public class UIComponentRenderer
         // cssClasses
         c.cssClasses.onInitAndChange( (newValue, oldValue) -> {
             Assert.notNull( newValue, "Setting null value means remove() ???" );
-            htmlElm.setAttribute( "class", String.join( " ", newValue ) );
+            if (oldValue instanceof CssClassSet && newValue instanceof CssClassSet) {
+                // just the difference
+                var classList = htmlElm.getClassList();
+                ((CssClassSet)oldValue).without( (CssClassSet)newValue ).forEach( name -> classList.remove( name ) );
+                ((CssClassSet)newValue).without( (CssClassSet)oldValue ).forEach( name -> classList.add( name ) );
+            }
+            else {
+                htmlElm.setAttribute( "class", String.join( " ", newValue ) );
+            }
             hideWithoutPositionOrSize( c );
         });
 
@@ -169,6 +178,13 @@ public class UIComponentRenderer
                 htmlElm.getStyle().removeProperty( "background-image" );
             }
         });
+        c.bgImageSrc.onInitAndChange( (newValue,oldValue) -> {
+            if (newValue != null) {
+                htmlElm.getStyle().setProperty( "background-image", String.format( "url(%s)", newValue ) );
+            } else {
+                htmlElm.getStyle().removeProperty( "background-image" );
+            }
+        });
 
         // opacity
         c.opacity
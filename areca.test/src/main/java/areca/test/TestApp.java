@@ -45,7 +45,7 @@ public class TestApp
     public static void main( String[] args ) throws Exception {
         debug = true; //Window.current().getLocation().getSearch().contains( "debug" );
         LOG.info( "DEBUG: %s", debug );
-        LogFactory.DEFAULT_LEVEL = debug ? Level.INFO : Level.WARN;
+        LogFactory.setDefaultLevel( debug ? Level.INFO : Level.WARN );
         LogFactory.setClassLevel( ClientApp.class, Level.INFO );
 
        // Promise.setDefaultErrorHandler( defaultErrorHandler() );
@@ -88,6 +88,9 @@ public class UnitTestsPage
                 .addTests(
                         areca.common.test.AnnotationTest.info,
                         areca.common.test.SequenceTest.info,
+                        areca.common.test.PrimitiveSequenceTest.info,
+                        areca.common.test.MetricsTest.info,
+                        areca.common.test.LogFactoryTest.info,
                         areca.common.test.SequenceOpTest.info,
                         areca.common.test.SameStackEventManagerTest.info,
                         areca.common.test.AsyncEventManagerTest.info,
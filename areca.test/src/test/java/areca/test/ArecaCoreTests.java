@@ -19,6 +19,21 @@ public class ArecaCoreTests extends JUnitTestBase {
         execute( areca.common.test.SequenceTest.info );
     }
 
+    @Test
+    public void primitiveSequenceTest() {
+        execute( areca.common.test.PrimitiveSequenceTest.info );
+    }
+
+    @Test
+    public void metricsTest() {
+        execute( areca.common.test.MetricsTest.info );
+    }
+
+    @Test
+    public void logFactoryTest() {
+        execute( areca.common.test.LogFactoryTest.info );
+    }
+
     @Test
     public void sequenceOpTest() {
         execute( areca.common.test.SequenceOpTest.info );
@@ -70,4 +85,34 @@ public class ArecaCoreTests extends JUnitTestBase {
         execute( areca.ui.test.UIEventManagerTest.info );
     }
 
+    @Test
+    public void uiCompositeTest() {
+        execute( areca.ui.test.UICompositeTest.info );
+    }
+
+    @Test
+    public void cachingListModelTest() {
+        execute( areca.ui.test.CachingListModelTest.info );
+    }
+
+    @Test
+    public void propertyBatchTest() {
+        execute( areca.ui.test.PropertyBatchTest.info );
+    }
+
+    @Test
+    public void cssClassSetTest() {
+        execute( areca.ui.test.CssClassSetTest.info );
+    }
+
+    @Test
+    public void compositeListViewerTest() {
+        execute( areca.ui.test.CompositeListViewerTest.info );
+    }
+
+    @Test
+    public void treeViewerTest() {
+        execute( areca.ui.test.TreeViewerTest.info );
+    }
+
 }
@@ -24,6 +24,8 @@ import areca.common.Platform;
 import areca.common.Session;
 import areca.common.SessionScoper;
 import areca.common.SessionScoper.ThreadBoundSessionScoper;
+import areca.common.event.EventManager;
+import areca.common.event.SameStackEventManager;
 import areca.common.log.LogFactory;
 import areca.common.log.LogFactory.Log;
 import areca.common.reflect.ClassInfo;
@@ -31,6 +33,10 @@ import areca.common.testrunner.AsyncAwareTestRunner;
 import areca.common.testrunner.LogDecorator;
 import areca.rt.server.EventLoop;
 import areca.rt.server.ServerPlatform;
+import areca.rt.server.ServerUIEventHandlers;
+import areca.rt.server.ServerUIEventManager;
+import areca.ui.component2.EventHandlers;
+import areca.ui.component2.UIEventManager;
 
 /**
  * JUnit test runner for Areca core tests, running inside the JVM.
@@ -51,6 +57,10 @@ class JUnitTestBase {
         if (Platform.impl == null) {
             Platform.impl = new ServerPlatform();
             SessionScoper.setInstance( sessionScope );
+            // UI tests: components, properties and models deliver their events synchronously
+            Session.registerFactory( EventManager.class, () -> new SameStackEventManager() );
+            Session.registerFactory( UIEventManager.class, () -> new ServerUIEventManager() );
+            Session.registerFactory( EventHandlers.class, () -> new ServerUIEventHandlers() );
         }
         else {
             Assert.isType( ServerPlatform.class, Platform.impl );
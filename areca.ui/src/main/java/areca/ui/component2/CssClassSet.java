@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2025, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.ui.component2;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import areca.common.Assert;
+import areca.common.AssertionException;
+
+/**
+ * A set of CSS class names backed by a bitset. Every class name gets a global
+ * id on first use ({@link #idOf(String)}); a set just holds the bits of its ids.
+ * Iteration order is the order in which the names were interned.
+ * <p>
+ * The difference of two sets ({@link #without(CssClassSet)}) is a simple bit
+ * operation, which allows renderers to apply just the added and removed classes.
+ * <p>
+ * The global table is copy-on-write: lookups are lock free and can be done by
+ * several threads (sessions) concurrently. A single set is not thread-safe.
+ * <p>
+ * The global table never shrinks. CSS class names must be a static set (constants
+ * of the code and the theme); dynamic values belong into {@link UIComponent#styles}.
+ * The table is bounded to {@link #MAX_NAMES} names.
+ *
+ * @author Falko Bräutigam
+ */
+public class CssClassSet
+        extends AbstractSet<String> {
+
+    /** The max number of distinct class names in the global table. */
+    public static final int     MAX_NAMES = 4096;
+
+    private static final long[] EMPTY = new long[0];
+
+    /** Class name -&gt; id */
+    private static volatile Map<String,Integer> ids = new HashMap<>( 128 );
+
+    /** Id -&gt; class name */
+    private static volatile String[] names = new String[128];
+
+    /**
+     * The global id of the given class name. Interns the name if it is not yet
+     * known.
+     *
+     * @throws AssertionException If the table has {@link #MAX_NAMES} names already.
+     */
+    public static int idOf( String name ) {
+        var id = ids.get( Assert.notNull( name, "CSS class name must not be null" ) );
+        return id != null ? id : intern( name );
+    }
+
+    /**
+     * The class name of the given id.
+     */
+    public static String nameOf( int id ) {
+        return names[id];
+    }
+
+    private static synchronized int intern( String name ) {
+        var id = ids.get( name );
+        if (id == null) {
+            Assert.that( ids.size() < MAX_NAMES, "Too many CSS class names: " + MAX_NAMES + " (use styles for dynamic values)" );
+            var copy = new HashMap<>( ids );
+            id = copy.size();
+            copy.put( name, id );
+            var currentNames = names;
+            if (id >= currentNames.length) {
+                currentNames = Arrays.copyOf( currentNames, currentNames.length * 2 );
+            }
+            currentNames[id] = name; // before ids is published
+            names = currentNames;
+            ids = copy;
+        }
+        return id;
+    }
+
+    /** The id of the given name, or -1 if the name was never interned. */
+    private static int lookup( Object name ) {
+        if (name instanceof String) {
+            var id = ids.get( name );
+            return id != null ? id : -1;
+        }
+        return -1;
+    }
+
+    /**
+     * Creates a new set containing the given class names.
+     */
+    public static CssClassSet of( Collection<String> classes ) {
+        var result = new CssClassSet();
+        result.addAll( classes );
+        return result;
+    }
+
+    // instance *******************************************
+
+    private long[]      bits = EMPTY;
+
+
+    public CssClassSet() {
+    }
+
+
+    protected CssClassSet( long[] bits ) {
+        this.bits = bits;
+    }
+
+
+    /**
+     * A copy of this set.
+     */
+    public CssClassSet copy() {
+        return new CssClassSet( bits.length > 0 ? bits.clone() : EMPTY );
+    }
+
+
+    /**
+     * A new set with the classes of this set that are not contained in the other.
+     */
+    public CssClassSet without( CssClassSet other ) {
+        var result = new long[bits.length];
+        var nonEmpty = false;
+        for (int i = 0; i < bits.length; i++) {
+            result[i] = bits[i] & ~(i < other.bits.length ? other.bits[i] : 0L);
+            nonEmpty |= result[i] != 0;
+        }
+        return new CssClassSet( nonEmpty ? result : EMPTY );
+    }
+
+
+    @Override
+    public boolean add( String name ) {
+        var id = idOf( name );
+        var word = id >>> 6;
+        if (word >= bits.length) {
+            bits = Arrays.copyOf( bits, word + 1 );
+        }
+        var mask = 1L << id;
+        if ((bits[word] & mask) != 0) {
+            return false;
+        }
+        bits[word] |= mask;
+        return true;
+    }
+
+
+    @Override
+    public boolean addAll( Collection<? extends String> c ) {
+        if (c instanceof CssClassSet) {
+            var other = ((CssClassSet)c).bits;
+            if (other.length > bits.length) {
+                bits = Arrays.copyOf( bits, other.length );
+            }
+            var modified = false;
+            for (int i = 0; i < other.length; i++) {
+                var merged = bits[i] | other[i];
+                modified |= merged != bits[i];
+                bits[i] = merged;
+            }
+            return modified;
+        }
+        return super.addAll( c );
+    }
+
+
+    @Override
+    public boolean remove( Object name ) {
+        var id = lookup( name );
+        if (id < 0 || !contains( id )) {
+            return false;
+        }
+        bits[id >>> 6] &= ~(1L << id);
+        return true;
+    }
+
+
+    @Override
+    public boolean contains( Object name ) {
+        var id = lookup( name );
+        return id >= 0 && contains( id );
+    }
+
+
+    protected boolean contains( int id ) {
+        var word = id >>> 6;
+        return word < bits.length && (bits[word] & (1L << id)) != 0;
+    }
+
+
+    @Override
+    public int size() {
+        var result = 0;
+        for (var word : bits) {
+            result += Long.bitCount( word );
+        }
+        return result;
+    }
+
+
+    @Override
+    public boolean isEmpty() {
+        for (var word : bits) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    @Override
+    public void clear() {
+        bits = EMPTY;
+    }
+
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            int next = nextId( 0 );
+            int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public String next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = nextId( next + 1 );
+                return nameOf( last );
+            }
+
+            @Override
+            public void remove() {
+                Assert.that( last >= 0, "next() was not called" );
+                bits[last >>> 6] &= ~(1L << last);
+                last = -1;
+            }
+        };
+    }
+
+
+    /** The next id contained in this set, starting at the given id; -1 if there is none. */
+    protected int nextId( int from ) {
+        var word = from >>> 6;
+        if (word >= bits.length) {
+            return -1;
+        }
+        var w = bits[word] & (-1L << from);
+        while (true) {
+            if (w != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros( w );
+            }
+            if (++word >= bits.length) {
+                return -1;
+            }
+            w = bits[word];
+        }
+    }
+
+
+    @Override
+    public boolean equals( Object obj ) {
+        if (obj instanceof CssClassSet) {
+            var other = ((CssClassSet)obj).bits;
+            var max = Math.max( bits.length, other.length );
+            for (int i = 0; i < max; i++) {
+                if ((i < bits.length ? bits[i] : 0L) != (i < other.length ? other[i] : 0L)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.equals( obj );
+    }
+
+}
@@ -17,14 +17,20 @@ import static areca.ui.component2.UIComponent.PROP_CSS_CLASSES;
 
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.LinkedHashSet;
 
-import areca.common.base.Sequence;
+import areca.common.base.BiConsumer.RBiConsumer;
+import areca.common.base.Opt;
 import areca.common.log.LogFactory;
 import areca.common.log.LogFactory.Log;
 
 /**
+ * The CSS classes of an {@link UIComponent}, stored as {@link CssClassSet}.
+ * <p>
+ * The {@link Property.PropertyChangedEvent}s carry {@link #combined() snapshots} of the
+ * classes before and after the change (including the {@link #setThemeClasses(Collection)
+ * theme classes}), so renderers can apply just the difference (see
+ * {@link CssClassSet#without(CssClassSet)}). Adding an existing or removing a
+ * missing class does not fire an event.
  *
  * @author Falko Bräutigam
  */
@@ -34,38 +40,103 @@ public class CssClassesProperty
     private static final Log LOG = LogFactory.getLog( CssClassesProperty.class );
 
     /** Permanent CSS classes for theming */
-    private Collection<String>  themeClasses = Collections.EMPTY_LIST;
+    private CssClassSet         themeClasses = new CssClassSet();
 
     protected CssClassesProperty( UIComponent component ) {
-        super( component, PROP_CSS_CLASSES, new LinkedHashSet<>() ); // prevent doubles
+        super( component, PROP_CSS_CLASSES, new CssClassSet() );
+    }
+
+    protected CssClassSet classes() {
+        return (CssClassSet)value;
+    }
+
+    /**
+     * A new {@link CssClassSet} with the classes and the theme classes of this
+     * property.
+     */
+    public CssClassSet combined() {
+        var result = classes().copy();
+        result.addAll( themeClasses );
+        return result;
     }
 
     public void setThemeClasses( String... themeClasses ) {
-        this.themeClasses = Arrays.asList( themeClasses );
-        fireEvent( null, value );
+        setThemeClasses( Arrays.asList( themeClasses ) );
     }
 
     public void setThemeClasses( Collection<String> themeClasses ) {
-        this.themeClasses = themeClasses;
-        fireEvent( null, value );
+        var oldValue = combined();
+        this.themeClasses = CssClassSet.of( themeClasses );
+        fireEvent( oldValue, combined() );
     }
 
     public void addThemeClass( String themeClass ) {
-        this.themeClasses.add( themeClass );
-        fireEvent( null, value );
+        if (!themeClasses.contains( themeClass )) {
+            var oldValue = combined();
+            themeClasses.add( themeClass );
+            fireEvent( oldValue, combined() );
+        }
     }
 
     public void removeThemeClass( String themeClass ) {
-        this.themeClasses.remove( themeClass );
-        fireEvent( null, value );
+        if (themeClasses.contains( themeClass )) {
+            var oldValue = combined();
+            themeClasses.remove( themeClass );
+            fireEvent( oldValue, combined() );
+        }
+    }
+
+
+    /**
+     * Copies the given classes into the {@link CssClassSet} of this property.
+     */
+    @Override
+    public ReadWrite<UIComponent,Collection<String>> rawSet( Collection<String> newValue ) {
+        return super.rawSet( CssClassSet.of( newValue ) );
+    }
+
+
+    @Override
+    public UIComponent set( Collection<String> newValue ) {
+        var oldValue = combined();
+        rawSet( newValue );
+        fireEvent( oldValue, combined() );
+        return component;
+    }
+
+
+    @Override
+    public Opt<String> add( String add ) {
+        if (classes().contains( add )) {
+            return Opt.absent();
+        }
+        var oldValue = combined();
+        classes().add( add );
+        valuePresent = true;
+        fireEvent( oldValue, combined() );
+        return Opt.of( add );
+    }
+
+
+    @Override
+    public Opt<String> remove( String remove ) {
+        if (!classes().contains( remove )) {
+            return Opt.absent();
+        }
+        var oldValue = combined();
+        classes().remove( remove );
+        fireEvent( oldValue, combined() );
+        return Opt.of( remove );
     }
 
 
+    /**
+     * The consumer is initialized with the {@link #combined()} classes.
+     */
     @Override
-    protected void fireEvent( Collection<String> oldValue, Collection<String> newValue ) {
-        var combined = Sequence.of( newValue ).concat( themeClasses ).asCollection();
-        //LOG.info( "%s -> %s", component.getClass().getSimpleName(), combined );
-        super.fireEvent( null, combined );
+    public ReadWrite<UIComponent,Collection<String>> onInitAndChange( RBiConsumer<Collection<String>,Collection<String>> consumer ) {
+        consumer.accept( combined(), null );
+        return onChange( consumer );
     }
 
-}
\ No newline at end of file
+}
@@ -18,6 +18,7 @@ import java.util.Deque;
 import java.util.EventObject;
 import org.apache.commons.lang3.ArrayUtils;
 
+import areca.common.Assert;
 import areca.common.Platform;
 import areca.common.Promise;
 import areca.common.Session;
@@ -51,23 +52,44 @@ public class EventHandlers {
     private static Double           lastTimestamp = Double.valueOf( 0 );
 
 
+    private static final RConsumer[] NO_HANDLERS = {};
+
+
     public static EventHandlers create() {
         return Session.createInstance( EventHandlers.class );
     }
 
 
+    /**
+     * One instance without handlers, shared by all properties of the current
+     * {@link Session} that do not have handlers (yet). Must not get handlers added.
+     * <p>
+     * Session scoped, so that it is always created by the factory of the runtime
+     * (which forwards events without handlers to the server for example).
+     *
+     * @see Property#handlers
+     */
+    public static EventHandlers shared() {
+        return Session.instanceOf( EventHandlers.class );
+    }
+
+
     // instance *******************************************
 
     // copy-on-write
-    protected RConsumer[]           handlers = {};
+    protected RConsumer[]           handlers = NO_HANDLERS;
 
 
     public <T extends EventObject> void add( RConsumer<T> consumer ) {
+        Assert.that( this != shared(), "Must not add handlers to the shared instance." );
         handlers = ArrayUtils.add( handlers, consumer );
     }
 
 
     public void fireEvent( PropertyChangedEvent<Object> ev ) {
+        if (handlers.length == 0) {
+            return;
+        }
         if (eventQueue.isEmpty()) {
             async = Platform.requestAnimationFrame( ts -> processEvents( ts ) );
         }
@@ -13,9 +13,13 @@
  */
 package areca.ui.component2;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EventObject;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 
@@ -58,13 +62,95 @@ public abstract class Property<C,T> {
     }
 
 
+    /** The {@link Batch} of the current thread, if any. */
+    private static final ThreadLocal<Batch> batches = new ThreadLocal<>();
+
+    /**
+     * Defers the {@link PropertyChangedEvent}s of all property changes made by the
+     * given task until the task has finished. Multiple changes of one property
+     * result in one event with the first old value and the last new value; the
+     * events are fired in the order of the first change of each property. No event
+     * is fired for a property that was changed back to its original value.
+     * <p>
+     * A nested batch joins the outer one. The values are set immediately; just the
+     * events are deferred, also if the task fails. No events are fired for the
+     * properties of components that were disposed by the task.
+     */
+    public static void batch( Runnable task ) {
+        if (batches.get() != null) {
+            task.run();
+            return;
+        }
+        var batch = new Batch();
+        batches.set( batch );
+        try {
+            task.run();
+        }
+        finally {
+            batches.remove();
+            batch.flush();
+        }
+    }
+
+
+    /**
+     * The pending events of a {@link Property#batch(Runnable)}.
+     */
+    protected static class Batch {
+
+        protected List<Pending> pending = new ArrayList<>();
+
+        protected Map<Property<?,?>,Pending> byProperty = new IdentityHashMap<>();
+
+        protected void add( Property<?,?> prop, Object oldValue, Object newValue ) {
+            var existing = byProperty.get( prop );
+            if (existing == null) {
+                var added = new Pending( prop, oldValue, newValue );
+                pending.add( added );
+                byProperty.put( prop, added );
+            }
+            else {
+                existing.newValue = newValue;
+            }
+        }
+
+        protected void flush() {
+            for (var p : pending) {
+                // disposed in the batch: the render events would refer to a removed component
+                var component = p.prop.component();
+                if (!(component instanceof UIElement && ((UIElement)component).isDisposed())) {
+                    p.prop.doFireEvent( p.oldValue, p.newValue );
+                }
+            }
+        }
+    }
+
+    /** The first old and the last new value of a property in a {@link Batch}. */
+    protected static class Pending {
+
+        protected Property<?,?> prop;
+
+        protected Object        oldValue;
+
+        protected Object        newValue;
+
+        protected Pending( Property<?,?> prop, Object oldValue, Object newValue ) {
+            this.prop = prop;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+    }
+
+
+
     // instance *******************************************
 
     protected C         component;
 
     protected String    name;
 
-    protected EventHandlers handlers = EventHandlers.create();
+    /** {@link EventHandlers#shared()} until the first handler is added. */
+    protected EventHandlers handlers = EventHandlers.shared();
 
 
     protected Property( C component, String name ) {
@@ -112,6 +198,16 @@ public abstract class Property<C,T> {
     }
 
     protected void fireEvent( T oldValue, T newValue ) {
+        var batch = batches.get();
+        if (batch != null) {
+            batch.add( this, oldValue, newValue );
+        }
+        else {
+            doFireEvent( oldValue, newValue );
+        }
+    }
+
+    private void doFireEvent( Object oldValue, Object newValue ) {
         if (!Objects.equals( oldValue, newValue )) {
             handlers.fireEvent( new PropertyChangedEvent<>( this, oldValue, newValue ) );
         }
@@ -217,6 +313,9 @@ public abstract class Property<C,T> {
         }
 
         public ReadWrite<C,T> onChange( RBiConsumer<T,T> consumer ) {
+            if (handlers == EventHandlers.shared()) {
+                handlers = EventHandlers.create();
+            }
             handlers.add( (PropertyChangedEvent<T> ev) -> {
                 //LOG.debug( "HANDLE: %s:%s -> %s (%s)", component().getClass().getSimpleName(), name, ev.getNewValue(), ev.getOldValue() );
                 consumer.accept( ev.getNewValue(), ev.getOldValue() );
@@ -15,6 +15,7 @@ package areca.ui.component2;
 
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.TreeMap;
 import java.util.function.Supplier;
 
@@ -127,10 +128,24 @@ public abstract class UIComponent
      */
     public ReadWrite<UIComponent,String>    bgImage = new ReadWrite<>( this, "bgImage" );
 
+    /**
+     * URL of the image to be displayed as the background of this component.
+     * @see #bgImage
+     */
+    public ReadWrite<UIComponent,String>    bgImageSrc = new ReadWrite<>( this, "bgImageSrc" );
+
     /**
      * The size of the component. Usually this is set by a {@link LayoutManager} only.
      * */
-    public ReadWrite<UIComponent,Size>      size = Property.rw( this, PROP_SIZE );
+    public ReadWrite<UIComponent,Size>      size = new ReadWrite<>( this, PROP_SIZE ) {
+        @Override
+        protected void fireEvent( Size oldValue, Size newValue ) {
+            super.fireEvent( oldValue, newValue );
+            if (!Objects.equals( oldValue, newValue )) {
+                sizeChanged();
+            }
+        }
+    };
 
     public ReadOnly<UIComponent,Size>       clientSize = Property.rw( this, "clientSize" );
 
@@ -163,7 +178,15 @@ public abstract class UIComponent
     /**
      * Optional constraints of this component in the {@link LayoutManager} of the {@link #parent()}.
      */
-    public ReadWrite<UIComponent,LayoutConstraints> layoutConstraints = Property.rw( this, "lc" );
+    public ReadWrite<UIComponent,LayoutConstraints> layoutConstraints = new ReadWrite<>( this, "lc" ) {
+        @Override
+        protected void fireEvent( LayoutConstraints oldValue, LayoutConstraints newValue ) {
+            super.fireEvent( oldValue, newValue );
+            if (parent != null && !Objects.equals( oldValue, newValue )) {
+                parent.invalidateLayout();
+            }
+        }
+    };
 
     /** Shortcut to {@link #layoutConstraints()}. */
     public UIComponent lc( LayoutConstraints lc ) {
@@ -275,10 +298,40 @@ public abstract class UIComponent
     }
 
 
+    /**
+     * Called when {@link #size} has changed.
+     */
+    protected void sizeChanged() {
+    }
+
+
+    /**
+     * Signals that the {@link #computeMinHeight(int) minimum size} of this component
+     * might have changed. Components whose minimum size depends on something other
+     * than their children and layout (their content for example) must call this when
+     * it changes: the parents cache their minimum size and have to be laid out again.
+     */
+    public void invalidateMinSize() {
+        if (parent != null) {
+            parent.invalidateLayout();
+        }
+    }
+
+
+    /**
+     * The minimum height of this component for the given width.
+     *
+     * @see #invalidateMinSize()
+     */
     public int computeMinHeight( int width ) {
         return DEFAULT_HEIGHT;
     }
 
+    /**
+     * The minimum width of this component for the given height.
+     *
+     * @see #invalidateMinSize()
+     */
     public int computeMinWidth( int height ) {
         return DEFAULT_HEIGHT;
     }
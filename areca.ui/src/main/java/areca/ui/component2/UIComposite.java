@@ -14,6 +14,10 @@
 package areca.ui.component2;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
 import areca.common.Assert;
 import areca.common.base.Consumer;
 import areca.common.base.Opt;
@@ -31,7 +35,16 @@ public class UIComposite
     public static final String PROP_COMPONENTS = "components";
     public static final String PROP_LAYOUT = "layout";
 
-    public ReadWrite<UIComposite,LayoutManager> layout = Property.rw( this, PROP_LAYOUT );
+    /** No {@link #computeMinWidth(int)}/{@link #computeMinHeight(int)} cached. */
+    private static final int    NOT_CACHED = Integer.MIN_VALUE;
+
+    public ReadWrite<UIComposite,LayoutManager> layout = new ReadWrite<>( this, PROP_LAYOUT ) {
+        @Override
+        protected void fireEvent( LayoutManager oldValue, LayoutManager newValue ) {
+            super.fireEvent( oldValue, newValue );
+            invalidateLayout();
+        }
+    };
 
     public UIComposite lm( LayoutManager lm ) {
         layout.set( lm );
@@ -48,6 +61,19 @@ public class UIComposite
      */
     public ReadWrite<?,Boolean> isForm = Property.rw( this, "isForm", false );
 
+    /**
+     * The {@link #layout} of this composite has to be (re)computed: its size, its
+     * children or their constraints have changed.
+     */
+    protected boolean           layoutDirty = true;
+
+    /** The layout of (at least) one descendant has to be (re)computed. */
+    protected boolean           subtreeDirty;
+
+    private int                 minWidthFor = NOT_CACHED, minWidth;
+
+    private int                 minHeightFor = NOT_CACHED, minHeight;
+
     /**  */
     public class Children
             extends ReadWrites<UIComposite,UIComponent> {
@@ -57,6 +83,12 @@ public class UIComposite
             rawSet( new ArrayList<>() );
         }
 
+        @Override
+        protected void fireEvent( Collection<UIComponent> oldValue, Collection<UIComponent> newValue ) {
+            super.fireEvent( oldValue, newValue );
+            invalidateLayout();
+        }
+
         @Override
         public Opt<UIComponent> add( UIComponent add ) {
             return super.add( Assert.notNull( add ) ).ifPresent( __ -> {
@@ -89,6 +121,44 @@ public class UIComposite
             });
         }
 
+        /**
+         * Makes the given components the children of this composite, in the given
+         * order. New components are attached, children that are not in the list are
+         * removed. Children that are in the list are just moved, they are not
+         * detached/attached again. Fires one event, if anything has changed.
+         *
+         * @return The removed children.
+         */
+        public List<UIComponent> reconcile( List<? extends UIComponent> target ) {
+            var oldValue = values().toList();
+            if (oldValue.equals( target )) {
+                return new ArrayList<>();
+            }
+            var targetSet = new HashSet<UIComponent>( target );
+            var currentSet = new HashSet<UIComponent>( oldValue );
+            var removed = new ArrayList<UIComponent>();
+            try {
+                valuePresent = true;
+                value.clear();
+                value.addAll( target );
+                for (var c : oldValue) {
+                    if (!targetSet.contains( c )) {
+                        removed.add( c );
+                        c.detachedFrom( UIComposite.this );
+                    }
+                }
+                for (var c : target) {
+                    if (!currentSet.contains( c )) {
+                        c.attachedTo( UIComposite.this );
+                    }
+                }
+                return removed;
+            }
+            finally {
+                fireEvent( oldValue, values().toList() );
+            }
+        }
+
         public void disposeAll() {
             new ArrayList<>( value ).forEach( child -> child.dispose() );
             Assert.that( value.isEmpty() );
@@ -135,19 +205,38 @@ public class UIComposite
 
 
     /**
-     * Refreshes the layout of the components of this composite.
+     * Refreshes the layout of the components of this composite and of the children
+     * that are dirty, or have dirty descendants. The layout of a child is dirty if its
+     * size was changed (by the layout of this composite), or if its children or their
+     * {@link UIComponent#layoutConstraints} were changed. Other children are skipped.
      *
      * @return this
      */
     public UIComposite layout() {
         layout.opt().ifPresent( lm -> lm.layout( this ) );
+        layoutDirty = false;
+        layoutChildren();
+        return this;
+    }
 
+
+    /**
+     * Refreshes the layout of the dirty children, without refreshing the layout of
+     * this composite.
+     */
+    protected void layoutChildren() {
         for (var child : components.value()) {
-            if (child instanceof UIComposite ) {
-                ((UIComposite)child).layout();
+            if (child instanceof UIComposite) {
+                var composite = (UIComposite)child;
+                if (composite.layoutDirty) {
+                    composite.layout();
+                }
+                else if (composite.subtreeDirty) {
+                    composite.layoutChildren();
+                }
             }
         }
-        return this;
+        subtreeDirty = false;
     }
 
 
@@ -157,19 +246,71 @@ public class UIComposite
      */
     public UIComposite layout_() {
         layout.opt().ifPresent( lm -> lm.layout( this ) );
+        layoutDirty = false;
         return this;
     }
 
 
+    /**
+     * Signals that the minimum size of this composite might have changed, so that
+     * it and all its parents have to be laid out again. This is done automatically
+     * if children or {@link UIComponent#layoutConstraints} are changed. Client code
+     * calls this if something else has changed, like a setting of the
+     * {@link #layout} manager.
+     */
+    public void invalidateLayout() {
+        for (var c = this; c != null; c = c.parent()) {
+            c.layoutDirty = true;
+            c.minWidthFor = c.minHeightFor = NOT_CACHED;
+        }
+    }
+
+
+    @Override
+    public void invalidateMinSize() {
+        invalidateLayout();
+    }
+
+
+    /**
+     * The size of this composite has changed: its layout has to be refreshed,
+     * and all parents have a dirty descendant.
+     */
+    @Override
+    protected void sizeChanged() {
+        layoutDirty = true;
+        minWidthFor = minHeightFor = NOT_CACHED;
+        for (var p = parent(); p != null && !p.subtreeDirty; p = p.parent()) {
+            p.subtreeDirty = true;
+        }
+    }
+
+
+    /**
+     * Cached until {@link #invalidateLayout()}, {@link #invalidateMinSize()} of a
+     * child or {@link #size} change.
+     */
     @Override
     public int computeMinWidth( int height ) {
-        return layout.opt().map( l -> l.computeMinWidth( this, height ) ).orElse( 100 );
+        if (minWidthFor != height) {
+            minWidth = layout.opt().map( l -> l.computeMinWidth( this, height ) ).orElse( 100 );
+            minWidthFor = height;
+        }
+        return minWidth;
     }
 
 
+    /**
+     * Cached until {@link #invalidateLayout()}, {@link #invalidateMinSize()} of a
+     * child or {@link #size} change.
+     */
     @Override
     public int computeMinHeight( int width ) {
-        return layout.opt().map( l -> l.computeMinHeight( this, width ) ).orElse( 100 );
+        if (minHeightFor != width) {
+            minHeight = layout.opt().map( l -> l.computeMinHeight( this, width ) ).orElse( 100 );
+            minHeightFor = width;
+        }
+        return minHeight;
     }
 
 }
@@ -13,7 +13,9 @@
  */
 package areca.ui.component2;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import areca.common.Session;
@@ -59,13 +61,64 @@ public abstract class UIElement
         }
     }
 
+    /**
+     * The properties of the instances of one class: the number of properties and
+     * the slot of each property in {@link UIElement#properties}. All instances
+     * of a class register their properties in the same order.
+     */
+    protected static class PropertyTable {
+
+        /** Copy-on-write; read without lock. */
+        private static volatile Map<Class<?>,PropertyTable> tables = new HashMap<>();
+
+        public static PropertyTable of( Class<?> type ) {
+            var result = tables.get( type );
+            if (result == null) {
+                synchronized (PropertyTable.class) {
+                    result = tables.get( type );
+                    if (result == null) {
+                        var copy = new HashMap<>( tables );
+                        copy.put( type, result = new PropertyTable() );
+                        tables = copy;
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * The max number of properties of an instance seen so far; initial size of
+         * {@link UIElement#properties}. Just a hint, no need to synchronize.
+         */
+        protected int                   size = 8;
+
+        /** Property name -&gt; slot; built on first lookup. */
+        protected volatile Map<String,Integer> slots;
+
+        protected int slotOf( UIElement elm, String name ) {
+            if (slots == null) {
+                var map = new HashMap<String,Integer>( elm.propertyCount * 2 );
+                for (int i = 0; i < elm.propertyCount; i++) {
+                    map.put( elm.properties[i].name(), i ); // last one wins
+                }
+                slots = map;
+            }
+            return slots.getOrDefault( name, -1 );
+        }
+    }
+
     // instance *******************************************
 
     private int                         id = SessionUniqueId.next();
 
     private boolean                     disposed;
 
-    private Map<String,Property<?,?>>   properties = new HashMap<>( 32 );
+    private PropertyTable               propertyTable = PropertyTable.of( getClass() );
+
+    /** The registered properties, in order of registration. */
+    private Property<?,?>[]             properties = new Property<?,?>[propertyTable.size];
+
+    private int                         propertyCount;
 
     /**
      * Init
@@ -112,17 +165,44 @@ public abstract class UIElement
 
     @Override
     public void registerProperty( Property<?,?> prop ) {
-        properties.put( prop.name(), prop );
+        if (propertyCount == properties.length) {
+            properties = Arrays.copyOf( properties, propertyCount * 2 );
+        }
+        properties[propertyCount++] = prop;
+        if (propertyCount > propertyTable.size) {
+            propertyTable.size = propertyCount;
+        }
     }
 
 
+    /**
+     * The properties of this element. If multiple properties with the same name
+     * were registered, then just the last one.
+     */
     @Override
     public Iterable<Property<?,?>> properties() {
-        return properties.values();
+        var result = new LinkedHashMap<String,Property<?,?>>( propertyCount * 2 );
+        for (int i = 0; i < propertyCount; i++) {
+            result.put( properties[i].name(), properties[i] );
+        }
+        return result.values();
     }
 
 
+    /**
+     * The (last registered) property with the given name, or null.
+     */
     public Property<?,?> propertyForName( String name ) {
-        return properties.get( name );
+        var slot = propertyTable.slotOf( this, name );
+        if (slot >= 0 && slot < propertyCount && properties[slot].name().equals( name )) {
+            return properties[slot];
+        }
+        // registered in different order or later
+        for (int i = propertyCount - 1; i >= 0; i--) {
+            if (properties[i].name().equals( name )) {
+                return properties[i];
+            }
+        }
+        return null;
     }
 }
@@ -60,7 +60,7 @@ public class UIEventManager
         if (eventQueue.isEmpty()) {
             async = Platform.requestAnimationFrame( ts -> processEvents( ts ) );
         }
-        eventQueue.addLast( new Event( ev, handlers ) );
+        eventQueue.addLast( new Event( ev, handlersFor( ev ) ) );
     }
 
 
@@ -69,7 +69,7 @@ public class UIEventManager
         if (eventQueue.isEmpty()) {
             async = Platform.requestAnimationFrame( ts -> processEvents( ts ) );
         }
-        var queued = new Event( ev, handlers );
+        var queued = new Event( ev, handlersFor( ev ) );
         eventQueue.addLast( queued );
         return queued.promise();
     }
@@ -73,8 +73,8 @@ public class FillLayout
     public int computeMinWidth( UIComposite composite, int height ) {
         if (orientation == Orientation.HORIZONTAL) {
             return composite.components.values()
-                    .map( c -> c.computeMinWidth( height ) )
-                    .reduce( 0, (r,w) -> r + w );
+                    .mapToInt( c -> c.computeMinWidth( height ) )
+                    .sum();
         }
         else {
             throw new RuntimeException( "not yet implemented." );
@@ -86,8 +86,8 @@ public class FillLayout
     public int computeMinHeight( UIComposite composite, int width ) {
         if (orientation == Orientation.HORIZONTAL) {
             return composite.components.values()
-                    .map( c -> c.computeMinHeight( width / composite.components.size() ) )
-                    .reduce( Math::max ).orElse( 0 );
+                    .mapToInt( c -> c.computeMinHeight( width / composite.components.size() ) )
+                    .max().orElse( 0 );
         }
         else {
             throw new RuntimeException( "not yet implemented." );
@@ -21,7 +21,6 @@ import java.util.HashMap;
 import org.apache.commons.lang3.tuple.Pair;
 
 import areca.common.Timer;
-import areca.common.base.Sequence;
 import areca.common.log.LogFactory;
 import areca.common.log.LogFactory.Log;
 import areca.ui.Orientation;
@@ -115,6 +114,9 @@ public class RowLayout
     }
 
 
+    /** Used for components without {@link RowConstraints}; never modified. */
+    private static final RowConstraints DEFAULT_CONSTRAINTS = new RowConstraints();
+
     /**
      *
      */
@@ -135,11 +137,13 @@ public class RowLayout
     public int computeMinWidth( UIComposite composite, int height ) {
         //Assert.that( composite.clientSize.opt().isPresent() );
         Size size = composite.clientSize.opt().orElse( Size.of( 50, 50 ) );
-        var result = compute( composite, Size.of( size.width(), height ) );
-        return Sequence.of( result.values() )
-                .map( p -> p.getLeft().x + p.getRight().width() + margins.$().width() )
-                .reduce( Math::max )
-                .orElse( 0 );
+        var components = orderedComponents( composite ).toArray( new UIComponent[0] );
+        var bounds = computeBounds( components, size.width(), height );
+        int result = 0;
+        for (int i = 0; i < components.length; i++) {
+            result = Math.max( result, bounds[i*4] + bounds[i*4+2] + margins.$().width() );
+        }
+        return result;
     }
 
 
@@ -147,113 +151,170 @@ public class RowLayout
     public int computeMinHeight( UIComposite composite, int width ) {
         //Assert.that( composite.clientSize.opt().isPresent() );
         Size size = composite.clientSize.opt().orElse( Size.of( 50, 50 ) );
-        var result = compute( composite, Size.of( width, size.height() ) );
-        return Sequence.of( result.values() )
-                .map( p -> p.getLeft().y + p.getRight().height() + margins.$().height() )
-                .reduce( Math::max )
-                .orElse( 0 );
+        var components = orderedComponents( composite ).toArray( new UIComponent[0] );
+        var bounds = computeBounds( components, width, size.height() );
+        int result = 0;
+        for (int i = 0; i < components.length; i++) {
+            result = Math.max( result, bounds[i*4+1] + bounds[i*4+3] + margins.$().height() );
+        }
+        return result;
     }
 
 
+    /**
+     * Sets position and size of the components. Values that have not changed are
+     * not set again, so no {@link Position}/{@link Size} is created for them.
+     */
     @Override
     public void layout( UIComposite composite ) {
         super.layout( composite );
         composite.clientSize.opt().ifPresent( size -> {
-            for (var entry : compute( composite, size ).entrySet()) {
-                entry.getKey().position.set( entry.getValue().getLeft() );
-                entry.getKey().size.set( entry.getValue().getRight() );
+            var components = orderedComponents( composite ).toArray( new UIComponent[0] );
+            var bounds = computeBounds( components, size.width(), size.height() );
+            for (int i = 0; i < components.length; i++) {
+                var c = components[i];
+                int x = bounds[i*4], y = bounds[i*4+1], width = bounds[i*4+2], height = bounds[i*4+3];
+
+                var position = c.position.opt().orNull();
+                if (position == null || position.x != x || position.y != y) {
+                    c.position.set( Position.of( x, y ) );
+                }
+                var currentSize = c.size.opt().orNull();
+                if (currentSize == null || currentSize.width() != width || currentSize.height() != height) {
+                    c.size.set( Size.of( width, height ) );
+                }
             }
         });
     }
 
 
+    /**
+     * Computes positions and sizes of the components in the given (outer) size.
+     * The layout itself uses {@link #computeBounds(UIComponent[], int, int)},
+     * which does not create a map and {@link Pair}s.
+     */
     public Config compute( UIComposite composite, Size size ) {
-        var t = Timer.start();
         var result = new Config();
-        var clientSize = Size.of(
-                size.width() - (margins.value().width() * 2),
-                size.height() - (margins.value().height() * 2) );
+        var components = orderedComponents( composite ).toArray( new UIComponent[0] );
+        var bounds = computeBounds( components, size.width(), size.height() );
+        for (int i = 0; i < components.length; i++) {
+            result.put( components[i],
+                    Position.of( bounds[i*4], bounds[i*4+1] ),
+                    Size.of( bounds[i*4+2], bounds[i*4+3] ) );
+        }
+        return result;
+    }
+
+
+    /**
+     * Computes positions and sizes of the given components in the given (outer)
+     * size.
+     *
+     * @return x, y, width, height of each component, in the order of the components.
+     */
+    protected int[] computeBounds( UIComponent[] components, int width, int height ) {
+        var t = Timer.start();
+        var result = new int[components.length * 4];
+        int marginWidth = margins.value().width();
+        int marginHeight = margins.value().height();
+        int clientWidth = width - (marginWidth * 2);
+        int clientHeight = height - (marginHeight * 2);
+        int space = spacing.value();
 
         // VERTICAL
         if (orientation.value() == VERTICAL) {
             // the width to be filled by components without width set
-            int freeHeight = clientSize.height();
+            int freeHeight = clientHeight;
             int freeCount = 0;
-            for (var c : composite.components.value()) {
-                var constraints = c.<RowConstraints>layoutConstraints().orElse( new RowConstraints() );
-                freeHeight -= constraints.height.opt().orElse( 0 ) + spacing.value();
+            for (var c : components) {
+                var constraints = constraintsOf( c );
+                freeHeight -= constraints.height.opt().orElse( 0 ) + space;
                 freeCount += constraints.height.opt().isPresent() ? 0 : 1;
             }
-            int freeComponentHeight = freeCount > 0 ? (freeHeight + spacing.value()) / freeCount : 0;
+            int freeComponentHeight = freeCount > 0 ? (freeHeight + space) / freeCount : 0;
 
             // components
-            int cTop = margins.value().height();
-            for (UIComponent c : orderedComponents( composite )) {
-                var constraints = c.<RowConstraints>layoutConstraints().orElse( new RowConstraints() );
+            int cTop = marginHeight;
+            for (int i = 0; i < components.length; i++) {
+                var c = components[i];
+                var constraints = constraintsOf( c );
 
                 // height
                 int cHeight = constraints.height.opt().orElse( -1 );
                 if (constraints.heightPercent.opt().isPresent()) {
-                    var percentHeight = clientSize.height() * constraints.heightPercent.$() / 100;
+                    var percentHeight = clientHeight * constraints.heightPercent.$() / 100;
                     cHeight = percentHeight > cHeight ? percentHeight : cHeight;
                 }
                 if (cHeight == -1 && fillHeight.value()) {
                     cHeight = freeComponentHeight;
                 }
                 if (cHeight == -1) {
-                    cHeight = c.computeMinHeight( clientSize.width() );
+                    cHeight = c.computeMinHeight( clientWidth );
                 }
 
                 // width
                 int cWidth = fillWidth.value()
-                        ? clientSize.width()
-                        : constraints.width.opt().orElse( c.computeMinWidth( clientSize.height() ) );
-
-                result.put( c,
-                        Position.of( margins.value().width(), cTop ),
-                        Size.of( cWidth, cHeight ) );
+                        ? clientWidth
+                        : constraints.width.opt().isPresent()
+                                ? constraints.width.$()
+                                : c.computeMinWidth( clientHeight );
 
-                cTop += cHeight + spacing.value();
+                set( result, i, marginWidth, cTop, cWidth, cHeight );
+                cTop += cHeight + space;
             }
         }
         // HORIZONTAL
         else {
-            int cLeft = margins.value().width();
+            int cLeft = marginWidth;
 
             // the width to be filled by components without width set
-            int freeWidth = clientSize.width();
+            int freeWidth = clientWidth;
             int freeCount = 0;
-            for (var c : composite.components.value()) {
-                var constraints = c.<RowConstraints>layoutConstraints().orElse( new RowConstraints() );
-                freeWidth -= constraints.width.opt().orElse( 0 ) + spacing.value();
+            for (var c : components) {
+                var constraints = constraintsOf( c );
+                freeWidth -= constraints.width.opt().orElse( 0 ) + space;
                 freeCount += constraints.width.opt().isPresent() ? 0 : 1;
             }
-            int freeComponentWidth = freeCount > 0 ? (freeWidth + spacing.value()) / freeCount : 0;
-            LOG.debug( "%s %s %s %s", composite.components.size(), freeCount, freeWidth, freeComponentWidth );
+            int freeComponentWidth = freeCount > 0 ? (freeWidth + space) / freeCount : 0;
+            LOG.debug( "%s %s %s %s", components.length, freeCount, freeWidth, freeComponentWidth );
 
             // components
-            for (UIComponent c : orderedComponents( composite )) {
-                var constraints = c.<RowConstraints>layoutConstraints().orElse( new RowConstraints() );
+            for (int i = 0; i < components.length; i++) {
+                var c = components[i];
+                var constraints = constraintsOf( c );
 
                 // width
                 //Assert.that( constraints.widthPercent.opt().isAbsent(), "RowConstraints.widthPercent is not yet supported" );
-                int cWidth = constraints.width.opt().orElse(
-                        fillWidth.value() ? freeComponentWidth : c.computeMinWidth( clientSize.height() ) );
+                int cWidth = constraints.width.opt().isPresent()
+                        ? constraints.width.$()
+                        : fillWidth.value() ? freeComponentWidth : c.computeMinWidth( clientHeight );
 
                 // height
                 int cHeight = fillHeight.value()
-                        ? clientSize.height()
-                        : constraints.height.opt().orElse( c.computeMinHeight( clientSize.width() ) );
+                        ? clientHeight
+                        : constraints.height.opt().isPresent()
+                                ? constraints.height.$()
+                                : c.computeMinHeight( clientWidth );
 
-                result.put( c,
-                        Position.of( cLeft, margins.value().height() ),
-                        Size.of( cWidth, cHeight ) );
-
-                cLeft += cWidth + spacing.value();
+                set( result, i, cLeft, marginHeight, cWidth, cHeight );
+                cLeft += cWidth + space;
             }
         }
-        LOG.debug( "compute: %s (%s)", size, t );
+        LOG.debug( "compute: %sx%s (%s)", width, height, t );
         return result;
     }
 
+
+    protected RowConstraints constraintsOf( UIComponent c ) {
+        return c.<RowConstraints>layoutConstraints().orElse( DEFAULT_CONSTRAINTS );
+    }
+
+
+    private static void set( int[] bounds, int i, int x, int y, int width, int height ) {
+        bounds[i*4] = x;
+        bounds[i*4+1] = y;
+        bounds[i*4+2] = width;
+        bounds[i*4+3] = height;
+    }
+
 }
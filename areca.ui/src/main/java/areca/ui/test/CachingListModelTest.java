@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2025, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.ui.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import areca.common.Assert;
+import areca.common.Promise;
+import areca.common.base.Opt;
+import areca.common.reflect.ClassInfo;
+import areca.common.testrunner.After;
+import areca.common.testrunner.Test;
+import areca.ui.viewer.model.CachingListModel;
+import areca.ui.viewer.model.LazyListModel;
+import areca.ui.viewer.model.ListModelChangeEvent;
+import areca.ui.viewer.model.ModelBaseImpl;
+
+/**
+ * Paging, prefetch and invalidation of {@link CachingListModel}.
+ *
+ * @author Falko Bräutigam
+ */
+@Test
+public class CachingListModelTest {
+
+    public static final ClassInfo<CachingListModelTest> info = CachingListModelTestClassInfo.instance();
+
+    public static final int PAGE_SIZE = 10;
+
+    /** The delegate: records the requests. */
+    static class Source
+            extends ModelBaseImpl
+            implements LazyListModel<Integer> {
+
+        List<Integer>   data = new ArrayList<>();
+
+        /** The first index of every load request */
+        List<Integer>   loaded = new ArrayList<>();
+
+        int             counted;
+
+        Source( int size ) {
+            for (int i = 0; i < size; i++) {
+                data.add( i );
+            }
+        }
+
+        @Override
+        public Promise<Integer> count() {
+            counted ++;
+            return Promise.async( data.size() );
+        }
+
+        @Override
+        public Promise<Opt<Integer>> load( int first, int max ) {
+            loaded.add( first );
+            var end = (int)Math.min( (long)first + max, data.size() );
+            var result = new ArrayList<Opt<Integer>>();
+            for (int i = first; i < end; i++) {
+                result.add( Opt.of( data.get( i ) ) );
+            }
+            result.add( Opt.absent() );
+            return Promise.serial( result.size(), i -> Promise.async( result.get( i ) ) );
+        }
+    }
+
+    protected Source                    source = new Source( 100 );
+
+    protected CachingListModel<Integer> model = new CachingListModel<>( source ).pageSize( PAGE_SIZE );
+
+
+    @After
+    public void tearDown() {
+        model.dispose();
+    }
+
+
+    protected Promise<List<Integer>> values( int first, int max ) {
+        return model.load( first, max ).reduce( new ArrayList<Integer>(), (result, opt) -> {
+            opt.ifPresent( v -> result.add( v ) );
+        });
+    }
+
+
+    protected List<Integer> range( int first, int end ) {
+        var result = new ArrayList<Integer>();
+        for (int i = first; i < end; i++) {
+            result.add( i );
+        }
+        return result;
+    }
+
+
+    /** Prefetched pages are requested before the page of the range. */
+    protected List<Integer> sorted( List<Integer> loaded ) {
+        var result = new ArrayList<>( loaded );
+        Collections.sort( result );
+        return result;
+    }
+
+
+    @Test
+    public Promise<?> loadTest() {
+        model.prefetch( 0 );
+        return values( 5, 10 ).onSuccess( values -> {
+            Assert.isEqual( range( 5, 15 ), values );
+            Assert.isEqual( List.of( 0, 10 ), source.loaded );
+        });
+    }
+
+
+    @Test
+    public Promise<?> loadEndTest() {
+        return values( 95, 10 ).onSuccess( values -> {
+            Assert.isEqual( range( 95, 100 ), values );
+        });
+    }
+
+
+    @Test
+    public Promise<?> rangeCacheTest() {
+        model.prefetch( 0 );
+        return values( 0, 20 )
+                .then( __ -> values( 12, 5 ) )
+                .onSuccess( values -> {
+                    Assert.isEqual( range( 12, 17 ), values );
+                    Assert.isEqual( List.of( 0, 10 ), source.loaded );
+                });
+    }
+
+
+    @Test
+    public Promise<?> countTest() {
+        return model.count()
+                .then( __ -> model.count() )
+                .onSuccess( count -> {
+                    Assert.isEqual( 100, count );
+                    Assert.isEqual( 1, source.counted );
+                });
+    }
+
+
+    @Test
+    public Promise<?> prefetchTest() {
+        return model.count()
+                // scroll down: next page
+                .then( __ -> values( 0, 10 ) )
+                .then( __ -> {
+                    Assert.isEqual( List.of( 0, 10 ), sorted( source.loaded ) );
+                    return values( 10, 10 );
+                })
+                .then( __ -> {
+                    Assert.isEqual( List.of( 0, 10, 20 ), sorted( source.loaded ) );
+                    return values( 50, 10 );
+                })
+                // scroll up: previous page
+                .then( __ -> {
+                    Assert.isEqual( List.of( 0, 10, 20, 50, 60 ), sorted( source.loaded ) );
+                    return values( 40, 10 );
+                })
+                .onSuccess( values -> {
+                    Assert.isEqual( range( 40, 50 ), values );
+                    Assert.isEqual( List.of( 0, 10, 20, 30, 40, 50, 60 ), sorted( source.loaded ) );
+                });
+    }
+
+
+    @Test
+    public Promise<?> prefetchEndTest() {
+        return model.count()
+                .then( __ -> values( 90, 10 ) )
+                .onSuccess( values -> {
+                    // no page after the last one
+                    Assert.isEqual( List.of( 90 ), source.loaded );
+                });
+    }
+
+
+    @Test
+    public Promise<?> maxPagesTest() {
+        model.prefetch( 0 ).maxPages( 2 );
+        return values( 0, 10 )
+                .then( __ -> values( 10, 10 ) )
+                .then( __ -> values( 20, 10 ) )
+                .then( __ -> values( 0, 10 ) )
+                .onSuccess( values -> {
+                    Assert.isEqual( range( 0, 10 ), values );
+                    Assert.isEqual( List.of( 0, 10, 20, 0 ), source.loaded );
+                });
+    }
+
+
+    @Test
+    public Promise<?> invalidateRangeTest() {
+        model.prefetch( 0 );
+        var events = new ArrayList<ListModelChangeEvent>();
+        model.subscribe( ev -> events.add( (ListModelChangeEvent)ev ) );
+        return model.count()
+                .then( __ -> values( 0, 30 ) )
+                .then( __ -> {
+                    source.data.set( 15, -1 );
+                    source.fireChangeEvent( new ListModelChangeEvent( source, 15, 1, false ) );
+                    Assert.isEqual( 1, events.size() );
+                    Assert.isSame( model, events.get( 0 ).getSource() );
+                    Assert.isEqual( 15, events.get( 0 ).first() );
+                    return values( 0, 30 );
+                })
+                .then( values -> {
+                    Assert.isEqual( -1, values.get( 15 ) );
+                    Assert.isEqual( List.of( 0, 10, 20, 10 ), source.loaded );
+                    return model.count();
+                })
+                .onSuccess( count -> {
+                    Assert.isEqual( 1, source.counted );
+                });
+    }
+
+
+    @Test
+    public Promise<?> invalidateShiftedTest() {
+        model.prefetch( 0 );
+        return model.count()
+                .then( __ -> values( 0, 30 ) )
+                .then( __ -> {
+                    source.data.remove( 15 );
+                    source.fireChangeEvent( new ListModelChangeEvent( source, 15, 1, true ) );
+                    return values( 0, 30 );
+                })
+                .then( values -> {
+                    Assert.isEqual( 16, values.get( 15 ) );
+                    Assert.isEqual( List.of( 0, 10, 20, 10, 20 ), source.loaded );
+                    return model.count();
+                })
+                .onSuccess( count -> {
+                    Assert.isEqual( 99, count );
+                    Assert.isEqual( 2, source.counted );
+                });
+    }
+
+
+    @Test
+    public Promise<?> invalidateAllTest() {
+        model.prefetch( 0 );
+        var events = new ArrayList<Object>();
+        model.subscribe( ev -> events.add( ev ) );
+        return model.count()
+                .then( __ -> values( 0, 20 ) )
+                .then( __ -> {
+                    source.fireChangeEvent();
+                    Assert.isEqual( 1, events.size() );
+                    return values( 0, 20 );
+                })
+                .then( __ -> {
+                    Assert.isEqual( List.of( 0, 10, 0, 10 ), source.loaded );
+                    return model.count();
+                })
+                .onSuccess( count -> {
+                    Assert.isEqual( 2, source.counted );
+                });
+    }
+
+}
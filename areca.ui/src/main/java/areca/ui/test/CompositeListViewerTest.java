@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2025, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.ui.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import areca.common.Assert;
+import areca.common.event.EventManager.EventHandlerInfo;
+import areca.common.reflect.ClassInfo;
+import areca.common.testrunner.After;
+import areca.common.testrunner.Test;
+import areca.ui.Size;
+import areca.ui.component2.ScrollableComposite;
+import areca.ui.component2.Text;
+import areca.ui.component2.UIComponent;
+import areca.ui.component2.UIComponentEvent;
+import areca.ui.component2.UIComponentEvent.ComponentConstructingEvent;
+import areca.ui.component2.UIComposite;
+import areca.ui.component2.UIElement;
+import areca.ui.viewer.CompositeListViewer;
+import areca.ui.viewer.ViewerContext;
+import areca.ui.viewer.model.Pojos;
+
+/**
+ * The windowed mode of {@link CompositeListViewer}.
+ *
+ * @author Falko Bräutigam
+ */
+@Test
+public class CompositeListViewerTest {
+
+    public static final ClassInfo<CompositeListViewerTest> info = CompositeListViewerTestClassInfo.instance();
+
+    /**
+     * The class name the server runtime sends for the given component: the first
+     * named class in the hierarchy from package areca.ui (see JsonUIComponentEvent).
+     */
+    protected static String wireClassName( UIElement component ) {
+        for (Class<?> cl = component.getClass(); cl != null; cl = cl.getSuperclass()) {
+            if (!cl.isAnonymousClass() && cl.getName().startsWith( "areca.ui" )) {
+                return cl.getName();
+            }
+        }
+        throw new IllegalStateException( "No 'areca.ui' parent found: " + component.getClass() );
+    }
+
+    protected List<UIElement>       constructed = new ArrayList<>();
+
+    protected EventHandlerInfo      subscription = UIComponentEvent.manager()
+            .subscribe( ev -> constructed.add( ((ComponentConstructingEvent)ev).getSource() ) )
+            .performIf( ComponentConstructingEvent.class, ev -> true );
+
+    protected List<Integer>         values = new ArrayList<>();
+
+    protected Pojos<Integer>        model;
+
+    protected CompositeListViewer<Integer> viewer;
+
+    protected ScrollableComposite   container;
+
+
+    @After
+    public void tearDown() {
+        subscription.unsubscribeIf( () -> true );
+        if (container != null) {
+            container.parent().dispose();
+        }
+    }
+
+
+    protected void init( int size ) {
+        for (int i = 0; i < size; i++) {
+            values.add( i );
+        }
+        model = new Pojos<>( values );
+        viewer = new CompositeListViewer<Integer>( v -> new Text() {{ content.set( "" + v ); }} );
+        viewer.rowHeight.set( 20 );
+        viewer.overscan.set( 2 );
+        var outer = (UIComposite)new ViewerContext<>().viewer( viewer ).model( model ).create();
+        container = (ScrollableComposite)outer.components.values().first().get();
+        container.size.set( Size.of( 300, 100 ) );
+        viewer.load();
+        container.layout();
+    }
+
+
+    /** The texts of the materialized rows, ordered by position */
+    protected List<String> rowTexts() {
+        var rows = new ArrayList<UIComposite>();
+        for (var child : container.components.values().toList()) {
+            if (child instanceof UIComposite && ((UIComposite)child).components.size() > 0) {
+                rows.add( (UIComposite)child );
+            }
+        }
+        rows.sort( (r1, r2) -> r1.position.$().y() - r2.position.$().y() );
+        var result = new ArrayList<String>();
+        for (var row : rows) {
+            result.add( ((Text)row.components.values().first().get()).content.$() );
+        }
+        return result;
+    }
+
+
+    @Test
+    public void windowTest() {
+        init( 1000 );
+        Assert.isEqual( List.of( "0", "1", "2", "3", "4", "5", "6", "7" ), rowTexts() );
+
+        // 20 * 500: rows are recycled
+        var children = container.components.size();
+        container.scrollTop.set( 10000 );
+        Assert.isEqual( List.of( "498", "499", "500", "501", "502", "503", "504", "505", "506", "507" ), rowTexts() );
+        Assert.that( container.components.size() <= children + 2 );
+    }
+
+
+    @Test
+    public void serverClassesTest() {
+        init( 1000 );
+        container.scrollTop.set( 10000 );
+        Assert.that( !constructed.isEmpty() );
+        for (var component : constructed) {
+            var classname = wireClassName( component );
+            Assert.that( classname.startsWith( "areca.ui.component2." ),
+                    "Not a client side class: " + classname + " (" + component.getClass().getName() + ")" );
+            Assert.that( component instanceof UIComponent );
+        }
+    }
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2025, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.ui.test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import areca.common.Assert;
+import areca.common.AssertionException;
+import areca.common.reflect.ClassInfo;
+import areca.common.testrunner.Test;
+import areca.ui.component2.CssClassSet;
+import areca.ui.component2.CssClassesProperty;
+import areca.ui.component2.Text;
+
+/**
+ * {@link CssClassSet} and the events of {@link CssClassesProperty}.
+ *
+ * @author Falko Bräutigam
+ */
+@Test
+public class CssClassSetTest {
+
+    public static final ClassInfo<CssClassSetTest> info = CssClassSetTestClassInfo.instance();
+
+    /** Class names that span several words of the bitset; interned in order. */
+    protected static List<String> names( int count ) {
+        var result = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            result.add( "CssClassSetTest-" + i );
+            CssClassSet.idOf( result.get( i ) );
+        }
+        return result;
+    }
+
+
+    @Test
+    public void addRemoveTest() {
+        var set = new CssClassSet();
+        Assert.that( set.isEmpty() );
+        Assert.that( set.add( "a" ) );
+        Assert.that( !set.add( "a" ) );
+        Assert.that( set.add( "b" ) );
+        Assert.isEqual( 2, set.size() );
+        Assert.that( set.contains( "a" ) );
+        Assert.that( !set.contains( "never-used-CssClassSetTest" ) );
+        Assert.that( !set.contains( 1 ) );
+
+        Assert.that( set.remove( "a" ) );
+        Assert.that( !set.remove( "a" ) );
+        Assert.that( !set.remove( "never-used-CssClassSetTest" ) );
+        Assert.isEqual( Set.of( "b" ), new HashSet<>( set ) );
+    }
+
+
+    @Test
+    public void wordGrowthTest() {
+        var names = names( 150 );
+        var set = new CssClassSet();
+        // highest id first: grows the bitset to its final size at once
+        for (int i = names.size() - 1; i >= 0; i--) {
+            set.add( names.get( i ) );
+        }
+        Assert.isEqual( names.size(), set.size() );
+        // iteration order is the order of interning
+        Assert.isEqual( names, new ArrayList<>( set ) );
+
+        var small = CssClassSet.of( names.subList( 0, 3 ) );
+        small.addAll( set );
+        Assert.isEqual( set, small );
+    }
+
+
+    @Test
+    public void iteratorRemoveTest() {
+        var names = names( 150 );
+        var set = CssClassSet.of( names );
+        for (var it = set.iterator(); it.hasNext(); ) {
+            var name = it.next();
+            if (names.indexOf( name ) % 2 == 0) {
+                it.remove();
+            }
+        }
+        Assert.isEqual( 75, set.size() );
+        for (int i = 0; i < names.size(); i++) {
+            Assert.isEqual( i % 2 == 1, set.contains( names.get( i ) ) );
+        }
+    }
+
+
+    @Test( expected = AssertionException.class )
+    public void iteratorRemoveTwiceTest() {
+        var it = CssClassSet.of( List.of( "a", "b" ) ).iterator();
+        it.next();
+        it.remove();
+        it.remove();
+    }
+
+
+    @Test
+    public void withoutTest() {
+        var names = names( 150 );
+        var set = CssClassSet.of( names );
+        var other = CssClassSet.of( List.of( names.get( 0 ), names.get( 100 ), "a" ) );
+
+        var diff = set.without( other );
+        Assert.isEqual( 148, diff.size() );
+        Assert.that( !diff.contains( names.get( 100 ) ) );
+        Assert.that( diff.contains( names.get( 149 ) ) );
+        Assert.isEqual( 150, set.size(), "must not modify the receiver" );
+
+        Assert.that( set.without( set ).isEmpty() );
+        Assert.isEqual( List.of( "a" ), new ArrayList<>( other.without( set ) ) );
+        Assert.isEqual( set, set.without( new CssClassSet() ) );
+    }
+
+
+    @Test
+    public void equalsTest() {
+        var high = names( 150 ).get( 149 );
+        var set = CssClassSet.of( List.of( "a", "b" ) );
+        var grown = CssClassSet.of( List.of( "a", "b", high ) );
+        grown.remove( high );  // more words than set, all zero
+
+        Assert.isEqual( set, grown );
+        Assert.isEqual( grown, set );
+        Assert.isEqual( set.hashCode(), grown.hashCode() );
+        Assert.isEqual( set, new HashSet<>( List.of( "a", "b" ) ) );
+        Assert.isEqual( new HashSet<>( List.of( "a", "b" ) ), set );
+        Assert.that( !set.equals( CssClassSet.of( List.of( "a" ) ) ) );
+    }
+
+
+    @Test
+    public void copyTest() {
+        var set = CssClassSet.of( List.of( "a" ) );
+        var copy = set.copy();
+        copy.add( "b" );
+        Assert.isEqual( 1, set.size() );
+        set.clear();
+        Assert.isEqual( 2, copy.size() );
+    }
+
+
+    // CssClassesProperty *********************************
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void propertySnapshotTest() {
+        var text = new Text();
+        var events = new ArrayList<Collection<String>[]>();
+        text.cssClasses.onChange( (newValue, oldValue) -> events.add( new Collection[] {oldValue, newValue} ) );
+
+        text.cssClasses.add( "a" );
+        text.cssClasses.setThemeClasses( "t" );
+        text.cssClasses.remove( "a" );
+
+        Assert.isEqual( 3, events.size() );
+        // snapshots: not modified by later changes
+        Assert.isEqual( Set.of(), new HashSet<>( events.get( 0 )[0] ) );
+        Assert.isEqual( Set.of( "a" ), new HashSet<>( events.get( 0 )[1] ) );
+        Assert.isEqual( Set.of( "a", "t" ), new HashSet<>( events.get( 1 )[1] ) );
+        Assert.isEqual( Set.of( "t" ), new HashSet<>( events.get( 2 )[1] ) );
+
+        // renderer: apply just the difference
+        var added = ((CssClassSet)events.get( 1 )[1]).without( (CssClassSet)events.get( 1 )[0] );
+        Assert.isEqual( List.of( "t" ), new ArrayList<>( added ) );
+    }
+
+
+    @Test
+    public void propertyNoEventTest() {
+        var text = new Text();
+        text.cssClasses.add( "a" );
+        text.cssClasses.addThemeClass( "t" );
+        var events = new int[1];
+        text.cssClasses.onChange( (newValue, oldValue) -> events[0] ++ );
+
+        Assert.that( text.cssClasses.add( "a" ).isAbsent() );
+        Assert.that( text.cssClasses.remove( "b" ).isAbsent() );
+        text.cssClasses.addThemeClass( "t" );
+        text.cssClasses.removeThemeClass( "x" );
+        text.cssClasses.set( List.of( "a" ) );  // equal
+        Assert.isEqual( 0, events[0] );
+
+        text.cssClasses.modify( "b", true );
+        Assert.isEqual( 1, events[0] );
+    }
+
+}
@@ -43,7 +43,7 @@ public class GalleryMain {
     private static final Log LOG = LogFactory.getLog( GalleryMain.class );
 
     public static void initLog() {
-        LogFactory.DEFAULT_LEVEL = Level.INFO;
+        LogFactory.setDefaultLevel( Level.INFO );
         //LogFactory.setPackageLevel( areca.ui.component2.UIComponent.class, Level.DEBUG );
         LogFactory.setPackageLevel( GalleryMain.class, Level.DEBUG );
         //LogFactory.setPackageLevel( areca.rt.teavm.ui.UIComponentRenderer.class, Level.DEBUG );
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2025, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.ui.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import areca.common.Assert;
+import areca.common.reflect.ClassInfo;
+import areca.common.testrunner.Test;
+import areca.ui.component2.Property;
+import areca.ui.component2.Text;
+
+/**
+ * Deferred events of {@link Property#batch(Runnable)}.
+ *
+ * @author Falko Bräutigam
+ */
+@Test
+public class PropertyBatchTest {
+
+    public static final ClassInfo<PropertyBatchTest> info = PropertyBatchTestClassInfo.instance();
+
+    protected List<String>  events = new ArrayList<>();
+
+    protected Text          text1 = new Text(), text2 = new Text();
+
+
+    protected void init() {
+        text1.content.set( "1" );
+        text2.content.set( "2" );
+        text1.content.onChange( (newValue, oldValue) -> events.add( "text1: " + oldValue + " -> " + newValue ) );
+        text2.content.onChange( (newValue, oldValue) -> events.add( "text2: " + oldValue + " -> " + newValue ) );
+        text1.tooltip.onChange( (newValue, oldValue) -> events.add( "tooltip1: " + oldValue + " -> " + newValue ) );
+    }
+
+
+    @Test
+    public void collapseTest() {
+        init();
+        Property.batch( () -> {
+            text1.content.set( "a" );
+            text1.content.set( "b" );
+            Assert.isEqual( "b", text1.content.$() );  // set immediately
+            Assert.that( events.isEmpty() );
+        });
+        Assert.isEqual( List.of( "text1: 1 -> b" ), events );
+    }
+
+
+    @Test
+    public void orderTest() {
+        init();
+        Property.batch( () -> {
+            text2.content.set( "a" );
+            text1.content.set( "b" );
+            text2.content.set( "c" );
+        });
+        Assert.isEqual( List.of( "text2: 2 -> c", "text1: 1 -> b" ), events );
+    }
+
+
+    @Test
+    public void equalValuesTest() {
+        init();
+        Property.batch( () -> {
+            text1.content.set( "a" );
+            text1.content.set( "1" );
+            text2.content.set( "2" );
+        });
+        Assert.that( events.isEmpty() );
+    }
+
+
+    @Test
+    public void nestedTest() {
+        init();
+        Property.batch( () -> {
+            text1.content.set( "a" );
+            Property.batch( () -> {
+                text1.content.set( "b" );
+                text2.content.set( "c" );
+            });
+            Assert.that( events.isEmpty() );
+            text2.content.set( "d" );
+        });
+        Assert.isEqual( List.of( "text1: 1 -> b", "text2: 2 -> d" ), events );
+    }
+
+
+    @Test
+    public void throwingTaskTest() {
+        init();
+        try {
+            Property.batch( () -> {
+                text1.content.set( "a" );
+                throw new IllegalStateException( "expected" );
+            });
+            Assert.fail( "exception expected" );
+        }
+        catch (IllegalStateException e) {
+            Assert.isEqual( "expected", e.getMessage() );
+        }
+        Assert.isEqual( List.of( "text1: 1 -> a" ), events );
+
+        // batch is done
+        text2.content.set( "b" );
+        Assert.isEqual( List.of( "text1: 1 -> a", "text2: 2 -> b" ), events );
+    }
+
+
+    @Test
+    public void disposedTest() {
+        init();
+        Property.batch( () -> {
+            text1.content.set( "a" );
+            text1.tooltip.set( "t" );
+            text2.content.set( "b" );
+            text1.dispose();
+        });
+        Assert.isEqual( List.of( "text2: 2 -> b" ), events );
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2025, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.ui.test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import areca.common.Assert;
+import areca.common.Promise;
+import areca.common.reflect.ClassInfo;
+import areca.common.testrunner.After;
+import areca.common.testrunner.Test;
+import areca.ui.component2.Text;
+import areca.ui.component2.UIComponent;
+import areca.ui.viewer.TreeViewer;
+import areca.ui.viewer.ViewerContext;
+import areca.ui.viewer.model.LazyTreeModel;
+
+/**
+ * Paging of {@link TreeViewer}.
+ *
+ * @author Falko Bräutigam
+ */
+@Test
+public class TreeViewerTest {
+
+    public static final ClassInfo<TreeViewerTest> info = TreeViewerTestClassInfo.instance();
+
+    public static final int PAGE_SIZE = 10;
+
+    /** item -> children; the children of null are the top-level items */
+    protected Map<String,List<String>>  tree = new HashMap<>();
+
+    /** The next {@link LazyTreeModel#loadChildren(Object, int, int)} fails */
+    protected boolean                   failNext;
+
+    protected LazyTreeModel<String>     model = new LazyTreeModel<String>() {
+        @Override
+        public Promise<Integer> countChildren( String item ) {
+            return Promise.async( tree.getOrDefault( item, List.of() ).size() );
+        }
+        @Override
+        public Promise<List<? extends String>> loadChildren( String item, int first, int max ) {
+            if (failNext) {
+                failNext = false;
+                return Promise.async( 0 ).map( __ -> {
+                    throw new IllegalStateException( "expected" );
+                });
+            }
+            var children = tree.getOrDefault( item, List.of() );
+            var end = (int)Math.min( (long)first + max, children.size() );
+            return Promise.async( new ArrayList<>( children.subList( Math.min( first, end ), end ) ) );
+        }
+    };
+
+    protected TreeViewer<String>        viewer = new TreeViewer<>();
+
+    protected UIComponent               container;
+
+
+    @After
+    public void tearDown() {
+        if (container != null) {
+            container.dispose();
+        }
+    }
+
+
+    protected Promise<?> init() {
+        tree.put( null, List.of( "a", "b" ) );
+        var children = new ArrayList<String>();
+        for (int i = 0; i < 3 * PAGE_SIZE; i++) {
+            children.add( "a" + i );
+        }
+        tree.put( "a", children );
+
+        viewer.pageSize.set( PAGE_SIZE );
+        viewer.cellBuilder.set( (index, v, m, _viewer) -> new Text() {{ content.set( v ); }} );
+        container = new ViewerContext<>().viewer( viewer ).model( model ).create();
+        return viewer.expand( (String)null ).then( __ -> viewer.expand( "a" ) );
+    }
+
+
+    @Test
+    public Promise<?> loadMoreTest() {
+        return init()
+                .then( __ -> {
+                    Assert.isEqual( 2 + PAGE_SIZE, viewer.visibleLevels().size() );
+                    return viewer.loadMore( "a" );
+                })
+                .then( __ -> viewer.loadMore( "a" ) )
+                .then( __ -> viewer.loadMore( "a" ) )  // all loaded: nothing to do
+                .onSuccess( __ -> {
+                    Assert.isEqual( 2 + 3 * PAGE_SIZE, viewer.visibleLevels().size() );
+                });
+    }
+
+
+    @Test
+    public Promise<?> loadMoreErrorTest() {
+        var result = new Promise.Completable<Void>();
+        init().onSuccess( __ -> {
+            failNext = true;
+            viewer.loadMore( "a" )
+                    .onSuccess( ___ -> result.completeWithError( new IllegalStateException( "error expected" ) ) )
+                    .onError( e -> {
+                        // not stuck in loading state: next page is loaded
+                        viewer.loadMore( "a" )
+                                .map( ___ -> {
+                                    Assert.isEqual( 2 + 2 * PAGE_SIZE, viewer.visibleLevels().size() );
+                                    return (Void)null;
+                                })
+                                .onSuccess( result::complete )
+                                .onError( result::completeWithError );
+                    });
+        })
+        .onError( result::completeWithError );
+        return result;
+    }
+
+}
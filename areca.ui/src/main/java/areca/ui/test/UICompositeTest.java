@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2025, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.ui.test;
+
+import java.util.List;
+
+import areca.common.Assert;
+import areca.common.reflect.ClassInfo;
+import areca.common.testrunner.Test;
+import areca.ui.component2.Text;
+import areca.ui.component2.UIComposite;
+import areca.ui.layout.RowLayout;
+
+/**
+ * Keyed reconciliation of {@link UIComposite.Children} and the cached minimum
+ * size of {@link UIComposite}.
+ *
+ * @author Falko Bräutigam
+ */
+@Test
+public class UICompositeTest {
+
+    public static final ClassInfo<UICompositeTest> info = UICompositeTestClassInfo.instance();
+
+    /** Counts attach/detach */
+    static class Child
+            extends UIComposite {
+
+        int attached, detached;
+
+        @Override
+        protected void attachedTo( UIComposite newParent ) {
+            super.attachedTo( newParent );
+            attached ++;
+        }
+
+        @Override
+        protected void detachedFrom( UIComposite parent ) {
+            super.detachedFrom( parent );
+            detached ++;
+        }
+    }
+
+    protected UIComposite   parent = new UIComposite();
+
+    protected Child         a = new Child(), b = new Child(), c = new Child(), d = new Child();
+
+    protected int           events;
+
+
+    protected void init() {
+        parent.add( a );
+        parent.add( b );
+        parent.add( c );
+        parent.components.onChange( (newValue, oldValue) -> events ++ );
+    }
+
+
+    @Test
+    public void reconcileTest() {
+        init();
+        var removed = parent.components.reconcile( List.of( c, a, d ) );
+
+        Assert.isEqual( List.of( c, a, d ), parent.components.values().toList() );
+        Assert.isEqual( List.of( b ), removed );
+        Assert.isEqual( 1, events );
+        // moved: not detached/attached again
+        Assert.isEqual( 1, a.attached );
+        Assert.isEqual( 0, a.detached );
+        Assert.isEqual( 1, c.attached );
+        Assert.isEqual( 0, c.detached );
+        Assert.isSame( parent, c.parent() );
+        // removed
+        Assert.isEqual( 1, b.detached );
+        Assert.isNull( b.parent() );
+        // new
+        Assert.isEqual( 1, d.attached );
+        Assert.isSame( parent, d.parent() );
+    }
+
+
+    @Test
+    public void reconcileUnchangedTest() {
+        init();
+        var removed = parent.components.reconcile( List.of( a, b, c ) );
+
+        Assert.that( removed.isEmpty() );
+        Assert.isEqual( 0, events );
+        Assert.isEqual( List.of( a, b, c ), parent.components.values().toList() );
+    }
+
+
+    @Test
+    public void reconcileOrderTest() {
+        init();
+        var removed = parent.components.reconcile( List.of( c, b, a ) );
+
+        Assert.that( removed.isEmpty() );
+        Assert.isEqual( 1, events );
+        Assert.isEqual( List.of( c, b, a ), parent.components.values().toList() );
+        for (var child : List.of( a, b, c )) {
+            Assert.isEqual( 1, child.attached );
+            Assert.isEqual( 0, child.detached );
+        }
+    }
+
+
+    @Test
+    public void reconcileEmptyTest() {
+        init();
+        var removed = parent.components.reconcile( List.of() );
+
+        Assert.isEqual( List.of( a, b, c ), removed );
+        Assert.isEqual( 0, parent.components.size() );
+        Assert.isEqual( 1, events );
+        Assert.isNull( a.parent() );
+    }
+
+
+    @Test
+    public void minSizeTest() {
+        var contentHeight = new int[] {20};
+        var text = new Text() {
+            @Override public int computeMinHeight( int width ) {
+                return contentHeight[0];
+            }
+        };
+        var nested = new UIComposite() {{
+            layout.set( RowLayout.verticals() );
+            add( text );
+        }};
+        parent.layout.set( RowLayout.verticals() );
+        parent.add( nested );
+        Assert.isEqual( 20, parent.computeMinHeight( 100 ) );
+
+        // cached
+        contentHeight[0] = 40;
+        Assert.isEqual( 20, parent.computeMinHeight( 100 ) );
+
+        text.invalidateMinSize();
+        Assert.isEqual( 40, nested.computeMinHeight( 100 ) );
+        Assert.isEqual( 40, parent.computeMinHeight( 100 ) );
+
+        // child added to nested composite
+        nested.add( new Text() );
+        Assert.isEqual( 40 + UIComposite.DEFAULT_HEIGHT, parent.computeMinHeight( 100 ) );
+    }
+
+}
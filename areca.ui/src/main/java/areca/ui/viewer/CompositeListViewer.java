@@ -13,25 +13,34 @@
  */
 package areca.ui.viewer;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
-import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.commons.lang3.tuple.Pair;
 
 import areca.common.Assert;
 import areca.common.base.BiFunction.RBiFunction;
 import areca.common.base.Consumer.RConsumer;
+import areca.common.base.Opt;
 import areca.common.base.Function;
 import areca.common.base.Function.RFunction;
 import areca.common.log.LogFactory;
 import areca.common.log.LogFactory.Log;
+import areca.ui.Position;
+import areca.ui.Size;
 import areca.ui.component2.Events.EventType;
 import areca.ui.component2.Property;
 import areca.ui.component2.Property.ReadWrite;
+import areca.ui.component2.ScrollableComposite;
 import areca.ui.component2.UIComponent;
 import areca.ui.component2.UIComposite;
+import areca.ui.layout.AbsoluteLayout;
+import areca.ui.layout.FillLayout;
 import areca.ui.layout.RowLayout;
 import areca.ui.viewer.model.LazyListModel;
 import areca.ui.viewer.model.ListModel;
@@ -41,6 +50,12 @@ import areca.ui.viewer.model.ListModelBase;
  * Renders a simple list consisting of plain {@link UIComposite}s which are filled by
  * a given builder function. The container composite does not scroll. Works on
  * {@link ListModel} and {@link LazyListModel}.
+ * <p>
+ * If {@link #rowHeight} is set, the list is windowed: the container is a
+ * {@link ScrollableComposite} and just the rows of the viewport plus
+ * {@link #overscan} are materialized. Rows that are scrolled out of the window are
+ * recycled for the rows that are scrolled in. The values are loaded on demand, the
+ * scroll extent is given by the count of the model.
  *
  * @author Falko Bräutigam
  */
@@ -62,6 +77,16 @@ public class CompositeListViewer<V>
 
     public ReadWrite<CompositeListViewer<V>,RConsumer<V>> onSelect = Property.rw( this, "onSelect" );
 
+    /**
+     * The fixed height of all rows. If set, the list is windowed: it scrolls and
+     * just the visible rows are materialized. Must be set before {@link #create()}.
+     * Default: not set
+     */
+    public ReadWrite<CompositeListViewer<V>,Integer> rowHeight = Property.rw( this, "rowHeight" );
+
+    /** Windowed: number of rows materialized above and below the viewport. Default: 10 */
+    public ReadWrite<CompositeListViewer<V>,Integer> overscan = Property.rw( this, "overscan", 10 );
+
     /**
      * Called after loading the list. The default calls {@link UIComposite#layout()}
      * on the root container of this list. This might not be enough if there are new
@@ -79,6 +104,18 @@ public class CompositeListViewer<V>
     /** value -> (ETag,UIComposite) */
     protected Map<V,Pair<Object,UIComponent>>   components = new HashMap<>();
 
+    /** Windowed: index -&gt; the materialized rows of the current window */
+    protected Map<Integer,RowState>             rows = new HashMap<>();
+
+    /** Windowed: the number of values of the model, -1 if not yet known */
+    protected int                               count = -1;
+
+    /** Windowed: incremented on every {@link #load()}, outdated values are skipped */
+    protected int                               loadVersion;
+
+    /** Windowed: sets the scroll extent */
+    protected UIComponent                       spacer;
+
 
     public CompositeListViewer( CellBuilder<V> componentBuilder ) {
         this.cellBuilder = componentBuilder;
@@ -97,12 +134,25 @@ public class CompositeListViewer<V>
     @Override
     public UIComponent create() {
         Assert.isNull( container );
-        container = new UIComposite() {{
-            layout.set( RowLayout.verticals().fillWidth( true ).spacing( spacing.$() ) );
-            if (configurator != null) {
-                configurator.accept( this );
-            }
-        }};
+        if (rowHeight.opt().isPresent()) {
+            var scrollable = new ScrollableComposite() {{
+                layout.set( new WindowLayout() );
+                if (configurator != null) {
+                    configurator.accept( this );
+                }
+            }};
+            scrollable.scrollTop.onChange( (newValue, __) -> updateWindow() );
+            spacer = scrollable.add( new UIComposite() );
+            container = scrollable;
+        }
+        else {
+            container = new UIComposite() {{
+                layout.set( RowLayout.verticals().fillWidth( true ).spacing( spacing.$() ) );
+                if (configurator != null) {
+                    configurator.accept( this );
+                }
+            }};
+        }
         model.subscribe( ev -> load() ).unsubscribeIf( () -> container.isDisposed() );
         return container;
     }
@@ -116,35 +166,40 @@ public class CompositeListViewer<V>
 
     @Override
     public Object load() {
-        var index = new MutableInt( 0 );
+        if (rowHeight.opt().isPresent()) {
+            loadWindow();
+            return null;
+        }
         // LazyListModel
         if (model instanceof LazyListModel) {
             var lazy = (LazyListModel<V>)model;
-            lazy.load( 0, 100 ).onSuccess( opt -> { // 100!?
-                if (index.intValue() == 0) {
-                    // after wait to avoid flicker
-                    container.components.removeAll();
-                }
-                if (opt.isPresent()) {
-                    container.add( buildItem( opt.get(), index ) );
-                    index.increment();
+            var version = ++loadVersion;
+            var values = new ArrayList<V>();
+            lazy.count().onSuccess( c -> {
+                if (c == 0) {
+                    reconcile( values );
+                    return;
                 }
-                else {
-                    onLayout.get().accept( container );
-                };
+                // collect and reconcile after wait to avoid flicker
+                lazy.load( 0, c ).onSuccess( opt -> {
+                    if (version != loadVersion || container.isDisposed()) {
+                        return;
+                    }
+                    opt.ifPresent( v -> values.add( v ) );
+                    if (opt.isAbsent()) {
+                        reconcile( values );
+                    }
+                });
             });
             return null; // XXX
         }
         // ListModel
         else if (model instanceof ListModel) {
-            container.components.removeAll();
+            var values = ((ListModel<V>)model).sequence().toList();
             var hash = 0;
-            for (var v : (ListModel<V>)model) {
-                container.add( buildItem( v, index ) );
-                hash ^= buildItem( v, index ).hashCode();
-                index.increment();
+            for (var item : reconcile( values )) {
+                hash ^= item.hashCode();
             }
-            onLayout.get().accept( container );
             return hash; // XXX
         }
         else {
@@ -153,34 +208,307 @@ public class CompositeListViewer<V>
     }
 
 
-    protected UIComponent buildItem( V v, MutableInt index ) {
+    /**
+     * Keyed reconciliation of the rows of the container with the given values. Cells
+     * are reused for values with unchanged {@link #etag}; new cells are built, moved
+     * cells are not re-attached, cells of removed/changed values are disposed.
+     *
+     * @return The cells, in order of the values.
+     */
+    protected List<UIComponent> reconcile( List<V> values ) {
+        var cells = new ArrayList<UIComponent>( values.size() );
+        var index = 0;
+        for (var v : values) {
+            cells.add( buildItem( v, index++ ) );
+        }
+        var removed = container.components.reconcile( cells );
+        if (!removed.isEmpty()) {
+            components.keySet().retainAll( new HashSet<>( values ) );
+            for (var cell : removed) {
+                cell.dispose();
+            }
+        }
+        LOG.debug( "reconcile(): %s rows, %s removed", cells.size(), removed.size() );
+        onLayout.get().accept( container );
+        return cells;
+    }
+
+
+    protected UIComponent buildItem( V v, int index ) {
         var entry = components.compute( v, (k,current) -> {
             var newETag = etag.get().apply( v );
             if (current != null && Objects.equals( current.getLeft(), newETag )) {
                 return current;
             }
             else {
-                var result = cellBuilder.buildCell( index.intValue(), v, model, this );
-                result.cssClasses.add( "TableCell" );
-                if (lines.$()) {
-                    result.cssClasses.add( "Lines" );
-                }
-                if (onSelect.opt().isPresent()) {
-                    result.cssClasses.add( "Clickable" );
-                    result.events.on( EventType.SELECT, ev -> onSelect.$().accept( v ) );
-                }
-                return Pair.of( newETag, result );
+                return Pair.of( newETag, buildCell( v, index ) );
             }
         });
         var component = entry.getRight();
-
         // index can change after add/remove
+        updateOddEven( component, index );
+        return component;
+    }
+
+
+    protected UIComponent buildCell( V v, int index ) {
+        var result = cellBuilder.buildCell( index, v, model, this );
+        result.cssClasses.add( "TableCell" );
+        if (lines.$()) {
+            result.cssClasses.add( "Lines" );
+        }
+        if (onSelect.opt().isPresent()) {
+            result.cssClasses.add( "Clickable" );
+            result.events.on( EventType.SELECT, ev -> onSelect.$().accept( v ) );
+        }
+        return result;
+    }
+
+
+    protected void updateOddEven( UIComponent component, int index ) {
         if (oddEven.$()) {
-            component.cssClasses.remove( "Odd" );
-            component.cssClasses.remove( "Even" );
-            component.cssClasses.add( index.intValue() % 2 == 1 ? "Odd" : "Even" );
+            var css = index % 2 == 1 ? "Odd" : "Even";
+            if (!component.cssClasses.value().contains( css )) {
+                Property.batch( () -> { // one event: -Odd/+Even
+                    component.cssClasses.remove( "Odd" );
+                    component.cssClasses.remove( "Even" );
+                    component.cssClasses.add( css );
+                });
+            }
         }
-        return component;
+    }
+
+
+    // windowed *******************************************
+
+    /**
+     * The state of a materialized row of the window: the {@link #composite} holds
+     * the cell of the value with the current {@link #index}. Recycled when scrolled
+     * out of the window.
+     * <p>
+     * The composite itself is a plain (anonymous) {@link UIComposite}: the server
+     * runtime creates the client side components by (super)class name.
+     */
+    protected class RowState {
+
+        protected UIComposite   composite;
+
+        protected int           index = -1;
+
+        protected V             value;
+
+        protected Object        etag;
+
+        protected UIComponent   cell;
+
+        /** The {@link #loadVersion} of the value of the row. */
+        protected int           loaded = -1;
+
+        /** The {@link #loadVersion} of the pending load of the row. */
+        protected int           requested = -1;
+
+        protected RowState() {
+            composite = container.add( new UIComposite() {{
+                layout.set( FillLayout.defaults() );
+            }});
+        }
+    }
+
+
+    /**
+     * Lays out the window on resize.
+     */
+    protected class WindowLayout
+            extends AbsoluteLayout {
+
+        @Override
+        public void layout( UIComposite composite ) {
+            super.layout( composite );
+            updateWindow();
+        }
+    }
+
+
+    protected int itemHeight() {
+        return rowHeight.$() + spacing.$();
+    }
+
+
+    /**
+     * Gets the count of the model and (re)loads the rows of the window. The current
+     * content of the rows is kept until the new values are there, to avoid flicker.
+     */
+    protected void loadWindow() {
+        var version = ++loadVersion;
+        withCount( c -> {
+            if (version != loadVersion || container.isDisposed()) {
+                return;
+            }
+            count = c;
+            spacer.size.set( Size.of( 1, 1 ) );
+            spacer.position.set( Position.of( 0, Math.max( 0, c * itemHeight() - spacing.$() - 1 ) ) );
+            updateWindow();
+        });
+    }
+
+
+    protected void withCount( RConsumer<Integer> consumer ) {
+        if (model instanceof LazyListModel) {
+            ((LazyListModel<V>)model).count().onSuccess( c -> consumer.accept( c ) );
+        }
+        else if (model instanceof ListModel) {
+            consumer.accept( ((ListModel<V>)model).size() );
+        }
+        else {
+            throw new RuntimeException( "Unknown model type: " + model );
+        }
+    }
+
+
+    /**
+     * Materializes the rows of the current viewport plus {@link #overscan}, recycles
+     * the rows outside, and requests the values of the rows that are not loaded.
+     */
+    protected void updateWindow() {
+        if (count < 0 || container.isDisposed() || container.clientSize.opt().isAbsent()) {
+            return;
+        }
+        var viewSize = container.clientSize.$();
+        var scrollTop = ((ScrollableComposite)container).scrollTop.opt().orElse( 0 );
+        var itemHeight = itemHeight();
+        int first = Math.max( 0, scrollTop / itemHeight - overscan.$() );
+        int end = Math.min( count, (scrollTop + viewSize.height()) / itemHeight + 1 + overscan.$() );
+        LOG.debug( "updateWindow(): scrollTop=%s, window=%s-%s, count=%s", scrollTop, first, end, count );
+
+        // rows outside the window
+        var recycled = new ArrayDeque<RowState>();
+        for (var it = rows.values().iterator(); it.hasNext(); ) {
+            var row = it.next();
+            if (row.index < first || row.index >= end) {
+                it.remove();
+                recycled.add( row );
+            }
+        }
+        // materialize rows; find the range to load
+        int loadFirst = -1, loadEnd = -1;
+        for (int i = first; i < end; i++) {
+            var row = rows.get( i );
+            if (row == null) {
+                row = !recycled.isEmpty() ? recycled.poll() : new RowState();
+                row.index = i;
+                row.loaded = row.requested = -1;
+                rows.put( i, row );
+            }
+            row.composite.position.set( Position.of( 0, i * itemHeight ) );
+            row.composite.size.set( Size.of( viewSize.width(), rowHeight.$() ) );
+            if (row.loaded != loadVersion && row.requested != loadVersion) {
+                loadFirst = loadFirst == -1 ? i : loadFirst;
+                loadEnd = i + 1;
+            }
+        }
+        // window has shrunk
+        for (var row : recycled) {
+            row.composite.dispose();
+        }
+        if (loadFirst != -1) {
+            loadRange( loadFirst, loadEnd - loadFirst );
+        }
+    }
+
+
+    protected void loadRange( int first, int num ) {
+        var version = loadVersion;
+        for (int i = first; i < first + num; i++) {
+            Opt.of( rows.get( i ) ).ifPresent( row -> row.requested = version );
+        }
+        // LazyListModel
+        if (model instanceof LazyListModel) {
+            var values = new ArrayList<V>( num );
+            ((LazyListModel<V>)model).load( first, num ).onSuccess( opt -> {
+                if (values.size() < num) {
+                    opt.ifPresent( v -> values.add( v ) );
+                    if (opt.isAbsent() || values.size() == num) {
+                        fillRows( first, values, version );
+                    }
+                }
+            });
+        }
+        // ListModel
+        else {
+            var values = new ArrayList<V>( num );
+            var index = 0;
+            for (var it = ((ListModel<V>)model).iterator(); it.hasNext() && index < first + num; index++) {
+                var v = it.next();
+                if (index >= first) {
+                    values.add( v );
+                }
+            }
+            fillRows( first, values, version );
+        }
+    }
+
+
+    /**
+     * Keyed reconciliation of the rows of the given range: a row that already shows
+     * one of the values (with unchanged {@link #etag}) is moved to the index of the
+     * value; just the remaining rows get new cells.
+     */
+    protected void fillRows( int first, List<V> values, int version ) {
+        if (version != loadVersion || container.isDisposed()) {
+            return;
+        }
+        var end = first + values.size();
+        var byValue = new HashMap<V,RowState>();
+        for (int i = first; i < end; i++) {
+            var row = rows.get( i );
+            if (row != null && row.cell != null) {
+                byValue.put( row.value, row );
+            }
+        }
+        // reuse rows that show the value
+        var assigned = new HashMap<Integer,RowState>();
+        var used = new HashSet<RowState>();
+        for (int i = first; i < end; i++) {
+            var v = values.get( i - first );
+            var match = byValue.remove( v );
+            if (rows.containsKey( i ) && match != null && Objects.equals( match.etag, etag.get().apply( v ) )) {
+                assigned.put( i, match );
+                used.add( match );
+            }
+        }
+        var spare = new ArrayDeque<RowState>();
+        for (int i = first; i < end; i++) {
+            var row = rows.get( i );
+            if (row != null && !used.contains( row )) {
+                spare.add( row );
+            }
+        }
+        // update rows
+        var itemHeight = itemHeight();
+        for (int i = first; i < end; i++) {
+            if (!rows.containsKey( i )) {
+                continue; // scrolled out of the window meanwhile
+            }
+            var v = values.get( i - first );
+            var row = assigned.get( i );
+            if (row == null) {
+                row = spare.poll();
+                if (row.cell != null) {
+                    row.cell.dispose();
+                }
+                row.cell = row.composite.add( buildCell( v, i ) );
+                row.value = v;
+                row.etag = etag.get().apply( v );
+                row.composite.size.set( Size.of( container.clientSize.$().width(), rowHeight.$() ) );
+                row.composite.layout();
+            }
+            row.index = i;
+            row.loaded = version;
+            row.composite.position.set( Position.of( 0, i * itemHeight ) );
+            updateOddEven( row.cell, i );
+            rows.put( i, row );
+        }
+        LOG.debug( "fillRows(): %s-%s, reused: %s", first, end, assigned.size() );
     }
 
 
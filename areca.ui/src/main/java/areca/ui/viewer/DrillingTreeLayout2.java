@@ -35,6 +35,9 @@ import areca.ui.viewer.TreeViewer.TreeViewerLayout;
  * A {@link TreeViewer} layout that shows just the one, expanded branch of the tree.
  * <p>
  * The layout uses a {@link RowLayout}. So the cells must provide a {@link RowConstraints}
+ * <p>
+ * All children of the expanded branch are shown: the pages of
+ * {@link TreeViewer#pageSize} are loaded one after the other.
  *
  * @author Falko Bräutigam
  */
@@ -156,6 +159,11 @@ public class DrillingTreeLayout2<V>
 
         containerLayout.componentOrderor.set( children -> ordered );
         container.layout();
+
+        // the container does not scroll: load all pages, one after the other
+        if (branch.hasMore()) {
+            viewer.loadMore( branch.value );
+        }
     }
 
 
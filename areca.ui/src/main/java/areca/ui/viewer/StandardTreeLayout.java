@@ -13,13 +13,31 @@
  */
 package areca.ui.viewer;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
 import areca.common.log.LogFactory;
 import areca.common.log.LogFactory.Log;
+import areca.ui.Position;
+import areca.ui.Size;
+import areca.ui.component2.Property;
+import areca.ui.component2.Property.ReadWrite;
+import areca.ui.component2.ScrollableComposite;
+import areca.ui.component2.UIComponent;
 import areca.ui.component2.UIComposite;
+import areca.ui.layout.AbsoluteLayout;
+import areca.ui.viewer.TreeViewer.ExpandableCell;
 import areca.ui.viewer.TreeViewer.TreeViewerLayout;
 
 /**
- * A standard expandable {@link TreeViewer tree}.
+ * A standard expandable {@link TreeViewer tree}. The visible levels are flattened
+ * into rows of {@link #rowHeight}, indented by depth. The tree scrolls and just
+ * the cells of the rows in the viewport (plus {@link #overscan}) are created.
+ * When the last loaded child of an item comes into view, the next page of
+ * children is loaded ({@link TreeViewer#loadMore(Object)}).
  *
  * @author Falko Bräutigam
  */
@@ -28,22 +46,152 @@ public class StandardTreeLayout<V>
 
     private static final Log LOG = LogFactory.getLog( StandardTreeLayout.class );
 
+    /** The fixed height of all rows. Default: 30 */
+    public ReadWrite<StandardTreeLayout<V>,Integer> rowHeight = Property.rw( this, "rowHeight", UIComponent.DEFAULT_HEIGHT );
+
+    /** The indent per level of depth. Default: 20 */
+    public ReadWrite<StandardTreeLayout<V>,Integer> indent = Property.rw( this, "indent", 20 );
+
+    /** Number of rows materialized above and below the viewport. Default: 10 */
+    public ReadWrite<StandardTreeLayout<V>,Integer> overscan = Property.rw( this, "overscan", 10 );
+
+    protected TreeViewer<V>         viewer;
+
+    protected ScrollableComposite   container;
+
+    /** Sets the scroll extent. */
+    protected UIComponent           spacer;
+
+    /** The visible levels, in display order. */
+    protected List<TreeViewer<V>.Level> rows = new ArrayList<>();
+
+    /** The cells of the rows in the current window. */
+    protected Map<TreeViewer<V>.Level,UIComponent> cells = new HashMap<>();
+
+
     @Override
+    @SuppressWarnings( "hiding" )
     public UIComposite init( TreeViewer<V> viewer ) {
-        // XXX Auto-generated method stub
-        throw new RuntimeException( "not yet implemented." );
+        this.viewer = viewer;
+        container = new ScrollableComposite() {{
+            layout.set( new AbsoluteLayout() {
+                @Override
+                public void layout( UIComposite composite ) {
+                    super.layout( composite );
+                    updateWindow();
+                }
+            });
+        }};
+        container.scrollTop.onChange( (newValue, __) -> updateWindow() );
+        spacer = container.add( new UIComposite() );
+        return container;
     }
 
+
     @Override
     public void update( TreeViewer<V>.Changes changes ) {
-        // XXX Auto-generated method stub
-        throw new RuntimeException( "not yet implemented." );
+        for (var removed : changes.removed) {
+            var cell = cells.remove( removed );
+            if (cell != null) {
+                cell.dispose();
+            }
+        }
+        for (var toggled : changes.toggled) {
+            var cell = cells.get( toggled );
+            if (cell instanceof ExpandableCell) {
+                ((ExpandableCell)cell).updateExpand( toggled.isExpanded );
+            }
+        }
+        rows = viewer.visibleLevels();
+        spacer.size.set( Size.of( 1, 1 ) );
+        spacer.position.set( Position.of( 0, Math.max( 0, rows.size() * itemHeight() - viewer.spacing.$() - 1 ) ) );
+        updateWindow();
+    }
+
+
+    protected int itemHeight() {
+        return rowHeight.$() + viewer.spacing.$();
     }
 
+
+    /**
+     * Creates the cells of the rows in the viewport plus {@link #overscan}, and
+     * disposes the cells outside.
+     */
+    protected void updateWindow() {
+        if (container.isDisposed() || container.clientSize.opt().isAbsent()) {
+            return;
+        }
+        var viewSize = container.clientSize.$();
+        var scrollTop = container.scrollTop.opt().orElse( 0 );
+        var itemHeight = itemHeight();
+        int end = Math.min( rows.size(), (scrollTop + viewSize.height()) / itemHeight + 1 + overscan.$() );
+        int first = Math.min( end, Math.max( 0, scrollTop / itemHeight - overscan.$() ) );
+        LOG.debug( "updateWindow(): window=%s-%s, rows=%s", first, end, rows.size() );
+
+        var visible = new HashSet<TreeViewer<V>.Level>( (end - first) * 2 );
+        var loadMore = new ArrayList<V>();
+        for (int i = first; i < end; i++) {
+            var level = rows.get( i );
+            visible.add( level );
+            var index = i;
+            var cell = cells.computeIfAbsent( level, __ -> createCell( index, level ) );
+            var x = (level.depth() - 1) * indent.$();
+            cell.position.set( Position.of( x, i * itemHeight ) );
+            cell.size.set( Size.of( Math.max( 0, viewSize.width() - x ), rowHeight.$() ) );
+            updateOddEven( cell, i );
+
+            // last loaded child of its parent
+            var parent = level.parent;
+            if (parent.hasMore() && parent.children.get( parent.children.size() - 1 ) == level) {
+                loadMore.add( parent.value );
+            }
+        }
+        // cells outside the window
+        for (var it = cells.entrySet().iterator(); it.hasNext(); ) {
+            var entry = it.next();
+            if (!visible.contains( entry.getKey() )) {
+                it.remove();
+                entry.getValue().dispose();
+            }
+        }
+        loadMore.forEach( item -> viewer.loadMore( item ) );
+    }
+
+
+    protected UIComponent createCell( int index, TreeViewer<V>.Level level ) {
+        var cell = viewer.cellBuilder.$().buildCell( index, level.value, viewer.model, viewer );
+        cell.cssClasses.add( "TableCell" );
+        if (viewer.lines.$()) {
+            cell.cssClasses.add( "Lines" );
+        }
+        container.components.add( cell );
+        if (cell instanceof ExpandableCell && level.isExpanded) {
+            ((ExpandableCell)cell).updateExpand( true );
+        }
+        return cell;
+    }
+
+
+    protected void updateOddEven( UIComponent cell, int index ) {
+        if (viewer.oddEven.$()) {
+            var css = index % 2 == 1 ? "Odd" : "Even";
+            if (!cell.cssClasses.value().contains( css )) {
+                Property.batch( () -> { // one event: -Odd/+Even
+                    cell.cssClasses.remove( "Odd" );
+                    cell.cssClasses.remove( "Even" );
+                    cell.cssClasses.add( css );
+                });
+            }
+        }
+    }
+
+
     @Override
     public void dispose() {
-        // XXX Auto-generated method stub
-        throw new RuntimeException( "not yet implemented." );
+        if (container != null && !container.isDisposed()) {
+            container.dispose();
+        }
     }
 
 }
@@ -13,14 +13,12 @@
  */
 package areca.ui.viewer;
 
-import static java.util.Arrays.asList;
-
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
@@ -40,10 +38,21 @@ import areca.ui.component2.UIComponent.CssStyle;
 import areca.ui.component2.UIComposite;
 import areca.ui.layout.LayoutConstraints;
 import areca.ui.viewer.model.LazyTreeModel;
+import areca.ui.viewer.model.ModelChangeEvent;
+import areca.ui.viewer.model.TreeModelChangeEvent;
 
 /**
+ * A tree of the values of a {@link LazyTreeModel}. The children of an item are
+ * loaded in pages of {@link #pageSize} when the item is expanded; more pages are
+ * loaded on demand via {@link #loadMore(Object)}.
+ * <p>
+ * A {@link TreeModelChangeEvent} reloads the loaded children of just the given
+ * item. Any other {@link ModelChangeEvent} reloads the loaded children of all
+ * expanded items, concurrently. In both cases the existing levels (and their
+ * expanded subtrees) are kept for children that are still there.
  *
- * @param <V> The type of the values/items provided by the model.
+ * @param <V> The type of the values/items provided by the model. The values must
+ *        be unique in the tree.
  * @author Falko Bräutigam
  * @see DrillingTreeLayout
  * @see StandardTreeLayout
@@ -115,8 +124,14 @@ public class TreeViewer<V>
     /** Collapse an opened branch when a new one is expanded. Default: false */
     public ReadWrite<TreeViewer<V>,Boolean> exclusive = Property.rw( this, "exclusive", false );
 
+    /** The number of children loaded at once. Default: 100 */
+    public ReadWrite<TreeViewer<V>,Integer> pageSize = Property.rw( this, "pageSize", 100 );
+
     protected Level                         root;
 
+    /** All loaded levels, except {@link #root}: value -&gt; level */
+    protected Map<V,Level>                  levels = new HashMap<>();
+
     protected UIComposite                   container;
 
 
@@ -136,7 +151,7 @@ public class TreeViewer<V>
             configurator.accept( container );
         }
 
-        model.subscribe( ev -> update( root ) ).unsubscribeIf( () -> container.isDisposed() );
+        model.subscribe( ev -> update( ev ) ).unsubscribeIf( () -> container.isDisposed() );
 
         return container;
     }
@@ -155,43 +170,148 @@ public class TreeViewer<V>
     }
 
 
+    protected void update( ModelChangeEvent ev ) {
+        if (ev instanceof TreeModelChangeEvent) {
+            levelOf( ((TreeModelChangeEvent)ev).<V>item() ).ifPresent( l -> update( l ) );
+        }
+        else {
+            updateAll();
+        }
+    }
+
+
     /**
-     * Recursively find structural changes and update the UI, starting from the given
-     * level.
+     * Reloads the loaded children of the given level, if it is expanded, and
+     * updates the UI.
      */
     protected Promise<Changes> update( Level l ) {
         var changes = new Changes();
-        return doUpdate( l ).map( __ -> {
-            treeLayout.$().update( changes.fill() );
+        return doUpdate( l, changes ).map( __ -> {
+            treeLayout.$().update( changes );
             LOG.debug( "update(): %s", changes );
             return changes;
         });
     }
 
 
-    protected Promise<?> doUpdate( Level l ) {
-        if (l.isExpanded) {
-            return model.loadAllChildren( l.value ).then( update -> {
-                var current = Sequence.of( l.children ).map( c -> c.value ).toSet();
-                if (!current.equals( new HashSet<>( update ) )) { // ignore order
-                    LOG.debug( "Updated children: %s", l.value );
-                    l.children = Sequence.of( update ).map( c -> new Level( l, c ) ).toList();
-                    return Promise.async( null );
-                }
-                else {
-                    //l.children.forEach( child -> doUpdate( child ) );
-                    return Promise
-                            .serial( l.children, null, child -> doUpdate( child ) )
-                            .reduce2( null, (r,child) -> null );
+    /**
+     * Reloads the loaded children of all expanded levels, concurrently, and
+     * updates the UI once.
+     */
+    protected Promise<Changes> updateAll() {
+        var changes = new Changes();
+        var expanded = root.allMatching( l -> l.isExpanded );
+        return Promise.joined( expanded.size(), root, i -> doUpdate( expanded.get( i ), changes ) )
+                .reduce2( changes, (r,__) -> r )
+                .map( __ -> {
+                    treeLayout.$().update( changes );
+                    LOG.debug( "updateAll(): %s", changes );
+                    return changes;
+                });
+    }
+
+
+    /**
+     * Reloads the loaded children of the given level (at least one page), if it is
+     * expanded. Levels of children that are still there are kept, just new and
+     * removed children are recorded. Does not descend.
+     */
+    protected Promise<Level> doUpdate( Level l, Changes changes ) {
+        if (!l.isExpanded) {
+            return Promise.async( l );
+        }
+        var version = ++l.version;
+        var max = Math.max( l.children.size(), pageSize.$() );
+        return model.loadChildren( l.value, 0, max ).then( loaded -> {
+            if (version != l.version || !l.isAttached()) {
+                return Promise.async( l );
+            }
+            reconcile( l, loaded, changes );
+            if (loaded.size() < max) {
+                l.childCount = loaded.size();
+                return Promise.async( l );
+            }
+            return model.countChildren( l.value ).map( count -> {
+                if (version == l.version) {
+                    l.childCount = count;
                 }
+                return l;
             });
+        });
+    }
+
+
+    /**
+     * Makes the given values the children of the given level.
+     */
+    protected void reconcile( Level l, List<? extends V> loaded, Changes changes ) {
+        var current = new HashMap<V,Level>( l.children.size() * 2 );
+        for (var child : l.children) {
+            current.put( child.value, child );
         }
-        else {
-            return Promise.async( null );
+        var modified = loaded.size() != l.children.size();
+        var updated = new ArrayList<Level>( loaded.size() );
+        for (var v : loaded) {
+            var child = current.remove( v );
+            if (child == null) {
+                child = attach( new Level( l, v ), changes );
+                modified = true;
+            }
+            else if (!modified && l.children.get( updated.size() ) != child) {
+                modified = true; // moved
+            }
+            updated.add( child );
+        }
+        for (var removed : current.values()) {
+            detach( removed, changes );
+        }
+        l.children = updated;
+        if (modified) {
+            LOG.debug( "Updated children: %s", l.value );
+            changes.modified.add( l );
         }
     }
 
 
+    protected Level attach( Level l, Changes changes ) {
+        levels.put( l.value, l );
+        changes.created( l );
+        return l;
+    }
+
+
+    /**
+     * Removes the given level and all its children.
+     */
+    protected void detach( Level l, Changes changes ) {
+        for (var child : l.children) {
+            detach( child, changes );
+        }
+        l.version++;
+        levels.remove( l.value, l );
+        changes.removed( l );
+    }
+
+
+    /**
+     * The {@link Level} of the given value, or the {@link #root} for null.
+     */
+    protected Opt<Level> levelOf( V item ) {
+        return item == null ? Opt.of( root ) : Opt.of( levels.get( item ) );
+    }
+
+
+    /**
+     * The visible levels, in display order: the children of the root and of all
+     * expanded levels, depth first.
+     */
+    public List<Level> visibleLevels() {
+        var result = new ArrayList<Level>( levels.size() );
+        root.addVisible( result );
+        return result;
+    }
+
+
     /**
      * {@link #expand(Object)} or {@link #collapse(Object)} the given item depending
      * on the given parameter.
@@ -211,21 +331,22 @@ public class TreeViewer<V>
      * @return True if the item is now expanded.
      */
     public Promise<Boolean> toggle( V item ) {
-        var l = root.find( item ).orElseError( "No Level for value: %s", item );
+        var l = levelOf( item ).orElseError( "No Level for value: %s", item );
         return expand( item, !l.isExpanded ).map( __ -> l.isExpanded );
     }
 
 
     /**
      * Expands the given top-level item. The item must be loaded/visible currently.
-     * Does nothing if the item is already expanded.
+     * Does nothing if the item is already expanded. Loads the first
+     * {@link #pageSize} children.
      *
      * @return A {@link Promise} providing the children of the expanded item.
      */
     public Promise<Changes> expand( V item ) {
         var changes = new Changes();
-        return doExpand( item ).map( __ -> {
-            treeLayout.$().update( changes.fill() );
+        return doExpand( item, changes ).map( __ -> {
+            treeLayout.$().update( changes );
             LOG.debug( "expand(): %s", changes );
             return changes;
         });
@@ -238,41 +359,78 @@ public class TreeViewer<V>
      */
     public Promise<Changes> collapse( V item ) {
         var changes = new Changes();
-        doCollapse( item );
-        treeLayout.$().update( changes.fill() );
+        doCollapse( item, changes );
+        treeLayout.$().update( changes );
         LOG.debug( "collapse(): %s", changes );
         return Promise.async( changes );
     }
 
 
+    /**
+     * Loads the next {@link #pageSize} children of the given expanded item. Does
+     * nothing if all children are loaded, or if a page is currently loading.
+     */
+    public Promise<Changes> loadMore( V item ) {
+        var changes = new Changes();
+        var l = levelOf( item ).orElseError( "No Level for value: %s", item );
+        if (!l.isExpanded || !l.hasMore() || l.loading) {
+            return Promise.async( changes );
+        }
+        l.loading = true;
+        var version = l.version;
+        var first = l.children.size();
+        var max = pageSize.$();
+        return model.loadChildren( item, first, max )
+                .onError( e -> l.loading = false )  // next loadMore() retries; error is propagated
+                .map( loaded -> {
+                    l.loading = false;
+                    if (version == l.version && l.isAttached() && l.children.size() == first) {
+                        for (var v : loaded) {
+                            // skip values that moved into the previous page meanwhile
+                            if (!levels.containsKey( v )) {
+                                l.children.add( attach( new Level( l, v ), changes ) );
+                            }
+                        }
+                        if (loaded.size() < max) {
+                            l.childCount = l.children.size();
+                        }
+                        changes.modified.add( l );
+                        treeLayout.$().update( changes );
+                        LOG.debug( "loadMore(): %s", changes );
+                    }
+                    return changes;
+                });
+    }
+
+
     /**
      *
      */
     @SuppressWarnings( "unchecked" )
     public Promise<List<? extends V>> expandPath( V... path ) {
         var changes = new Changes();
-        return doExpandPath( path ).onSuccess( __ -> {
-            treeLayout.$().update( changes.fill() );
+        return doExpandPath( changes, path ).onSuccess( __ -> {
+            treeLayout.$().update( changes );
             LOG.debug( "expandPath(): %s", changes );
         });
     }
 
 
     @SuppressWarnings( "unchecked" )
-    protected Promise<List<? extends V>> doExpandPath( V... path ) {
+    protected Promise<List<? extends V>> doExpandPath( Changes changes, V... path ) {
         var item = path[0];
         var nextPath = ArrayUtils.remove( path, 0 );
 
-        return doExpand( item ).then( __ -> {
+        return doExpand( item, changes ).then( __ -> {
             return nextPath.length > 0
-                    ? doExpandPath( nextPath )
+                    ? doExpandPath( changes, nextPath )
                     : Promise.async( __ );
         });
     }
 
 
-    protected Promise<List<? extends V>> doExpand( V item ) {
-        var l = root.find( item ).orElseError( "No Level for value: %s", item );
+    protected Promise<List<? extends V>> doExpand( V item, Changes changes ) {
+        var l = levelOf( item ).orElseError( "No Level for value: %s", item );
 
         if (l.isExpanded) {
             return Promise.async( l.children().map( child -> child.value ).toList() );
@@ -280,79 +438,96 @@ public class TreeViewer<V>
 
         // close siblings if "exclusive"
         if (exclusive.$() && l.parent != null) {
-            l.parent.expandedChildren().forEach( child -> doCollapse( child.value ) );
+            l.parent.expandedChildren().toList().forEach( child -> doCollapse( child.value, changes ) );
         }
 
-        return model.loadAllChildren( item ).onSuccess( children -> {
+        var version = ++l.version;
+        var max = pageSize.$();
+        return model.loadChildren( item, 0, max ).then( loaded -> {
+            if (version != l.version || !l.isAttached()) {
+                return Promise.async( loaded );
+            }
             Assert.that( l.children.isEmpty() );
             l.isExpanded = true;
-            for (var child : children) {
-                l.children.add( new Level( l, child ) );
+            changes.toggled( l );
+            for (var child : loaded) {
+                l.children.add( attach( new Level( l, child ), changes ) );
             }
+            if (loaded.size() < max) {
+                l.childCount = loaded.size();
+                return Promise.async( loaded );
+            }
+            return model.countChildren( item ).map( count -> {
+                if (version == l.version) {
+                    l.childCount = count;
+                }
+                return loaded;
+            });
         });
     }
 
 
-    protected void doCollapse( V item ) {
-        var level = root.find( item ).orElseError( "No Level for value: %s", item );
+    protected void doCollapse( V item, Changes changes ) {
+        var level = levelOf( item ).orElseError( "No Level for value: %s", item );
         if (!level.isExpanded) {
             return;
         }
-
-        // find all expanded children
-        var expandedChildren = new LinkedList<Level>();
-        var deque = new ArrayDeque<Level>( asList( level ) );
-        for (var l = deque.poll(); l != null; l = deque.poll()) {
-            if (l.isExpanded) {
-                expandedChildren.add( 0, l );
-            }
-            deque.addAll( l.children );
-        }
-        // close from top to the given item
-        for (var expanded : expandedChildren) {
-            expanded.isExpanded = false;
-            expanded.children.clear();
+        for (var child : level.children) {
+            detach( child, changes );
         }
+        level.version++;
+        level.children = new ArrayList<>();
+        level.childCount = -1;
+        level.isExpanded = false;
+        changes.toggled( level );
     }
 
 
     public boolean isExpanded( V item ) {
-        return root.find( item ).orElseError( "No Level for value: %s", item ).isExpanded;
+        return levelOf( item ).orElseError( "No Level for value: %s", item ).isExpanded;
     }
 
 
     /**
-     * The result of an update operation.
+     * The result of an update operation. The changes are recorded while the
+     * operation is running.
      */
     public class Changes {
         /** The levels that have changed expand state. */
-        public Set<Level> toggled;
-        public Set<Level> created;
-        public Set<Level> removed;
-        public Set<Level> modified;
-        private Set<Level> previous;
+        public Set<Level> toggled = new HashSet<>();
+        /** The levels that were loaded. */
+        public Set<Level> created = new HashSet<>();
+        /** The levels that were removed, including the children of collapsed levels. */
+        public Set<Level> removed = new HashSet<>();
+        /** The levels whose children were added, removed or moved. */
+        public Set<Level> modified = new HashSet<>();
 
         private Changes() {
-            previous = root.allMatching( new HashSet<>(), l -> true );
-            toggled = root.allMatching( new HashSet<>(), l -> l.isExpanded );
         }
 
-        public Changes fill() {
-            toggled = root.allMatching( new HashSet<>(), l -> l.isExpanded ^ toggled.contains( l ) );
+        protected void toggled( Level l ) {
+            if (!toggled.remove( l )) {
+                toggled.add( l );
+            }
+        }
 
-            created = root.allMatching( new HashSet<>(), l -> !previous.contains( l ) );
+        protected void created( Level l ) {
+            if (!removed.remove( l )) {
+                created.add( l );
+            }
+        }
 
-            var all = root.allMatching( new HashSet<>(), l -> true );
-            removed = new HashSet<>( previous );
-            removed.removeIf( l -> all.contains( l ) );
-            return this;
+        protected void removed( Level l ) {
+            if (!created.remove( l )) {
+                removed.add( l );
+            }
         }
 
         @Override
         @SuppressWarnings( "removal" )
         public String toString() {
-            return "TreeViewer.Changes [toggled=%s, created=%s, removed=%s, modified=?]".formatted(
-                    toggled.size(), created.size(), removed.size() );
+            return "TreeViewer.Changes [toggled=%s, created=%s, removed=%s, modified=%s]".formatted(
+                    toggled.size(), created.size(), removed.size(), modified.size() );
         }
     }
 
@@ -366,10 +541,20 @@ public class TreeViewer<V>
 
         public Level                parent;
 
+        /** The loaded children. */
         public List<Level>          children = new ArrayList<>();
 
+        /** The number of children in the model; -1 if not yet known. */
+        public int                  childCount = -1;
+
         public boolean              isExpanded;
 
+        /** Incremented by every operation on the children; outdated results are skipped. */
+        protected int               version;
+
+        /** {@link #loadMore(Object)} is pending. */
+        protected boolean           loading;
+
 
         public Level( Level parent, V value ) {
             this.parent = Assert.notSame( this, parent );
@@ -391,6 +576,25 @@ public class TreeViewer<V>
             return value != null ? value.hashCode() : 31;
         }
 
+        /** There are children in the model that are not yet loaded. */
+        public boolean hasMore() {
+            return isExpanded && childCount > children.size();
+        }
+
+        /** The depth in the tree; the children of the root have depth 1. */
+        public int depth() {
+            var result = 0;
+            for (var l = parent; l != null; l = l.parent) {
+                result ++;
+            }
+            return result;
+        }
+
+        /** This level is still part of the tree. */
+        public boolean isAttached() {
+            return this == root || levels.get( value ) == this;
+        }
+
         public Opt<Level> find( V v ) {
             var result = allMatching( new ArrayList<>(), l -> Objects.equals( l.value, v ) );
             Assert.that( result.size() <= 1, "find(): v = " + v + ", results = " + result );
@@ -411,6 +615,15 @@ public class TreeViewer<V>
             return result;
         }
 
+        protected void addVisible( List<Level> result ) {
+            for (var child : children) {
+                result.add( child );
+                if (child.isExpanded) {
+                    child.addVisible( result );
+                }
+            }
+        }
+
         public Sequence<TreeViewer<V>.Level,RuntimeException> children() {
             return Sequence.of( children );
         }
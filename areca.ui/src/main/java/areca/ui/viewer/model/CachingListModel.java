@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2025, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.ui.viewer.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import areca.common.Assert;
+import areca.common.Platform;
+import areca.common.Promise;
+import areca.common.Promise.Completable;
+import areca.common.base.Opt;
+import areca.common.log.LogFactory;
+import areca.common.log.LogFactory.Log;
+
+/**
+ * Caching decorator of a {@link LazyListModel}. Values are loaded from the
+ * delegate in pages of {@link #pageSize}; the last recently used {@link #maxPages}
+ * pages are kept. {@link #count()} is memoized.
+ * <p>
+ * {@link #load(int, int)} prefetches {@link #prefetch} pages in scroll direction
+ * (the direction of the last two requests).
+ * <p>
+ * A {@link ModelChangeEvent} of the delegate invalidates the cache and is
+ * forwarded to the subscribers of this model. A {@link ListModelChangeEvent}
+ * just invalidates the pages of its range (and all subsequent pages if
+ * {@link ListModelChangeEvent#shifted()}).
+ *
+ * @author Falko Bräutigam
+ */
+public class CachingListModel<V>
+        extends ModelBaseImpl
+        implements LazyListModel<V> {
+
+    private static final Log LOG = LogFactory.getLog( CachingListModel.class );
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    public static final int DEFAULT_MAX_PAGES = 20;
+
+    public static final int DEFAULT_PREFETCH = 1;
+
+    // instance *******************************************
+
+    protected LazyListModel<V>  delegate;
+
+    protected int               pageSize = DEFAULT_PAGE_SIZE;
+
+    protected int               maxPages = DEFAULT_MAX_PAGES;
+
+    protected int               prefetch = DEFAULT_PREFETCH;
+
+    /** Page index -&gt; values of the page; access ordered, last recently used first. */
+    protected Map<Integer,Completable<List<V>>> pages = new LinkedHashMap<>( 32, 0.75f, true ) {
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<Integer,Completable<List<V>>> eldest ) {
+            return size() > maxPages;
+        }
+    };
+
+    /** The memoized {@link #count()}; null if not yet requested or invalidated. */
+    protected Completable<Integer> count;
+
+    /** The value of {@link #count}, -1 if not yet known. */
+    protected int               knownCount = -1;
+
+    /** The first index of the last {@link #load(int, int)} request. */
+    protected int               lastFirst = -1;
+
+    protected boolean           disposed;
+
+
+    public CachingListModel( LazyListModel<V> delegate ) {
+        this.delegate = Assert.notNull( delegate );
+        delegate.subscribe( ev -> onDelegateChange( ev ) ).unsubscribeIf( () -> disposed );
+    }
+
+
+    /** The number of values loaded at once. Default: {@link #DEFAULT_PAGE_SIZE} */
+    public CachingListModel<V> pageSize( int value ) {
+        Assert.that( value > 0 );
+        this.pageSize = value;
+        invalidate();
+        return this;
+    }
+
+
+    /** The max number of cached pages. Default: {@link #DEFAULT_MAX_PAGES} */
+    public CachingListModel<V> maxPages( int value ) {
+        Assert.that( value > prefetch );
+        this.maxPages = value;
+        return this;
+    }
+
+
+    /** The number of pages to prefetch in scroll direction. Default: {@link #DEFAULT_PREFETCH} */
+    public CachingListModel<V> prefetch( int value ) {
+        Assert.that( value >= 0 && value < maxPages );
+        this.prefetch = value;
+        return this;
+    }
+
+
+    /**
+     * Stops listening to the delegate.
+     */
+    public void dispose() {
+        disposed = true;
+        invalidate();
+    }
+
+
+    @Override
+    public Promise<Integer> count() {
+        if (count == null) {
+            var _count = count = new Completable<>();
+            delegate.count()
+                    .onSuccess( c -> {
+                        if (count == _count) {
+                            knownCount = c;
+                        }
+                        _count.complete( c );
+                    })
+                    .onError( e -> {
+                        if (count == _count) {
+                            count = null;
+                        }
+                        _count.completeWithError( e );
+                    });
+        }
+        // deliver async, like a newly loaded count
+        return count.then( c -> Promise.async( c ) );
+    }
+
+
+    @Override
+    public Promise<Opt<V>> load( int first, int max ) {
+        Assert.that( first >= 0 && max >= 0 );
+        var result = new Completable<Opt<V>>();
+        if (max == 0) {
+            Platform.async( () -> result.complete( Opt.absent() ) );
+            return result;
+        }
+        // emit async: a cached page would deliver before the caller has subscribed
+        Platform.async( () -> emit( result, first, max ) );
+
+        // prefetch
+        var firstPage = first / pageSize;
+        var lastPage = (int)Math.min( ((long)first + max - 1) / pageSize, Integer.MAX_VALUE - prefetch - 1 );
+        var direction = Integer.compare( first, lastFirst );
+        lastFirst = first;
+        for (int i = 1; i <= prefetch && direction != 0 && knownCount != -1; i++) {
+            var index = direction < 0 ? firstPage - i : lastPage + i;
+            if (index >= 0 && (long)index * pageSize < knownCount) {
+                page( index );
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Emits the values of the given range to the given result, page by page.
+     * Completes with {@link Opt#absent()}.
+     */
+    protected void emit( Completable<Opt<V>> result, int first, int remaining ) {
+        var pageIndex = first / pageSize;
+        page( pageIndex ).onSuccess( values -> {
+            var rest = remaining;
+            for (int i = first - pageIndex * pageSize; i < values.size() && rest > 0; i++, rest--) {
+                result.consumeResult( Opt.of( values.get( i ) ) );
+            }
+            if (rest > 0 && values.size() == pageSize) {
+                emit( result, (pageIndex + 1) * pageSize, rest );
+            }
+            else {
+                result.complete( Opt.absent() );
+            }
+        })
+        .onError( e -> result.completeWithError( e ) );
+    }
+
+
+    /**
+     * The cached or a newly loaded page.
+     */
+    protected Promise<List<V>> page( int index ) {
+        var page = pages.get( index );
+        if (page == null) {
+            LOG.debug( "Loading page: %s (%s)", index, pageSize );
+            var _page = page = new Completable<List<V>>();
+            var values = new ArrayList<V>( pageSize );
+            delegate.load( index * pageSize, pageSize ).onSuccess( (site,opt) -> {
+                opt.ifPresent( v -> values.add( v ) );
+                if (!_page.isCompleted() && (opt.isAbsent() || site.isComplete() || values.size() == pageSize)) {
+                    _page.complete( values );
+                }
+            })
+            .onError( e -> {
+                pages.remove( index, _page );
+                _page.completeWithError( e );
+            });
+            pages.put( index, page );
+        }
+        return page;
+    }
+
+
+    /**
+     * Drops all cached pages and the count.
+     */
+    public void invalidate() {
+        pages.clear();
+        count = null;
+        knownCount = -1;
+    }
+
+
+    /**
+     * Drops the cached pages of the given range.
+     *
+     * @param shifted Values were inserted or removed: drops all subsequent pages
+     *        and the count too.
+     */
+    public void invalidate( int first, int num, boolean shifted ) {
+        var firstPage = first / pageSize;
+        var lastPage = shifted ? Integer.MAX_VALUE : ((long)first + Math.max( num, 1 ) - 1) / pageSize;
+        pages.keySet().removeIf( index -> index >= firstPage && index <= lastPage );
+        if (shifted) {
+            count = null;
+            knownCount = -1;
+        }
+    }
+
+
+    protected void onDelegateChange( ModelChangeEvent ev ) {
+        if (ev instanceof ListModelChangeEvent) {
+            var range = (ListModelChangeEvent)ev;
+            LOG.debug( "Delegate changed: %s-%s (shifted: %s)", range.first(), range.num(), range.shifted() );
+            invalidate( range.first(), range.num(), range.shifted() );
+            fireChangeEvent( new ListModelChangeEvent( this, range.first(), range.num(), range.shifted() ) );
+        }
+        else {
+            invalidate();
+            fireChangeEvent();
+        }
+    }
+
+}
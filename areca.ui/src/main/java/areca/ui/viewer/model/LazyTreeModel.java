@@ -16,21 +16,52 @@ package areca.ui.viewer.model;
 import java.util.List;
 
 import areca.common.Promise;
+import areca.common.event.EventManager;
 
 /**
+ * A tree model that loads the children of an item in pages. The item
+ * <code>null</code> denotes the (invisible) root of the tree.
+ * <p>
+ * A model signals changes of the children of one item via
+ * {@link #fireChildrenChanged(Object)}, so that a viewer can update just this
+ * item. A plain {@link ModelChangeEvent} makes the viewer check all loaded
+ * children of all expanded items.
  *
  * @author Falko Bräutigam
  */
 public interface LazyTreeModel<V>
         extends TreeModelBase<V> {
 
-    //public Promise<Integer> countChildren( V item );
+    /**
+     * The number of children of the given item.
+     * <p>
+     * The default implementation loads all children. Implementations should
+     * override with a cheaper query, if possible.
+     */
+    public default Promise<Integer> countChildren( V item ) {
+        return loadAllChildren( item ).map( children -> children.size() );
+    }
 
+    /**
+     * Loads the children of the given item with the given indexes.
+     *
+     * @param item The parent item, or null for the root.
+     * @param first The index of the first child to load.
+     * @param max The maximum number of children to load.
+     */
     public Promise<List<? extends V>> loadChildren( V item, int first, int max );
 
     public default Promise<List<? extends V>> loadAllChildren( V item ) {
         return loadChildren( item, 0, Integer.MAX_VALUE );
     }
 
+    /**
+     * Signals that the children of the given item have changed.
+     *
+     * @param item The parent item, or null for the root.
+     */
+    public default void fireChildrenChanged( V item ) {
+        EventManager.instance().publish( new TreeModelChangeEvent( this, item ) );
+    }
 
 }
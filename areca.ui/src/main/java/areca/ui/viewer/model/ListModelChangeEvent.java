@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2025, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.ui.viewer.model;
+
+/**
+ * Signals that a range of a {@link ListModelBase list model} has changed.
+ *
+ * @author Falko Bräutigam
+ */
+public class ListModelChangeEvent
+        extends ModelChangeEvent {
+
+    private int         first;
+
+    private int         num;
+
+    private boolean     shifted;
+
+    /**
+     * @param first The index of the first changed element.
+     * @param num The number of changed elements.
+     * @param shifted True if elements were inserted or removed, so that all
+     *        elements after the range have changed their index too.
+     */
+    public ListModelChangeEvent( ListModelBase<?> source, int first, int num, boolean shifted ) {
+        super( source );
+        this.first = first;
+        this.num = num;
+        this.shifted = shifted;
+    }
+
+    /** The index of the first changed element. */
+    public int first() {
+        return first;
+    }
+
+    /** The number of changed elements. */
+    public int num() {
+        return num;
+    }
+
+    /**
+     * True if elements were inserted or removed, so that all elements after the
+     * range have changed their index (and the count has changed).
+     */
+    public boolean shifted() {
+        return shifted;
+    }
+
+}
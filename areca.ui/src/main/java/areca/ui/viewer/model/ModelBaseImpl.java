@@ -13,6 +13,7 @@
  */
 package areca.ui.viewer.model;
 
+import areca.common.Assert;
 import areca.common.event.EventManager;
 
 /**
@@ -37,4 +38,13 @@ public abstract class ModelBaseImpl
         EventManager.instance().publish( new ModelChangeEvent( this ) );
     }
 
+
+    /**
+     * Publishes the given event, which might carry details of the change.
+     */
+    public void fireChangeEvent( ModelChangeEvent ev ) {
+        Assert.isSame( this, ev.getSource(), "Event source must be this model." );
+        EventManager.instance().publish( ev );
+    }
+
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2025, the @authors. All rights reserved.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package areca.ui.viewer.model;
+
+/**
+ * Signals that the children of one item of a {@link LazyTreeModel} have changed.
+ *
+ * @see LazyTreeModel#fireChildrenChanged(Object)
+ * @author Falko Bräutigam
+ */
+public class TreeModelChangeEvent
+        extends ModelChangeEvent {
+
+    private Object      item;
+
+    public TreeModelChangeEvent( TreeModelBase<?> source, Object item ) {
+        super( source );
+        this.item = item;
+    }
+
+    /**
+     * The item whose children have changed, or null for the root.
+     */
+    @SuppressWarnings( "unchecked" )
+    public <V> V item() {
+        return (V)item;
+    }
+
+}